@@ -0,0 +1,41 @@
+package com.libman.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Key/value settings stored in the app_metadata table (markers, watermarks...).
+ */
+public class AppMetadata {
+
+    /** Present only inside a bulk import's transaction: the CatalogSearch insert triggers skip their rows (schema V7). */
+    public static final String CATALOG_SEARCH_BULK_LOAD = "catalogSearch.bulkLoad";
+
+    public static String get(Connection conn, String key) throws SQLException {
+        String sql = "SELECT value FROM app_metadata WHERE key = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, key);
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? rs.getString(1) : null;
+        }
+    }
+
+    public static void put(Connection conn, String key, String value) throws SQLException {
+        String sql = "INSERT OR REPLACE INTO app_metadata (key, value) VALUES (?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, key);
+            stmt.setString(2, value);
+            stmt.executeUpdate();
+        }
+    }
+
+    public static void remove(Connection conn, String key) throws SQLException {
+        String sql = "DELETE FROM app_metadata WHERE key = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, key);
+            stmt.executeUpdate();
+        }
+    }
+}
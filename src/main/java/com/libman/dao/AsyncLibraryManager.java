@@ -0,0 +1,290 @@
+package com.libman.dao;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.libman.io.ImportListener;
+import com.libman.io.ImportReport;
+import com.libman.model.*;
+
+/**
+ * Asynchronous facade over {@link LibraryManagerDAO}.
+ *
+ * Every operation returns a {@link CompletableFuture} and runs on a dedicated
+ * executor, so UI event handlers never block on JDBC. Checkouts, returns and
+ * member/document updates go through the group-commit {@link WriteQueue}.
+ *
+ * Cancelling a future that has not started yet skips the work; cancelling a
+ * running one interrupts its thread, which aborts a wait for a pooled connection.
+ *
+ * The executor uses virtual threads when the runtime has them (Java 21+) and a
+ * bounded platform pool otherwise; -Dlibman.async.executor=platform|virtual and
+ * -Dlibman.async.threads=N override the default.
+ */
+public class AsyncLibraryManager {
+
+    private static final String EXECUTOR_KIND = System.getProperty("libman.async.executor", "auto");
+    private static final int PLATFORM_THREADS = Integer.getInteger("libman.async.threads", 8);
+
+    private final LibraryManagerDAO manager;
+    private final QueuedLibraryManager writes;
+    private final ExecutorService executor;
+
+    /** Holder for the executor shared by every facade that does not bring its own. */
+    private static final class SharedExecutor {
+        static final ExecutorService INSTANCE = createDefaultExecutor();
+    }
+
+    public AsyncLibraryManager(LibraryManagerDAO manager) {
+        this(manager, SharedExecutor.INSTANCE);
+    }
+
+    public AsyncLibraryManager(LibraryManagerDAO manager, ExecutorService executor) {
+        this.manager = manager;
+        this.writes = new QueuedLibraryManager(manager);
+        this.executor = executor;
+    }
+
+    /**
+     * Virtual-thread-per-task executor when available, otherwise a fixed pool of
+     * daemon platform threads. Looked up reflectively so the code still compiles for Java 17.
+     */
+    public static ExecutorService createDefaultExecutor() {
+        if (!EXECUTOR_KIND.equalsIgnoreCase("platform")) {
+            try {
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService) factory.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                if (EXECUTOR_KIND.equalsIgnoreCase("virtual")) {
+                    System.err.println("Virtual threads are not available on this runtime, using a platform pool.");
+                }
+            }
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(PLATFORM_THREADS, r -> {
+            Thread t = new Thread(r, "libman-async-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Runs any DAO work on the executor, as one request with its own identity map. */
+    public <T> CompletableFuture<T> supply(UnitOfWork.Work<T> work) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task;
+        try {
+            task = executor.submit(() -> {
+                if (result.isDone()) return; // cancelled before it started
+                IdentityMap.Scope scope = IdentityMap.open();
+                try {
+                    result.complete(work.execute());
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                } finally {
+                    scope.close();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) task.cancel(true);
+        });
+        return result;
+    }
+
+    /** Runs DAO work without a result on the executor. */
+    public CompletableFuture<Void> run(UnitOfWork.VoidWork work) {
+        return supply(() -> {
+            work.execute();
+            return null;
+        });
+    }
+
+    // -------------------- Members --------------------
+    public CompletableFuture<Void> addMember(Member member) {
+        return writes.addMember(member);
+    }
+
+    public CompletableFuture<Integer> generateNextMemberId() {
+        return supply(manager::generateNextMemberId);
+    }
+
+    public CompletableFuture<Member> searchMemberById(Integer id) {
+        return supply(() -> manager.searchMemberById(id));
+    }
+
+    public CompletableFuture<Member> searchMemberByName(String name, String surname) {
+        return supply(() -> manager.searchMemberByName(name, surname));
+    }
+
+    public CompletableFuture<List<Member>> getAllMembers() {
+        return supply(manager::getAllMembers);
+    }
+
+    public CompletableFuture<Void> updateMember(Member member, String name, String surname, PenaltyStatus penaltyStatus) {
+        return writes.updateMember(member, name, surname, penaltyStatus);
+    }
+
+    public CompletableFuture<List<Borrow>> getMemberHistory(Member member) {
+        return supply(() -> manager.getMemberHistory(member));
+    }
+
+    public CompletableFuture<Void> deleteMember(Member member) {
+        return run(() -> manager.deleteMember(member));
+    }
+
+    public CompletableFuture<Integer> getActiveBorrowsCount(int memberId) {
+        return supply(() -> {
+            try {
+                return manager.getActiveBorrowsCount(memberId);
+            } catch (Exception e) {
+                throw new RuntimeException(e.getMessage(), e);
+            }
+        });
+    }
+
+    public CompletableFuture<Double> getTotalPenaltyForMember(int memberId) {
+        return supply(() -> {
+            try {
+                return manager.getTotalPenaltyForMember(memberId);
+            } catch (Exception e) {
+                throw new RuntimeException(e.getMessage(), e);
+            }
+        });
+    }
+
+    // -------------------- Documents --------------------
+    public CompletableFuture<Document> getDocumentByTitle(String title) {
+        return supply(() -> manager.getDocumentByTitle(title));
+    }
+
+    public CompletableFuture<Void> addBook(Book book) {
+        return run(() -> manager.addBook(book));
+    }
+
+    public CompletableFuture<Book> getBookByIsbn(String isbn) {
+        return supply(() -> manager.getBookByIsbn(isbn));
+    }
+
+    public CompletableFuture<Void> updateBook(Book book) {
+        return writes.updateBook(book);
+    }
+
+    public CompletableFuture<Void> deleteBook(String isbn) {
+        return run(() -> manager.deleteBook(isbn));
+    }
+
+    public CompletableFuture<List<Book>> getAllBooks() {
+        return supply(manager::getAllBooks);
+    }
+
+    public CompletableFuture<Void> addMagazine(Magazine magazine) {
+        return run(() -> manager.addMagazine(magazine));
+    }
+
+    public CompletableFuture<Magazine> getMagazineByNumber(int number) {
+        return supply(() -> manager.getMagazineByNumber(number));
+    }
+
+    public CompletableFuture<Void> updateMagazine(Magazine magazine) {
+        return writes.updateMagazine(magazine);
+    }
+
+    public CompletableFuture<Void> deleteMagazine(int number) {
+        return run(() -> manager.deleteMagazine(number));
+    }
+
+    public CompletableFuture<List<Magazine>> getAllMagazines() {
+        return supply(manager::getAllMagazines);
+    }
+
+    public CompletableFuture<List<Document>> getAllDocuments() {
+        return supply(manager::getAllDocuments);
+    }
+
+    public CompletableFuture<Page<Document>> getDocumentsPage(DocumentSort sort, Page.Key after, int pageSize) {
+        return supply(() -> manager.getDocumentsPage(sort, after, pageSize));
+    }
+
+    public CompletableFuture<CatalogStats> getCatalogStats() {
+        return supply(manager::getCatalogStats);
+    }
+
+    public CompletableFuture<List<Document>> searchDocuments(String type, String query) {
+        return supply(() -> manager.searchDocuments(type, query));
+    }
+
+    /** Runs a bulk import on the executor; it takes the writer one chunk at a time, between queued writes. */
+    public CompletableFuture<ImportReport> importCatalog(Path input, Path errorFile, ImportListener listener) {
+        return supply(() -> {
+            try {
+                return manager.importCatalog(input, errorFile, listener);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // -------------------- Borrows --------------------
+    public CompletableFuture<Boolean> addBorrow(Member member, Document document) {
+        return writes.addBorrow(member, document);
+    }
+
+    public CompletableFuture<Boolean> addBorrow(Member member, Document document,
+                                                LocalDate borrowDate, LocalDate expectedReturnDate) {
+        return writes.addBorrow(member, document, borrowDate, expectedReturnDate);
+    }
+
+    public CompletableFuture<Void> removeBorrow(Borrow borrow) {
+        return writes.removeBorrow(borrow);
+    }
+
+    public CompletableFuture<List<Borrow>> getCurrentBorrows() {
+        return supply(manager::getCurrentBorrows);
+    }
+
+    public CompletableFuture<List<Borrow>> getLateBorrows() {
+        return supply(manager::getLateBorrows);
+    }
+
+    public CompletableFuture<List<Borrow>> getAllBorrows() {
+        return supply(manager::getAllBorrows);
+    }
+
+    public CompletableFuture<Boolean> isDocumentBorrowed(int idDoc) {
+        return supply(() -> manager.isDocumentBorrowed(idDoc));
+    }
+
+    public CompletableFuture<Integer> getReturnedTodayCount() {
+        return supply(manager::getReturnedTodayCount);
+    }
+
+    // -------------------- Autocomplete --------------------
+    public CompletableFuture<List<String>> completeTitles(String prefix, int limit) {
+        return supply(() -> manager.completeTitles(prefix, limit));
+    }
+
+    public CompletableFuture<List<String>> completeAuthors(String prefix, int limit) {
+        return supply(() -> manager.completeAuthors(prefix, limit));
+    }
+
+    public CompletableFuture<List<Member>> completeMembers(String prefix, int limit) {
+        return supply(() -> manager.completeMembers(prefix, limit));
+    }
+
+    public LibraryManagerDAO getManager() {
+        return manager;
+    }
+}
@@ -3,11 +3,14 @@ package com.libman.dao;
 import com.libman.model.Book;
 import com.libman.exception.DocumentNotFoundException;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface BookDAO {
     void addBook(Book book) throws DocumentNotFoundException;
     Book getBookByIsbn(String isbn) throws DocumentNotFoundException;
     List<Book> getAllBooks();
+    void forEachBook(Consumer<? super Book> action);  // streams rows, nothing kept in memory
+    Page<Book> getBooksPage(DocumentSort sort, Page.Key after, int pageSize);  // after == null: first page
     void updateBookAttributes(Book book, String newTitle, String newAuthor, String newGenre,
                               String newIsbn, Integer newPageNumber) throws DocumentNotFoundException;
     void removeBook(Book book) throws DocumentNotFoundException;
@@ -4,6 +4,7 @@ import java.sql.Connection;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -12,11 +13,12 @@ import com.libman.exception.DocumentNotFoundException;
 
 public class BookDAOImpl implements BookDAO {
 
-    private Connection conn;
+    // Committed books by ISBN; DocumentDAOImpl.invalidate drops them by id_doc
+    static final EntityCache<String, Book> CACHE = EntityCache.named("booksByIsbn", RowMappers::copy);
 
-    public BookDAOImpl() {
-        this.conn = DatabaseManager.getConnection();
-    }
+    // Join Book table with Document table to get common fields
+    private static final String BOOK_SELECT =
+            "SELECT " + RowMappers.BOOK_COLUMNS + " FROM Book bk JOIN Document d ON bk.id_doc = d.id_doc";
 
     @Override
     public void addBook(Book book) throws DocumentNotFoundException {
@@ -27,32 +29,36 @@ public class BookDAOImpl implements BookDAO {
         String insertBookSQL = 
             "INSERT INTO Book (title, isbn, pageNumber, author, genre, id_doc) VALUES (?, ?, ?, ?, ?, ?)";
 
-        try {
+        try (Connection conn = DatabaseManager.getWriteConnection()) {
             // 1️⃣ Insert into Document table first
-            PreparedStatement stmtDoc = conn.prepareStatement(insertDocumentSQL, Statement.RETURN_GENERATED_KEYS);
-            stmtDoc.setString(1, book.getTitle());
-            stmtDoc.setString(2, book.getAuthor());
-            stmtDoc.setString(3, book.getGenre());
-            stmtDoc.executeUpdate();
-
-            // 2️⃣ Retrieve generated id_doc
-            ResultSet rs = stmtDoc.getGeneratedKeys();
-            if (!rs.next()) {
-                throw new DocumentNotFoundException("Failed to retrieve generated id_doc.");
+            int id_doc;
+            try (PreparedStatement stmtDoc = conn.prepareStatement(insertDocumentSQL, Statement.RETURN_GENERATED_KEYS)) {
+                stmtDoc.setString(1, book.getTitle());
+                stmtDoc.setString(2, book.getAuthor());
+                stmtDoc.setString(3, book.getGenre());
+                stmtDoc.executeUpdate();
+
+                // 2️⃣ Retrieve generated id_doc
+                try (ResultSet rs = stmtDoc.getGeneratedKeys()) {
+                    if (!rs.next()) {
+                        throw new DocumentNotFoundException("Failed to retrieve generated id_doc.");
+                    }
+                    id_doc = rs.getInt(1);
+                }
             }
-            int id_doc = rs.getInt(1);
             book.setIdDoc(id_doc); // Book inherits id from Document
 
             // 3️⃣ Insert into Book table
-            PreparedStatement stmtBook = conn.prepareStatement(insertBookSQL);
-            stmtBook.setString(1, book.getTitle());
-            stmtBook.setString(2, book.getIsbn());
-            stmtBook.setInt(3, book.getPageNumber());
-            stmtBook.setString(4, book.getAuthor());
-            stmtBook.setString(5, book.getGenre());
-            stmtBook.setInt(6, id_doc);
-
-            stmtBook.executeUpdate();
+            try (PreparedStatement stmtBook = conn.prepareStatement(insertBookSQL)) {
+                stmtBook.setString(1, book.getTitle());
+                stmtBook.setString(2, book.getIsbn());
+                stmtBook.setInt(3, book.getPageNumber());
+                stmtBook.setString(4, book.getAuthor());
+                stmtBook.setString(5, book.getGenre());
+                stmtBook.setInt(6, id_doc);
+
+                stmtBook.executeUpdate();
+            }
 
             System.out.println("Book added with id_doc=" + id_doc);
 
@@ -65,27 +71,19 @@ public class BookDAOImpl implements BookDAO {
 
     @Override
     public Book getBookByIsbn(String isbn) throws DocumentNotFoundException {
-        try {
-            // Join Book table with Document table to get common fields
-            String sql = "SELECT b.title AS book_title, b.isbn AS isbn, b.pageNumber AS pageNumber, " +
-                         "d.id_doc, d.author, d.genre " +
-                         "FROM Book b " +
-                         "JOIN Document d ON b.id_doc = d.id_doc " +
-                         "WHERE b.isbn = ?";
-
-            PreparedStatement stmt = conn.prepareStatement(sql);
+        Book cached = CACHE.get(isbn);
+        if (cached != null) return cached;
+
+        String sql = BOOK_SELECT + " WHERE bk.isbn = ?";
+
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, isbn);
             ResultSet rs = stmt.executeQuery();
 
             if (rs.next()) {
-                Book book = new Book(
-                    rs.getString("book_title"),
-                    rs.getString("author"),
-                    rs.getString("genre"),
-                    rs.getString("isbn"),
-                    rs.getInt("pageNumber")
-                );
-                book.setIdDoc(rs.getInt("id_doc"));  // store the document ID for foreign key
+                Book book = RowMappers.BOOK.map(rs);
+                CACHE.put(isbn, book);
                 return book;
             }
 
@@ -102,9 +100,10 @@ public class BookDAOImpl implements BookDAO {
         String sqlUpdateDocument = "UPDATE Document SET title = ?, author = ?, genre = ? WHERE id_doc = ?";
         String sqlUpdateBook = "UPDATE Book SET title = ?, isbn = ?, pageNumber = ? WHERE id_doc = ?";
 
-        try {
+        try (Connection conn = DatabaseManager.getWriteConnection();
+             PreparedStatement stmtDoc = conn.prepareStatement(sqlUpdateDocument);
+             PreparedStatement stmtBook = conn.prepareStatement(sqlUpdateBook)) {
             // 1️⃣ Update Document table
-            PreparedStatement stmtDoc = conn.prepareStatement(sqlUpdateDocument);
             stmtDoc.setString(1, newTitle != null ? newTitle : book.getTitle());
             stmtDoc.setString(2, newAuthor != null ? newAuthor : book.getAuthor());
             stmtDoc.setString(3, newGenre != null ? newGenre : book.getGenre());
@@ -115,7 +114,6 @@ public class BookDAOImpl implements BookDAO {
             }
 
             // 2️⃣ Update Book table
-            PreparedStatement stmtBook = conn.prepareStatement(sqlUpdateBook);
             stmtBook.setString(1, newTitle != null ? newTitle : book.getTitle());
             stmtBook.setString(2, newIsbn != null ? newIsbn : book.getIsbn());
             stmtBook.setInt(3, newPageNumber != null ? newPageNumber : book.getPageNumber());
@@ -137,6 +135,8 @@ public class BookDAOImpl implements BookDAO {
         } catch (SQLException e) {
             e.printStackTrace();
             throw new DocumentNotFoundException("Failed to update book: " + e.getMessage());
+        } finally {
+            DocumentDAOImpl.invalidate(book.getIdDoc());
         }
     }
 
@@ -145,9 +145,10 @@ public class BookDAOImpl implements BookDAO {
         String sqlDeleteBook = "DELETE FROM Book WHERE id_doc = ?";
         String sqlDeleteDocument = "DELETE FROM Document WHERE id_doc = ?";
 
-        try {
+        try (Connection conn = DatabaseManager.getWriteConnection();
+             PreparedStatement stmtBook = conn.prepareStatement(sqlDeleteBook);
+             PreparedStatement stmtDoc = conn.prepareStatement(sqlDeleteDocument)) {
             // 1️⃣ Delete from Book table first
-            PreparedStatement stmtBook = conn.prepareStatement(sqlDeleteBook);
             stmtBook.setInt(1, book.getIdDoc());
             int rowsDeletedBook = stmtBook.executeUpdate();
             if (rowsDeletedBook == 0) {
@@ -155,7 +156,6 @@ public class BookDAOImpl implements BookDAO {
             }
 
             // 2️⃣ Delete from Document table
-            PreparedStatement stmtDoc = conn.prepareStatement(sqlDeleteDocument);
             stmtDoc.setInt(1, book.getIdDoc());
             int rowsDeletedDoc = stmtDoc.executeUpdate();
             if (rowsDeletedDoc == 0) {
@@ -167,38 +167,37 @@ public class BookDAOImpl implements BookDAO {
         } catch (SQLException e) {
             e.printStackTrace();
             throw new DocumentNotFoundException("Failed to delete book: " + e.getMessage());
+        } finally {
+            DocumentDAOImpl.invalidate(book.getIdDoc());
         }
     }
 
+    @Override
+    public Page<Book> getBooksPage(DocumentSort sort, Page.Key after, int pageSize) {
+        return DocumentDAOImpl.loadPage(DocumentDAOImpl.BOOK_FILTER, Book.class, sort, after, pageSize);
+    }
+
     @Override
     public List<Book> getAllBooks() {
         List<Book> books = new ArrayList<>();
-        String sql = "SELECT b.title AS book_title, b.isbn, b.pageNumber, " +
-                    "d.id_doc, d.author, d.genre " +
-                    "FROM Book b " +
-                    "JOIN Document d ON b.id_doc = d.id_doc";
+        forEachBook(books::add);
+        return books;
+    }
 
-        try {
-            PreparedStatement stmt = conn.prepareStatement(sql);
+    @Override
+    public void forEachBook(Consumer<? super Book> action) {
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(BOOK_SELECT)) {
+            stmt.setFetchSize(DatabaseManager.getFetchSize());
             ResultSet rs = stmt.executeQuery();
 
             while (rs.next()) {
-                Book book = new Book(
-                    rs.getString("book_title"),
-                    rs.getString("author"),
-                    rs.getString("genre"),
-                    rs.getString("isbn"),
-                    rs.getInt("pageNumber")
-                );
-                book.setIdDoc(rs.getInt("id_doc")); // store the document ID for reference
-                books.add(book);
+                action.accept(RowMappers.BOOK.map(rs));
             }
 
         } catch (SQLException e) {
             e.printStackTrace();
             throw new RuntimeException("Failed to retrieve books: " + e.getMessage(), e);
         }
-
-        return books;
     }
 }
@@ -1,6 +1,10 @@
 package com.libman.dao;
 
+import java.time.LocalDate;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import com.libman.model.Borrow;
 import com.libman.exception.BorrowException;
 import java.sql.SQLException;
@@ -11,7 +15,10 @@ public interface BorrowDAO {
     List<Borrow> getCurrentBorrows();
     List<Borrow> getLateBorrows();
     List<Borrow> getAllBorrows();  // ADD THIS LINE
+    void forEachBorrow(Consumer<? super Borrow> action);  // streams rows, nothing kept in memory
     boolean isDocumentBorrowed(int idDoc);
+    BitSet getBorrowedDocumentIds();  // bit i set when document i has an open borrow
     List<Borrow> getLateBorrowsForMember(int memberId, MemberDAO memberDAO, DocumentDAO documentDAO) throws Exception;
     int countActiveBorrowsForMember(int memberId) throws Exception;
+    Map<Integer, MemberLoanStats> getMemberLoanStats(LocalDate today, double penaltyPerDay);  // one grouped query, by idMember
 }
\ No newline at end of file
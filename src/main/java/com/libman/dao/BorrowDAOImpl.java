@@ -2,10 +2,12 @@ package com.libman.dao;
 
 import java.sql.*;
 import java.time.LocalDate;
-import java.time.Instant;
-import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import com.libman.model.Borrow;
 import com.libman.model.Document;
 import com.libman.model.Member;
@@ -13,13 +15,22 @@ import com.libman.exception.BorrowException;
 
 public class BorrowDAOImpl implements BorrowDAO {
 
-    private Connection conn;
-    private DocumentDAO documentDAO;
+    // Borrow with its member and document (Book/Magazine row included) in one row, see mapResultSetToBorrow
+    private static final String HYDRATED_SELECT =
+            "SELECT " + RowMappers.BORROW_COLUMNS + ", " + RowMappers.MEMBER_COLUMNS + ", "
+            + RowMappers.DOCUMENT_COLUMNS + " "
+            + "FROM Borrow b "
+            + "LEFT JOIN Document d ON d.id_doc = b.id_doc "
+            + DocumentDAOImpl.DOCUMENT_JOINS + " "
+            + "LEFT JOIN Member m ON m.idMember = b.idMember";
+
+    // Positions of the member and document blocks in HYDRATED_SELECT
+    private static final int MEMBER_FIRST = RowMappers.BORROW_WIDTH + 1;
+    private static final int DOCUMENT_FIRST = MEMBER_FIRST + RowMappers.MEMBER_WIDTH;
+
     private MemberDAO memberDAO;
 
     public BorrowDAOImpl() {
-        this.conn = DatabaseManager.getConnection();
-        this.documentDAO = new DocumentDAOImpl();
         this.memberDAO = new MemberDAOImpl();
     }
 
@@ -29,6 +40,12 @@ public class BorrowDAOImpl implements BorrowDAO {
             throw new IllegalArgumentException("Borrow, Document, and Member must not be null");
         }
 
+        try (Connection conn = DatabaseManager.getWriteConnection()) {
+            return insertBorrow(conn, borrow);
+        }
+    }
+
+    private boolean insertBorrow(Connection conn, Borrow borrow) throws SQLException {
         // Check if Document exists
         String checkDocSql = "SELECT 1 FROM Document WHERE id_doc = ?";
         try (PreparedStatement stmt = conn.prepareStatement(checkDocSql)) {
@@ -49,106 +66,80 @@ public class BorrowDAOImpl implements BorrowDAO {
             }
         }
 
-        // Generate new Borrow ID (BR001, BR002, ...)
-        String newId = "BR001";
-        String getMaxIdSql = "SELECT id FROM Borrow ORDER BY id DESC LIMIT 1";
-        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(getMaxIdSql)) {
-            if (rs.next()) {
-                String lastId = rs.getString("id");
-                int number = Integer.parseInt(lastId.substring(2)) + 1;
-                newId = String.format("BR%03d", number);
-            }
-        }
-
-        // Insert borrow into DB
-        String insertSql = "INSERT INTO Borrow (id, id_doc, idMember, borrowDate, expectedReturnDate, returnDate) VALUES (?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement stmt = conn.prepareStatement(insertSql)) {
-            stmt.setString(1, newId);
-            stmt.setInt(2, borrow.getDocument().getIdDoc());
-            stmt.setInt(3, borrow.getMember().getIdMember());
+        // Insert borrow into DB; SQLite assigns the INTEGER PRIMARY KEY id in the same statement (schema V10)
+        String insertSql = "INSERT INTO Borrow (id_doc, idMember, borrowDate, expectedReturnDate, returnDate) VALUES (?, ?, ?, ?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(insertSql, Statement.RETURN_GENERATED_KEYS)) {
+            stmt.setInt(1, borrow.getDocument().getIdDoc());
+            stmt.setInt(2, borrow.getMember().getIdMember());
 
             if (borrow.getBorrowDate() != null)
-                stmt.setString(4, borrow.getBorrowDateString());
+                stmt.setString(3, borrow.getBorrowDateString());
             else
-                stmt.setNull(4, java.sql.Types.DATE);
+                stmt.setNull(3, java.sql.Types.DATE);
 
             if (borrow.getExpectedReturnDate() != null)
-                stmt.setString(5, borrow.getExpectedReturnDateString());
+                stmt.setString(4, borrow.getExpectedReturnDateString());
             else
-                stmt.setNull(5, java.sql.Types.DATE);
+                stmt.setNull(4, java.sql.Types.DATE);
 
             if (borrow.getReturnDate() != null)
-                stmt.setString(6, borrow.getReturnDateString());
+                stmt.setString(5, borrow.getReturnDateString());
             else
-                stmt.setNull(6, java.sql.Types.DATE);
+                stmt.setNull(5, java.sql.Types.DATE);
 
             int rowsAffected = stmt.executeUpdate();
             
             if (rowsAffected > 0) {
-                borrow.setId(newId);
+                try (ResultSet keys = stmt.getGeneratedKeys()) {
+                    if (keys.next()) borrow.setId(keys.getInt(1));
+                }
                 return true;
             }
             return false;
             
         } catch (SQLException e) {
             throw new SQLException("Error adding borrow to database: " + e.getMessage(), e);
+        } finally {
+            // The document's availability and the member's loans change with this row
+            DocumentDAOImpl.invalidate(borrow.getDocument().getIdDoc());
+            MemberDAOImpl.invalidate(borrow.getMember().getIdMember());
         }
     }
 
     @Override
     public void removeBorrow(Borrow borrow) throws BorrowException {
         if (borrow == null) throw new BorrowException("Borrow is null");
-        if (borrow.getId() == null || borrow.getId().isEmpty()) {
-            throw new BorrowException("Borrow ID is null or empty");
+        if (borrow.getId() <= 0) {
+            throw new BorrowException("Borrow has no ID");
         }
 
-        try {
-            // Set return date to mark as returned
-            String updateSql = "UPDATE Borrow SET returnDate = ? WHERE id = ?";
-            try (PreparedStatement stmt = conn.prepareStatement(updateSql)) {
-                stmt.setString(1, LocalDate.now().toString());
-                stmt.setString(2, borrow.getId());
-                int rows = stmt.executeUpdate();
+        // Only the return date: the activeLoans triggers make the document available again,
+        // and the caller updates the member in the same unit of work
+        String updateSql = "UPDATE Borrow SET returnDate = ? WHERE id = ?";
+        try (Connection conn = DatabaseManager.getWriteConnection();
+             PreparedStatement stmt = conn.prepareStatement(updateSql)) {
+            stmt.setString(1, LocalDate.now().toString());
+            stmt.setInt(2, borrow.getId());
+            int rows = stmt.executeUpdate();
 
-                if (rows == 0) throw new BorrowException("Borrow not found with ID: " + borrow.getId());
-            }
-            
-            // Update document availability to true (don't use 'available' column)
-            if (borrow.getDocument() != null && borrow.getDocument().getIdDoc() > 0) {
-                Document doc = documentDAO.getDocumentById(borrow.getDocument().getIdDoc());
-                if (doc != null) {
-                    doc.setAvailability(true);
-                    // Just update in memory, availability is calculated from Borrow table
-                }
-            }
-            
-            // Update member's borrow count
-            if (borrow.getMember() != null && borrow.getMember().getIdMember() > 0) {
-                Member member = memberDAO.searchMemberById(borrow.getMember().getIdMember());
-                if (member != null) {
-                    member.setNbBorrows(Math.max(0, member.getNbBorrows() - 1));
-                    memberDAO.updateMember(member, member.getName(), member.getSurname(), member.getPenaltyStatus());
-                }
-            }
-            
+            if (rows == 0) throw new BorrowException("Borrow not found with ID: " + borrow.getDisplayId());
         } catch (SQLException e) {
             e.printStackTrace();
             throw new BorrowException("Failed to return document: " + e.getMessage());
-        } catch (Exception e) {
-            e.printStackTrace();
-            throw new BorrowException("Failed to update member/document: " + e.getMessage());
+        } finally {
+            if (borrow.getDocument() != null) DocumentDAOImpl.invalidate(borrow.getDocument().getIdDoc());
         }
     }
 
     /**
      * Permanently delete a borrow record from the database
      */
-    public void deleteBorrow(String borrowId) throws BorrowException {
-        if (borrowId == null || borrowId.isEmpty()) {
-            throw new BorrowException("Borrow ID is null or empty");
+    public void deleteBorrow(int borrowId) throws BorrowException {
+        if (borrowId <= 0) {
+            throw new BorrowException("Invalid borrow ID: " + borrowId);
         }
 
-        try {
+        try (Connection conn = DatabaseManager.getWriteConnection()) {
             // First, get the borrow to update document and member
             String selectSql = "SELECT id_doc, idMember, returnDate FROM Borrow WHERE id = ?";
             int docId = 0;
@@ -156,13 +147,13 @@ public class BorrowDAOImpl implements BorrowDAO {
             boolean wasReturned = false;
             
             try (PreparedStatement stmt = conn.prepareStatement(selectSql)) {
-                stmt.setString(1, borrowId);
+                stmt.setInt(1, borrowId);
                 ResultSet rs = stmt.executeQuery();
                 
                 if (rs.next()) {
-                    docId = rs.getInt("id_doc");
-                    memberId = rs.getInt("idMember");
-                    wasReturned = rs.getDate("returnDate") != null;
+                    docId = rs.getInt(1);
+                    memberId = rs.getInt(2);
+                    wasReturned = rs.getString(3) != null;
                 } else {
                     throw new BorrowException("Borrow not found with ID: " + borrowId);
                 }
@@ -180,13 +171,14 @@ public class BorrowDAOImpl implements BorrowDAO {
             // Now delete the borrow record
             String deleteSql = "DELETE FROM Borrow WHERE id = ?";
             try (PreparedStatement stmt = conn.prepareStatement(deleteSql)) {
-                stmt.setString(1, borrowId);
+                stmt.setInt(1, borrowId);
                 int rows = stmt.executeUpdate();
                 
                 if (rows == 0) {
                     throw new BorrowException("Failed to delete borrow with ID: " + borrowId);
                 }
             }
+            DocumentDAOImpl.invalidate(docId);
             
         } catch (SQLException e) {
             e.printStackTrace();
@@ -201,31 +193,38 @@ public class BorrowDAOImpl implements BorrowDAO {
      * Delete a borrow using the Borrow object
      */
     public void deleteBorrow(Borrow borrow) throws BorrowException {
-        if (borrow == null || borrow.getId() == null) {
-            throw new BorrowException("Borrow or Borrow ID is null");
+        if (borrow == null || borrow.getId() <= 0) {
+            throw new BorrowException("Borrow is null or has no ID");
         }
         deleteBorrow(borrow.getId());
     }
 
     @Override
     public List<Borrow> getCurrentBorrows() {
-        return getBorrows("SELECT * FROM Borrow WHERE returnDate IS NULL", null);
+        return getBorrows(HYDRATED_SELECT + " WHERE b.returnDate IS NULL");
     }
 
     @Override
     public List<Borrow> getLateBorrows() {
-        return getBorrows("SELECT * FROM Borrow WHERE returnDate IS NULL AND expectedReturnDate < date('now')", null);
+        return getBorrows(HYDRATED_SELECT + " WHERE b.returnDate IS NULL AND b.expectedReturnDate < date('now')");
     }
 
     @Override
     public List<Borrow> getAllBorrows() {
-        return getBorrows("SELECT * FROM Borrow", null);
+        return getBorrows(HYDRATED_SELECT);
+    }
+
+    @Override
+    public void forEachBorrow(Consumer<? super Borrow> action) {
+        visitBorrows(HYDRATED_SELECT + " ORDER BY b.borrowDate, b.id", action);
     }
 
     @Override
     public boolean isDocumentBorrowed(int idDoc) {
-        String sql = "SELECT COUNT(*) FROM Borrow WHERE id_doc = ? AND returnDate IS NULL";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        // Counter kept up to date by the Borrow triggers (schema V4)
+        String sql = "SELECT activeLoans FROM Document WHERE id_doc = ?";
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, idDoc);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
@@ -237,19 +236,70 @@ public class BorrowDAOImpl implements BorrowDAO {
         return false;
     }
 
+    @Override
+    public BitSet getBorrowedDocumentIds() {
+        // Answered from the partial index on open loans, without touching the Borrow rows
+        String sql = "SELECT DISTINCT id_doc FROM Borrow WHERE returnDate IS NULL";
+        BitSet borrowed = new BitSet();
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                int idDoc = rs.getInt(1);
+                if (idDoc > 0) borrowed.set(idDoc);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to load borrowed document ids", e);
+        }
+        return borrowed;
+    }
+
+    /**
+     * Open-loan count and overdue penalty of every member with an open loan, in
+     * one grouped query; members without one are absent. A loan is overdue by
+     * the whole days between its expected return date and today.
+     */
+    @Override
+    public Map<Integer, MemberLoanStats> getMemberLoanStats(LocalDate today, double penaltyPerDay) {
+        String sql = "SELECT idMember, COUNT(*), "
+                + "SUM(CASE WHEN expectedReturnDate < ?1 "
+                + "THEN CAST(julianday(?1) - julianday(expectedReturnDate) AS INTEGER) ELSE 0 END) "
+                + "FROM Borrow WHERE returnDate IS NULL GROUP BY idMember";
+        Map<Integer, MemberLoanStats> stats = new HashMap<>();
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, today.toString());
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                stats.put(rs.getInt(1), new MemberLoanStats(rs.getInt(2), rs.getLong(3) * penaltyPerDay));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to load member loan statistics", e);
+        }
+        return stats;
+    }
+
     // ------------------ Helper Methods ------------------
 
-    private List<Borrow> getBorrows(String sql, java.sql.Date dateParam) {
+    /**
+     * Runs a {@link #HYDRATED_SELECT} query and builds the borrows in one pass.
+     * Rows for the same document or member share one instance, which is the
+     * identity map's instance when a scope is open.
+     */
+    private List<Borrow> getBorrows(String sql, Object... params) {
         List<Borrow> borrows = new ArrayList<>();
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            if (dateParam != null) {
-                stmt.setDate(1, dateParam);
+        Map<Integer, Document> documents = IdentityMap.documents();
+        Map<Integer, Member> members = IdentityMap.members();
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
             }
             
             ResultSet rs = stmt.executeQuery();
             while (rs.next()) {
                 try {
-                    Borrow borrow = mapResultSetToBorrow(rs);
+                    Borrow borrow = mapResultSetToBorrow(rs, documents, members);
                     if (borrow != null) {
                         borrows.add(borrow);
                     }
@@ -265,40 +315,69 @@ public class BorrowDAOImpl implements BorrowDAO {
         return borrows;
     }
 
-    private Borrow mapResultSetToBorrow(ResultSet rs) throws SQLException {
+    /**
+     * Streams a {@link #HYDRATED_SELECT} query row by row into the action.
+     * Nothing is kept between rows (no instance sharing), so memory stays flat
+     * however many rows there are. The reader connection is held until the
+     * last row; failures are rethrown instead of returning a partial list.
+     */
+    static void visitBorrows(String sql, Consumer<? super Borrow> action, Object... params) {
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setFetchSize(DatabaseManager.getFetchSize());
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                Borrow borrow = mapResultSetToBorrow(rs, null, null);
+                if (borrow != null) {
+                    action.accept(borrow);
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to stream borrows: " + e.getMessage(), e);
+        }
+    }
+
+    /** Hydrated select for streaming callers elsewhere in the package, e.g. member history. */
+    static String hydratedSelect(String where) {
+        return HYDRATED_SELECT + " " + where;
+    }
+
+    // documents/members may be null: every row then gets its own instances
+    private static Borrow mapResultSetToBorrow(ResultSet rs, Map<Integer, Document> documents,
+                                               Map<Integer, Member> members) throws SQLException {
         try {
-            String id = rs.getString("id");
-            int docId = rs.getInt("id_doc");
-            int memberId = rs.getInt("idMember");
+            // Document and member come from the joined columns; reuse instances already built
+            int docId = rs.getInt(2);
+            Document doc = documents != null ? documents.get(docId) : null;
+            if (doc == null) {
+                doc = RowMappers.document(rs, DOCUMENT_FIRST);
+                if (doc != null && documents != null) documents.put(docId, doc);
+            }
 
-            // Fetch document and member using shared DAO instances
-            Document doc = documentDAO.getDocumentById(docId);
-            Member member = memberDAO.searchMemberById(memberId);
+            int memberId = rs.getInt(3);
+            Member member = members != null ? members.get(memberId) : null;
+            if (member == null) {
+                member = RowMappers.member(rs, MEMBER_FIRST);
+                if (member != null && members != null) members.put(memberId, member);
+            }
 
             // Verify we got valid objects
             if (doc == null) {
-                System.err.println("Document not found for id: " + docId);
+                System.err.println("Document not found for borrow: " + rs.getString(1));
                 return null;
             }
             if (member == null) {
-                System.err.println("Member not found for id: " + memberId);
+                System.err.println("Member not found for borrow: " + rs.getString(1));
                 return null;
             }
 
-            // Parse dates safely - handle both timestamps and date strings
-            LocalDate borrowDate = parseDate(rs, "borrowDate");
-            LocalDate expectedReturn = parseDate(rs, "expectedReturnDate");
-            LocalDate returnDate = parseDate(rs, "returnDate");
-
-            // CRITICAL: Use default constructor to avoid null pointer
-            Borrow borrow = new Borrow();
-            borrow.setId(id);
-            borrow.setDocument(doc);
-            borrow.setMember(member);
-            borrow.setBorrowDate(borrowDate != null ? borrowDate : LocalDate.now());
-            borrow.setExpectedReturnDate(expectedReturn != null ? expectedReturn : LocalDate.now().plusDays(14));
-            borrow.setReturnDate(returnDate);
-
+            Borrow borrow = RowMappers.borrow(rs, doc, member);
+            if (borrow.getBorrowDate() == null) borrow.setBorrowDate(LocalDate.now());
+            if (borrow.getExpectedReturnDate() == null) borrow.setExpectedReturnDate(LocalDate.now().plusDays(14));
             return borrow;
             
         } catch (Exception e) {
@@ -308,76 +387,20 @@ public class BorrowDAOImpl implements BorrowDAO {
         }
     }
 
-    private LocalDate parseDate(ResultSet rs, String columnName) throws SQLException {
-        try {
-            // First, try to get as SQL Date
-            Date sqlDate = rs.getDate(columnName);
-            if (sqlDate != null) {
-                return sqlDate.toLocalDate();
-            }
-        } catch (SQLException e) {
-            // If that fails, try other methods
-        }
-        
-        try {
-            // Try as string
-            String dateStr = rs.getString(columnName);
-            if (dateStr != null && !dateStr.isEmpty()) {
-                // Check if it's a timestamp (all digits)
-                if (dateStr.matches("\\d+")) {
-                    // Convert milliseconds timestamp to LocalDate
-                    long timestamp = Long.parseLong(dateStr);
-                    return Instant.ofEpochMilli(timestamp)
-                                  .atZone(ZoneId.systemDefault())
-                                  .toLocalDate();
-                } else {
-                    // Try parsing as ISO date string
-                    return LocalDate.parse(dateStr);
-                }
-            }
-        } catch (Exception ex) {
-            System.err.println("Failed to parse date from column '" + columnName + "': " + rs.getString(columnName));
-        }
-        
-        return null;
-    }
-
+    /**
+     * Overdue borrows of one member, hydrated with the same join as the other lists.
+     * The DAO parameters are no longer needed and are kept for interface compatibility.
+     */
     public List<Borrow> getLateBorrowsForMember(int memberId, MemberDAO memberDAO, DocumentDAO documentDAO) throws Exception {
-        List<Borrow> lateBorrows = new ArrayList<>();
-        String sql = "SELECT * FROM Borrow WHERE idMember = ? AND returnDate IS NULL AND expectedReturnDate < date('now')";
-
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, memberId);
-
-            ResultSet rs = stmt.executeQuery();
-            Member member = memberDAO.searchMemberById(memberId);
-
-            while (rs.next()) {
-                int docId = rs.getInt("id_doc");
-                Document doc = documentDAO.getDocumentById(docId);
-
-                LocalDate borrowDate = parseDate(rs, "borrowDate");
-                if (borrowDate == null) borrowDate = LocalDate.now();
-
-                Borrow borrow = new Borrow();
-                borrow.setDocument(doc);
-                borrow.setMember(member);
-                borrow.setBorrowDate(borrowDate);
-                borrow.setReturnDate(parseDate(rs, "returnDate"));
-                borrow.setExpectedReturnDate(parseDate(rs, "expectedReturnDate"));
-                borrow.setId(rs.getString("id"));
-                
-                lateBorrows.add(borrow);
-            }
-        }
-
-        return lateBorrows;
+        return getBorrows(HYDRATED_SELECT
+                + " WHERE b.idMember = ? AND b.returnDate IS NULL AND b.expectedReturnDate < date('now')", memberId);
     }
 
     @Override
     public int countActiveBorrowsForMember(int memberId) throws Exception {
         String sql = "SELECT COUNT(*) FROM Borrow WHERE idMember = ? AND returnDate IS NULL";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, memberId);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) return rs.getInt(1);
@@ -0,0 +1,12 @@
+package com.libman.dao;
+
+/**
+ * Catalog-wide figures for the Documents view, computed in one aggregate query
+ * so the view does not need every document to show them.
+ */
+public record CatalogStats(int total, int available, int genres) {
+
+    public int borrowed() {
+        return total - available;
+    }
+}
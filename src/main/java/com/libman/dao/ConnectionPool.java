@@ -0,0 +1,293 @@
+package com.libman.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded pool of JDBC connections.
+ *
+ * Connections are handed out as proxies: closing the proxy returns the physical
+ * connection to the pool instead of closing it. A thread that already holds a
+ * connection gets the same physical connection back on nested calls (for example
+ * when a DAO calls another DAO), so a caller never waits on itself.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    /** Opens a new physical connection. */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    private final String name;
+    private final ConnectionFactory factory;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long leakThresholdMillis;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+
+    private final Semaphore permits;
+    private final BlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Map<Thread, PooledConnection> bound = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService leakDetector;
+    private volatile boolean closed;
+
+    public ConnectionPool(String name, ConnectionFactory factory, int minSize, int maxSize,
+                          long borrowTimeoutMillis, long leakThresholdMillis,
+                          int statementCacheSize) throws SQLException {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.name = name;
+        this.factory = factory;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.validationTimeoutSeconds = 2;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        for (int i = 0; i < minSize; i++) {
+            idle.add(new PooledConnection(factory.create()));
+        }
+
+        if (leakThresholdMillis > 0) {
+            leakDetector = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, name + "-leak-detector");
+                t.setDaemon(true);
+                return t;
+            });
+            long period = Math.max(1000, leakThresholdMillis / 2);
+            leakDetector.scheduleAtFixedRate(this::detectLeaks, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            leakDetector = null;
+        }
+    }
+
+    /**
+     * Borrows a connection, waiting at most the configured borrow timeout.
+     * The returned connection must be closed to give it back to the pool.
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) throw new SQLException("Connection pool '" + name + "' is closed");
+
+        Thread current = Thread.currentThread();
+        PooledConnection held = bound.get(current);
+        if (held != null) {
+            held.holdCount++;
+            return held.newHandle();
+        }
+
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection from pool '" + name + "'", e);
+        }
+        if (!acquired) {
+            throw new SQLTimeoutException("Timed out after " + borrowTimeoutMillis
+                    + " ms waiting for a connection from pool '" + name + "' (max " + maxSize + ")");
+        }
+
+        try {
+            PooledConnection pooled = takeValidConnection();
+            pooled.owner = current;
+            pooled.holdCount = 1;
+            pooled.checkoutTime = System.currentTimeMillis();
+            pooled.checkoutTrace = leakDetector != null ? new Throwable("Connection checked out here") : null;
+            pooled.leakReported = false;
+            bound.put(current, pooled);
+            return pooled.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /** Returns true if the calling thread currently holds a connection from this pool. */
+    public boolean isHeldByCurrentThread() {
+        return bound.containsKey(Thread.currentThread());
+    }
+
+    public int getActiveCount() {
+        return bound.size();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (leakDetector != null) leakDetector.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.poll()) != null) {
+            pooled.discard();
+        }
+    }
+
+    // ------------------ Helper Methods ------------------
+
+    private PooledConnection takeValidConnection() throws SQLException {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (isValid(pooled.physical)) {
+                return pooled;
+            }
+            System.err.println("Pool '" + name + "': discarding invalid connection");
+            pooled.discard();
+        }
+        return new PooledConnection(factory.create());
+    }
+
+    private boolean isValid(Connection physical) {
+        try {
+            return !physical.isClosed() && physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void release(PooledConnection pooled) {
+        if (--pooled.holdCount > 0) return;
+
+        bound.remove(pooled.owner, pooled);
+        pooled.owner = null;
+        pooled.checkoutTrace = null;
+
+        boolean reusable = !closed;
+        try {
+            if (!pooled.physical.getAutoCommit()) {
+                // Never hand out a connection with a half-finished transaction
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            reusable = false;
+        }
+
+        if (reusable) {
+            idle.addFirst(pooled);
+        } else {
+            pooled.discard();
+        }
+        permits.release();
+    }
+
+    private void detectLeaks() {
+        long now = System.currentTimeMillis();
+        for (PooledConnection pooled : bound.values()) {
+            if (!pooled.leakReported && now - pooled.checkoutTime > leakThresholdMillis) {
+                pooled.leakReported = true;
+                Throwable trace = pooled.checkoutTrace;
+                System.err.println("Pool '" + name + "': connection held by thread '"
+                        + (pooled.owner != null ? pooled.owner.getName() : "?") + "' for "
+                        + (now - pooled.checkoutTime) + " ms, possible leak");
+                if (trace != null) trace.printStackTrace();
+            }
+        }
+    }
+
+    /** One physical connection, its statement cache and its checkout bookkeeping. */
+    private final class PooledConnection {
+        final Connection physical;
+        final StatementCache statements;
+        volatile Thread owner;
+        int holdCount;
+        volatile long checkoutTime;
+        volatile Throwable checkoutTrace;
+        volatile boolean leakReported;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statements = new StatementCache(physical, statementCacheSize);
+        }
+
+        void discard() {
+            statements.closeAll();
+            try {
+                physical.close();
+            } catch (SQLException ignored) {
+            }
+        }
+
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class },
+                    new Handle(this));
+        }
+    }
+
+    /** Logical connection given to callers; closing it releases one hold on the physical connection. */
+    private final class Handle implements InvocationHandler {
+        private final PooledConnection pooled;
+        private boolean handleClosed;
+
+        Handle(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!handleClosed) {
+                        handleClosed = true;
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return handleClosed;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + name + "]" + pooled.physical;
+                default:
+                    break;
+            }
+            if (handleClosed) {
+                throw new SQLException("Connection handle already returned to pool '" + name + "'");
+            }
+            if (method.getName().equals("prepareStatement")) {
+                Class<?>[] types = method.getParameterTypes();
+                if (types.length == 1) {
+                    return pooled.statements.prepare((String) args[0], Statement.NO_GENERATED_KEYS);
+                }
+                if (types.length == 2 && types[1] == int.class) {
+                    return pooled.statements.prepare((String) args[0], (Integer) args[1]);
+                }
+            }
+            try {
+                return method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
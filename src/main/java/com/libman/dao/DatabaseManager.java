@@ -1,98 +1,212 @@
 package com.libman.dao;
 
+import org.sqlite.SQLiteConfig;
+
 import java.sql.*;
+import java.util.Map;
 
+/**
+ * Owns the SQLite connections.
+ *
+ * The database runs in WAL mode with one writer connection and a pool of
+ * read-only reader connections, so list and search queries keep running while
+ * a borrow or return is being written. DAO read methods use
+ * {@link #getReadConnection()}, mutations use {@link #getWriteConnection()}.
+ */
 public class DatabaseManager {
 
-    private static final String URL = "jdbc:sqlite:Library.db";
-    private static Connection connection;
+    private static final String URL = System.getProperty("libman.db.url", "jdbc:sqlite:Library.db");
 
-    public static Connection getConnection() {
-        if (connection == null) {
-            try {
-                connection = DriverManager.getConnection(URL);
-                connection.createStatement().execute("PRAGMA foreign_keys = ON");
-                System.out.println("SQLite connection established!");
+    // Pool sizing, overridable with -Dlibman.db.pool.* system properties (maxSize sizes the reader pool)
+    private static final int POOL_MIN_SIZE = Integer.getInteger("libman.db.pool.minSize", 1);
+    private static final int POOL_MAX_SIZE = Integer.getInteger("libman.db.pool.maxSize", 8);
+    private static final long BORROW_TIMEOUT_MS = Long.getLong("libman.db.pool.borrowTimeoutMs", 5000L);
+    private static final long LEAK_THRESHOLD_MS = Long.getLong("libman.db.pool.leakThresholdMs", 30000L);
+    private static final int STATEMENT_CACHE_SIZE = Integer.getInteger("libman.db.statementCacheSize", 64);
+    private static final int BUSY_TIMEOUT_MS = Integer.getInteger("libman.db.busyTimeoutMs", 5000);
+
+    // Rows fetched per step by the forEach... streaming visitors
+    private static final int FETCH_SIZE = Integer.getInteger("libman.db.fetchSize", 256);
+
+    // Group-commit write queue, see WriteQueue
+    private static final int WRITE_QUEUE_CAPACITY = Integer.getInteger("libman.db.writeQueue.capacity", 1024);
+    private static final int WRITE_QUEUE_MAX_BATCH = Integer.getInteger("libman.db.writeQueue.maxBatch", 64);
+
+    // Demo rows are only inserted when asked for with -Dlibman.db.seedDemoData=true
+    private static final boolean SEED_DEMO_DATA = Boolean.getBoolean("libman.db.seedDemoData");
+    private static final String DEMO_DATA_MARKER = "demoDataSeeded";
+
+    private static volatile ConnectionPool writerPool;
+    private static volatile ConnectionPool readerPool;
+    private static volatile WriteQueue writeQueue;
+    private static volatile StartupTimings startupTimings;
 
-                initializeSchema();  // Creates tables if not exist
-                populateInitialData(); // Populates Document, Member, Book, Magazine, Borrow tables
+    /**
+     * Borrows a read-only connection. A thread that already holds the writer gets
+     * the writer back instead, so it reads its own uncommitted changes.
+     * Callers must close it (try-with-resources) to hand it back.
+     */
+    public static Connection getReadConnection() throws SQLException {
+        ConnectionPool writer = getPool();
+        if (writer.isHeldByCurrentThread()) {
+            return writer.getConnection();
+        }
+        return readerPool.getConnection();
+    }
+
+    /**
+     * Borrows the single writer connection, waiting while another thread holds it.
+     * Callers must close it (try-with-resources) to hand it back; nested calls on
+     * the same thread share the connection.
+     */
+    public static Connection getWriteConnection() throws SQLException {
+        return getPool().getConnection();
+    }
+
+    /** Same as {@link #getWriteConnection()}. */
+    public static Connection getConnection() throws SQLException {
+        return getWriteConnection();
+    }
 
-            } catch (SQLException e) {
-                System.err.println("SQLite connection error: " + e.getMessage());
+    /** Writer pool (one connection). Opening it also opens the reader pool and runs startup work. */
+    public static ConnectionPool getPool() throws SQLException {
+        ConnectionPool p = writerPool;
+        if (p == null) {
+            synchronized (DatabaseManager.class) {
+                p = writerPool;
+                if (p == null) {
+                    long start = System.nanoTime();
+                    p = new ConnectionPool("libman-writer", DatabaseManager::openWriteConnection,
+                            1, 1, BORROW_TIMEOUT_MS, LEAK_THRESHOLD_MS, STATEMENT_CACHE_SIZE);
+                    long poolReady = System.nanoTime();
+
+                    boolean migrated;
+                    boolean seeded;
+                    long schemaReady;
+                    try (Connection conn = p.getConnection()) {
+                        migrated = initializeSchema(conn);  // Applies pending schema migrations
+                        schemaReady = System.nanoTime();
+                        seeded = populateInitialData(conn); // Opt-in demo rows
+                    } catch (SQLException | RuntimeException e) {
+                        // Not published, so the next call retries from scratch
+                        p.close();
+                        throw e;
+                    }
+                    long seedReady = System.nanoTime();
+
+                    // Readers are opened after the writer has switched the file to WAL
+                    readerPool = new ConnectionPool("libman-reader", DatabaseManager::openReadConnection,
+                            POOL_MIN_SIZE, POOL_MAX_SIZE, BORROW_TIMEOUT_MS, LEAK_THRESHOLD_MS,
+                            STATEMENT_CACHE_SIZE);
+                    long end = System.nanoTime();
+                    startupTimings = new StartupTimings(millis(start, poolReady) + millis(seedReady, end),
+                            millis(poolReady, schemaReady), migrated, millis(schemaReady, seedReady), seeded,
+                            millis(start, end));
+                    writerPool = p;
+                }
             }
         }
-        return connection;
+        return p;
     }
 
-    private static void initializeSchema() {
-        try (Statement stmt = connection.createStatement()) {
+    /** Reader pool, opened together with the writer pool. */
+    public static ConnectionPool getReaderPool() throws SQLException {
+        getPool();
+        return readerPool;
+    }
 
-            stmt.execute("""
-                CREATE TABLE IF NOT EXISTS Document(
-                    id_doc INTEGER PRIMARY KEY,
-                    title TEXT,
-                    author TEXT,
-                    genre TEXT
-                );
-            """);
+    /** Shared write queue; all queued writes go through one writer thread and commit in batches. */
+    public static WriteQueue getWriteQueue() {
+        WriteQueue q = writeQueue;
+        if (q == null) {
+            synchronized (DatabaseManager.class) {
+                q = writeQueue;
+                if (q == null) {
+                    q = new WriteQueue("libman", WRITE_QUEUE_CAPACITY, WRITE_QUEUE_MAX_BATCH, BORROW_TIMEOUT_MS);
+                    writeQueue = q;
+                }
+            }
+        }
+        return q;
+    }
 
-            stmt.execute("""
-                CREATE TABLE IF NOT EXISTS Member(
-                    idMember INTEGER PRIMARY KEY,
-                    name TEXT,
-                    surname TEXT,
-                    PenaltyStatus INTEGER CHECK(PenaltyStatus IN (0,1,2,3))
-                );
-            """);
+    /** How long each startup phase took, or null while the database has not been opened yet. */
+    public static StartupTimings getStartupTimings() {
+        return startupTimings;
+    }
 
-            stmt.execute("""
-                CREATE TABLE IF NOT EXISTS Borrow (
-                    id TEXT PRIMARY KEY,
-                    id_doc INTEGER,
-                    idMember INTEGER,
-                    borrowDate TEXT,
-                    expectedReturnDate TEXT,
-                    returnDate TEXT,
-                    FOREIGN KEY(id_doc) REFERENCES Document(id_doc),
-                    FOREIGN KEY(idMember) REFERENCES Member(idMember)
-                );
-            """);
+    /** Fetch size used by the streaming (forEach...) DAO methods; -Dlibman.db.fetchSize overrides it. */
+    public static int getFetchSize() {
+        return FETCH_SIZE;
+    }
 
-            stmt.execute("""
-                CREATE TABLE IF NOT EXISTS Book(
-                    title TEXT,
-                    isbn TEXT PRIMARY KEY,
-                    pageNumber INTEGER,
-                    author TEXT,
-                    genre TEXT,
-                    id_doc INTEGER,
-                    FOREIGN KEY (id_doc) REFERENCES Document(id_doc)
-                );
-            """);
+    /** Prepared statement cache counters summed over all pooled connections. */
+    public static CacheStats getStatementCacheStats() {
+        return StatementCache.getGlobalStats();
+    }
 
-            stmt.execute("""
-                CREATE TABLE IF NOT EXISTS Magazine(
-                    title TEXT,
-                    id TEXT PRIMARY KEY,
-                    number INTEGER,
-                    periodicity TEXT CHECK(periodicity IN 
-                        ('DAILY','WEEKLY','BIWEEKLY','MONTHLY','BIMONTHLY','QUARTERLY','YEARLY')),
-                    author TEXT,
-                    genre TEXT,
-                    id_doc INTEGER,
-                    FOREIGN KEY (id_doc) REFERENCES Document(id_doc)
-                );
-            """);
+    /** Hit/miss/eviction counters of each shared entity cache, by cache name. */
+    public static Map<String, CacheStats> getEntityCacheStats() {
+        return EntityCache.allStats();
+    }
 
-            System.out.println("Database schema ready.");
+    private static Connection openWriteConnection() throws SQLException {
+        SQLiteConfig config = baseConfig();
+        config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+        config.setSynchronous(SQLiteConfig.SynchronousMode.NORMAL);
+        // Take the write lock at BEGIN so a transaction never fails halfway on lock upgrade
+        config.setTransactionMode(SQLiteConfig.TransactionMode.IMMEDIATE);
+        return DriverManager.getConnection(URL, config.toProperties());
+    }
 
-        } catch (SQLException e) {
-            System.err.println("Schema creation error: " + e.getMessage());
+    private static Connection openReadConnection() throws SQLException {
+        SQLiteConfig config = baseConfig();
+        config.setReadOnly(true);
+        return DriverManager.getConnection(URL, config.toProperties());
+    }
+
+    private static SQLiteConfig baseConfig() {
+        SQLiteConfig config = new SQLiteConfig();
+        config.enforceForeignKeys(true);
+        config.setBusyTimeout(BUSY_TIMEOUT_MS);
+        return config;
+    }
+
+    private static long millis(long fromNanos, long toNanos) {
+        return (toNanos - fromNanos) / 1_000_000;
+    }
+
+    /**
+     * Brings the schema to the latest version. Returns false without touching
+     * the schema when the stored version is already current. A failed migration
+     * is thrown, so the database is never used with a half-migrated schema.
+     */
+    private static boolean initializeSchema(Connection connection) throws SQLException {
+        if (SchemaMigrator.isUpToDate(connection)) {
+            return false;
         }
+        int applied = SchemaMigrator.migrate(connection);
+        System.out.println("Database schema ready (version " + SchemaMigrator.currentVersion(connection)
+                + ", " + applied + " migration(s) applied).");
+        return true;
     }
 
-    private static void populateInitialData() {
+    /**
+     * Inserts the demo catalog, members and borrows once, in one transaction.
+     * Does nothing unless demo seeding is enabled and the database has not been seeded before.
+     */
+    private static boolean populateInitialData(Connection connection) {
+        if (!SEED_DEMO_DATA) return false;
+
+        try {
+            if (AppMetadata.get(connection, DEMO_DATA_MARKER) != null) return false;
+        } catch (SQLException e) {
+            System.err.println("Data population error: " + e.getMessage());
+            return false;
+        }
+
         try (Statement stmt = connection.createStatement()) {
+            connection.setAutoCommit(false);
 
             // --- Document ---
             stmt.executeUpdate("""
@@ -141,17 +255,30 @@ public class DatabaseManager {
             // --- Borrow ---
             stmt.executeUpdate("""
                 INSERT OR IGNORE INTO Borrow (id, id_doc, idMember, borrowDate, expectedReturnDate, returnDate) VALUES
-                ('BR001', 2, 101, '2025-01-03', '2025-01-17', '2025-01-20'),
-                ('BR002', 3, 105, '2025-01-05', '2025-01-19', NULL),
-                ('BR003', 4, 109, '2025-01-07', '2025-01-21', '2025-01-18'),
-                ('BR004', 8, 113, '2025-01-10', '2025-01-24', '2025-01-24'),
-                ('BR005', 10, 117, '2025-01-11', '2025-01-25', '2025-01-30');
+                (1, 2, 101, '2025-01-03', '2025-01-17', '2025-01-20'),
+                (2, 3, 105, '2025-01-05', '2025-01-19', NULL),
+                (3, 4, 109, '2025-01-07', '2025-01-21', '2025-01-18'),
+                (4, 8, 113, '2025-01-10', '2025-01-24', '2025-01-24'),
+                (5, 10, 117, '2025-01-11', '2025-01-25', '2025-01-30');
             """);
 
+            AppMetadata.put(connection, DEMO_DATA_MARKER, java.time.LocalDateTime.now().toString());
+            connection.commit();
             System.out.println("Initial data populated successfully.");
+            return true;
 
         } catch (SQLException e) {
             System.err.println("Data population error: " + e.getMessage());
+            try {
+                connection.rollback();
+            } catch (SQLException ignored) {
+            }
+            return false;
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException ignored) {
+            }
         }
     }
 }
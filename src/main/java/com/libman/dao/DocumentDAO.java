@@ -6,6 +6,9 @@ import com.libman.model.Book;
 import com.libman.exception.DocumentNotFoundException;
 
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 public interface DocumentDAO {
 
@@ -14,10 +17,14 @@ public interface DocumentDAO {
 
     // -------------------- READ --------------------
     Document getDocumentById(int id);
+    Map<Integer, Document> getDocumentsByIds(Collection<Integer> ids);
     Document getDocumentByTitle(String title) throws SQLException;
     Document getDocumentByAuthor(String author);
     Document getDocumentByGenre(String genre);
     Book getBookByIsbn(String isbn);
+    List<Document> searchDocuments(String type, String query);
+    Page<Document> getDocumentsPage(DocumentSort sort, Page.Key after, int pageSize);  // after == null: first page
+    CatalogStats getCatalogStats();
 
     // -------------------- UPDATE --------------------
     void updateDocument(Document document);
@@ -35,4 +42,5 @@ public interface DocumentDAO {
 
     // -------------------- UTILITY --------------------
     boolean isDocumentBorrowed(int idDoc);
+    int rebuildAvailability();
 }
\ No newline at end of file
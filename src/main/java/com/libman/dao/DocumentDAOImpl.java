@@ -1,6 +1,11 @@
 package com.libman.dao;
 
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import com.libman.model.Document;
 import com.libman.model.Book;
@@ -10,16 +15,35 @@ import com.libman.exception.DocumentNotFoundException;
 
 public class DocumentDAOImpl implements DocumentDAO {
 
-    private Connection conn;
+    // Joins for RowMappers.DOCUMENT_COLUMNS: the Book (bk) or Magazine (mg) row of Document d
+    static final String DOCUMENT_JOINS =
+            "LEFT JOIN Book bk ON bk.id_doc = d.id_doc LEFT JOIN Magazine mg ON mg.id_doc = d.id_doc";
 
-    public DocumentDAOImpl() {
-        this.conn = DatabaseManager.getConnection();
-    }
+    private static final String DOCUMENT_SELECT =
+            "SELECT " + RowMappers.DOCUMENT_COLUMNS + " FROM Document d " + DOCUMENT_JOINS;
+
+    // Same catalog as getAllDocuments(): books and magazines only
+    static final String CATALOG_FILTER = "(bk.id_doc IS NOT NULL OR mg.id_doc IS NOT NULL)";
+    static final String BOOK_FILTER = "bk.id_doc IS NOT NULL";
+    static final String MAGAZINE_FILTER = "mg.id_doc IS NOT NULL";
+
+    // FTS5 tables cannot be aliased in MATCH, so CatalogSearch keeps its own name
+    private static final String SEARCH_SELECT =
+            "SELECT " + RowMappers.DOCUMENT_COLUMNS + " FROM CatalogSearch "
+            + "JOIN Document d ON d.id_doc = CatalogSearch.rowid " + DOCUMENT_JOINS
+            + " WHERE " + CATALOG_FILTER;
+
+    // The trigram tokenizer needs at least three characters to build a MATCH query
+    private static final int MIN_MATCH_LENGTH = 3;
+
+    // Committed documents by id_doc, shared by every thread (see EntityCache)
+    static final EntityCache<Integer, Document> CACHE = EntityCache.named("documents", RowMappers::copy);
 
     // -------------------- ADD --------------------
     public void addDocument(Document document) throws SQLException {
         String sqlDoc = "INSERT INTO Document (title, author, genre) VALUES (?, ?, ?)";
-        try (PreparedStatement stmtDoc = conn.prepareStatement(sqlDoc, Statement.RETURN_GENERATED_KEYS)) {
+        try (Connection conn = DatabaseManager.getWriteConnection();
+             PreparedStatement stmtDoc = conn.prepareStatement(sqlDoc, Statement.RETURN_GENERATED_KEYS)) {
             stmtDoc.setString(1, document.getTitle());
             stmtDoc.setString(2, document.getAuthor());
             stmtDoc.setString(3, document.getGenre());
@@ -72,83 +96,16 @@ public class DocumentDAOImpl implements DocumentDAO {
     // -------------------- GET --------------------
     @Override
     public Document getDocumentByTitle(String title) throws SQLException {
-        // First get the base document info
-        String sqlDoc = "SELECT * FROM Document WHERE title = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sqlDoc)) {
-            stmt.setString(1, title);
-            ResultSet rs = stmt.executeQuery();
-            
-            if (rs.next()) {
-                int idDoc = rs.getInt("id_doc");
-                String docTitle = rs.getString("title");
-                String author = rs.getString("author");
-                String genre = rs.getString("genre");
-                
-                // Check availability by looking at Borrow table
-                boolean available = true;
-                String sqlAvail = "SELECT COUNT(*) FROM Borrow WHERE id_doc = ? AND returnDate IS NULL";
-                try (PreparedStatement stmtAvail = conn.prepareStatement(sqlAvail)) {
-                    stmtAvail.setInt(1, idDoc);
-                    ResultSet rsAvail = stmtAvail.executeQuery();
-                    if (rsAvail.next()) {
-                        available = rsAvail.getInt(1) == 0;
-                    }
-                }
-                
-                // Check if it's a Book
-                String sqlBook = "SELECT * FROM Book WHERE id_doc = ?";
-                try (PreparedStatement stmtBook = conn.prepareStatement(sqlBook)) {
-                    stmtBook.setInt(1, idDoc);
-                    ResultSet rsBook = stmtBook.executeQuery();
-                    
-                    if (rsBook.next()) {
-                        Book book = new Book(docTitle, author, genre, 
-                                            rsBook.getString("isbn"), 
-                                            rsBook.getInt("pageNumber"));
-                        book.setIdDoc(idDoc);  // CRITICAL: Set the ID
-                        book.setAvailability(available);
-                        return book;
-                    }
-                }
-                
-                // Check if it's a Magazine
-                String sqlMag = "SELECT * FROM Magazine WHERE id_doc = ?";
-                try (PreparedStatement stmtMag = conn.prepareStatement(sqlMag)) {
-                    stmtMag.setInt(1, idDoc);
-                    ResultSet rsMag = stmtMag.executeQuery();
-                    
-                    if (rsMag.next()) {
-                        String periodicityStr = rsMag.getString("periodicity");
-                        Magazine magazine = new Magazine(docTitle, author, genre,
-                                                        rsMag.getInt("number"),
-                                                        Periodicity.valueOf(periodicityStr.toUpperCase()));
-                        magazine.setIdDoc(idDoc);  // CRITICAL: Set the ID
-                        magazine.setAvailability(available);
-                        return magazine;
-                    }
-                }
-                
-                // If neither Book nor Magazine, return base Document
-                Document doc = new Document(docTitle, author, genre) {};
-                doc.setIdDoc(idDoc);
-                doc.setAvailability(available);
-                return doc;
-            }
+        try (Connection conn = DatabaseManager.getReadConnection()) {
+            Document doc = loadDocument(conn, "d.title = ?", title);
+            if (doc != null) return doc;
         }
-        
         throw new DocumentNotFoundException("No document found with title: " + title);
     }
 
     public Document getDocumentByAuthor(String author) {
-        try {
-            String sql = "SELECT id_doc FROM Document WHERE author = ?";
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setString(1, author);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                int idDoc = rs.getInt("id_doc");
-                return getFullDocumentById(idDoc);
-            }
+        try (Connection conn = DatabaseManager.getReadConnection()) {
+            return loadDocument(conn, "d.author = ?", author);
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -158,110 +115,193 @@ public class DocumentDAOImpl implements DocumentDAO {
     @Override
     public Document getDocumentById(int id) {
         if (id <= 0) return null;
+        Document known = IdentityMap.document(id);
+        if (known != null) return known;
+        Document cached = CACHE.get(id);
+        if (cached != null) return IdentityMap.canonical(cached);
+
+        try (Connection conn = DatabaseManager.getReadConnection()) {
+            Document doc = loadDocument(conn, "d.id_doc = ?", id);
+            CACHE.put(id, doc);
+            return doc;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
 
-        try {
-            // 1️⃣ Get base document
-            String sqlDoc = "SELECT * FROM Document WHERE id_doc = ?";
-            Document baseDoc = null;
-            try (PreparedStatement stmt = conn.prepareStatement(sqlDoc)) {
-                stmt.setInt(1, id);
-                ResultSet rs = stmt.executeQuery();
-                if (!rs.next()) return null;
-
-                String title = rs.getString("title");
-                String author = rs.getString("author");
-                String genre = rs.getString("genre");
-
-                baseDoc = new Document(title, author, genre) {};
-                baseDoc.setIdDoc(id);
-            }
-
-            // 2️⃣ Determine availability
-            String sqlAvail = "SELECT COUNT(*) FROM Borrow WHERE id_doc = ? AND returnDate IS NULL";
-            try (PreparedStatement stmt = conn.prepareStatement(sqlAvail)) {
-                stmt.setInt(1, id);
-                ResultSet rs = stmt.executeQuery();
-                boolean available = rs.next() && rs.getInt(1) == 0;
-                baseDoc.setAvailability(available);
-            }
+    /**
+     * Loads many documents at once, in chunked IN-list queries.
+     * Ids with no document are simply absent from the returned map.
+     */
+    @Override
+    public Map<Integer, Document> getDocumentsByIds(Collection<Integer> ids) {
+        return findDocumentsByIds(ids);
+    }
 
-            // 3️⃣ Check if it's a Book
-            String sqlBook = "SELECT * FROM Book WHERE id_doc = ?";
-            try (PreparedStatement stmt = conn.prepareStatement(sqlBook)) {
-                stmt.setInt(1, id);
-                ResultSet rs = stmt.executeQuery();
-                if (rs.next()) {
-                    Book book = new Book(baseDoc, rs.getString("isbn"), rs.getInt("pageNumber"));
-                    book.setIdDoc(id);  // CRITICAL
-                    book.setAvailability(baseDoc.isAvailable());
-                    return book;
-                }
+    /** {@link #getDocumentsByIds} for callers in the package; ids in the identity map or the cache are not queried. */
+    static Map<Integer, Document> findDocumentsByIds(Collection<Integer> ids) {
+        Map<Integer, Document> documents = new HashMap<>();
+        if (ids == null || ids.isEmpty()) return documents;
+
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : ids) {
+            if (id == null) continue;
+            Document known = IdentityMap.document(id);
+            if (known == null) {
+                known = CACHE.get(id);
+                if (known != null) known = IdentityMap.canonical(known);
             }
-
-            // 4️⃣ Check if it's a Magazine
-            String sqlMag = "SELECT * FROM Magazine WHERE id_doc = ?";
-            try (PreparedStatement stmt = conn.prepareStatement(sqlMag)) {
-                stmt.setInt(1, id);
-                ResultSet rs = stmt.executeQuery();
-                if (rs.next()) {
-                    String periodicityStr = rs.getString("periodicity");
-                    Periodicity periodicity = Periodicity.DAILY; // default
-                    if (periodicityStr != null && !periodicityStr.isBlank()) {
-                        try {
-                            periodicity = Periodicity.valueOf(periodicityStr.toUpperCase());
-                        } catch (IllegalArgumentException e) {
-                            // fallback default if DB has unexpected value
-                            periodicity = Periodicity.DAILY;
-                        }
-                    }
-                    Magazine mag = new Magazine(baseDoc.getTitle(), baseDoc.getAuthor(), baseDoc.getGenre(),
-                                                rs.getInt("number"), periodicity);
-                    mag.setIdDoc(id); // CRITICAL
-                    mag.setAvailability(baseDoc.isAvailable());
-                    return mag;
-                }
+            if (known != null) {
+                documents.put(id, known);
+            } else {
+                missing.add(id);
             }
+        }
+        if (missing.isEmpty()) return documents;
+
+        try (Connection conn = DatabaseManager.getReadConnection()) {
+            InList.forEachRow(conn, DOCUMENT_SELECT + " WHERE d.id_doc IN ", missing, rs -> {
+                Document doc = IdentityMap.canonical(RowMappers.DOCUMENT.map(rs));
+                CACHE.put(doc.getIdDoc(), doc);
+                documents.put(doc.getIdDoc(), doc);
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to load documents by id", e);
+        }
+        return documents;
+    }
 
-            // 5️⃣ Return base document if not Book or Magazine
-            return baseDoc;
+    public Document getDocumentByGenre(String genre) {
+        try (Connection conn = DatabaseManager.getReadConnection()) {
+            return loadDocument(conn, "d.genre = ?", genre);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
 
+    public Book getBookByIsbn(String isbn) {
+        try (Connection conn = DatabaseManager.getReadConnection()) {
+            Document doc = loadDocument(conn, "bk.isbn = ?", isbn);
+            if (doc instanceof Book) return (Book) doc;
         } catch (SQLException e) {
             e.printStackTrace();
-            return null;
         }
+        throw new DocumentNotFoundException("No book found with ISBN = " + isbn);
     }
 
-    public Document getDocumentByGenre(String genre) {
-        try {
-            String sql = "SELECT id_doc FROM Document WHERE genre = ?";
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setString(1, genre);
+    // -------------------- PAGES --------------------
+
+    @Override
+    public Page<Document> getDocumentsPage(DocumentSort sort, Page.Key after, int pageSize) {
+        return loadPage(CATALOG_FILTER, Document.class, sort, after, pageSize);
+    }
+
+    @Override
+    public CatalogStats getCatalogStats() {
+        String sql = "SELECT COUNT(*), COALESCE(SUM(d.activeLoans = 0), 0), COUNT(DISTINCT d.genre) "
+                + "FROM Document d " + DOCUMENT_JOINS + " WHERE " + CATALOG_FILTER;
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                int idDoc = rs.getInt("id_doc");
-                return getFullDocumentById(idDoc);
+            rs.next();
+            return new CatalogStats(rs.getInt(1), rs.getInt(2), rs.getInt(3));
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to compute catalog statistics", e);
+        }
+    }
+
+    /**
+     * Loads one keyset page of the documents matching filter, ordered by the
+     * sort column then id_doc. One row more than the page is read to tell whether
+     * another page follows. Rows with a NULL sort value come first, as in SQLite.
+     */
+    static <T extends Document> Page<T> loadPage(String filter, Class<T> type, DocumentSort sort,
+                                                 Page.Key after, int pageSize) {
+        if (pageSize < 1) throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+
+        String column = sort.column();
+        StringBuilder sql = new StringBuilder(DOCUMENT_SELECT).append(" WHERE ").append(filter);
+        List<Object> params = new ArrayList<>();
+        if (after != null) {
+            if (sort == DocumentSort.ID) {
+                sql.append(" AND d.id_doc > ?");
+            } else if (after.getSortValue() == null) {
+                sql.append(" AND (").append(column).append(" IS NOT NULL OR d.id_doc > ?)");
+            } else {
+                // Row-value comparison seeks straight into the sort index
+                sql.append(" AND (").append(column).append(", d.id_doc) > (?, ?)");
+                params.add(after.getSortValue());
+            }
+            params.add(after.getId());
+        }
+        sql.append(" ORDER BY ").append(sort == DocumentSort.ID ? column : column + ", d.id_doc").append(" LIMIT ?");
+        params.add(pageSize + 1);
+
+        List<T> items = new ArrayList<>(pageSize + 1);
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                Document doc = RowMappers.DOCUMENT.map(rs);
+                if (type.isInstance(doc)) items.add(type.cast(doc));
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            throw new RuntimeException("Failed to load document page", e);
         }
-        return null;
+
+        boolean hasMore = items.size() > pageSize;
+        if (hasMore) items.remove(pageSize);
+        Page.Key next = items.isEmpty() ? null : sort.keyAfter(items.get(items.size() - 1));
+        return new Page<>(items, hasMore, next);
     }
 
-    public Book getBookByIsbn(String isbn) {
-        try {
-            String sql = "SELECT id_doc FROM Book WHERE isbn = ?";
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setString(1, isbn);
+    // -------------------- SEARCH --------------------
+
+    /**
+     * Case-insensitive substring search over the CatalogSearch index, best matches first.
+     * type is "All", "Title", "Author", "Genre" or "ISBN"; any other type finds nothing.
+     */
+    @Override
+    public List<Document> searchDocuments(String type, String query) {
+        List<Document> results = new ArrayList<>();
+        String[] columns = searchColumns(type);
+        if (columns.length == 0 || query == null) return results;
+
+        String sql;
+        List<String> params = new ArrayList<>();
+        if (query.codePointCount(0, query.length()) >= MIN_MATCH_LENGTH) {
+            // Ranked MATCH: the cost follows the number of hits, not the catalog size
+            sql = SEARCH_SELECT + " AND CatalogSearch MATCH ? ORDER BY CatalogSearch.rank";
+            params.add("{" + String.join(" ", columns) + "} : \"" + query.replace("\"", "\"\"") + "\"");
+        } else {
+            // Too short for trigrams: LIKE over the indexed columns
+            StringBuilder where = new StringBuilder();
+            for (String column : columns) {
+                if (where.length() > 0) where.append(" OR ");
+                where.append("CatalogSearch.").append(column).append(" LIKE ? ESCAPE '\\'");
+                params.add("%" + query.replaceAll("([\\\\%_])", "\\\\$1") + "%");
+            }
+            sql = SEARCH_SELECT + " AND (" + where + ") ORDER BY d.title";
+        }
+
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setString(i + 1, params.get(i));
+            }
             ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                int idDoc = rs.getInt("id_doc");
-                Document doc = getFullDocumentById(idDoc);
-                if (doc instanceof Book) return (Book) doc;
+            while (rs.next()) {
+                results.add(RowMappers.DOCUMENT.map(rs));
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            throw new RuntimeException("Catalog search failed: " + e.getMessage(), e);
         }
-        throw new DocumentNotFoundException("No book found with ISBN = " + isbn);
+        return results;
     }
 
     // -------------------- UPDATE --------------------
@@ -276,7 +316,7 @@ public class DocumentDAOImpl implements DocumentDAO {
                                         Periodicity newPeriodicity) {
         if (doc == null) throw new DocumentNotFoundException("Cannot update: document is null");
 
-        try {
+        try (Connection conn = DatabaseManager.getWriteConnection()) {
             int idDoc = doc.getIdDoc(); // use existing ID directly
 
             // Update base document
@@ -311,6 +351,8 @@ public class DocumentDAOImpl implements DocumentDAO {
         } catch (SQLException e) {
             e.printStackTrace();
             throw new RuntimeException("Failed to update document", e);
+        } finally {
+            invalidate(doc.getIdDoc());
         }
     }
 
@@ -318,10 +360,11 @@ public class DocumentDAOImpl implements DocumentDAO {
     public void updateDocument(Document doc) {
         if (doc == null) throw new DocumentNotFoundException("Cannot update: document is null");
 
-        // Remove 'available' column from UPDATE statement since it doesn't exist in schema
+        // activeLoans is owned by the Borrow triggers and never written here
         String sqlDoc = "UPDATE Document SET title = ?, author = ?, genre = ? WHERE id_doc = ?";
 
-        try (PreparedStatement stmt = conn.prepareStatement(sqlDoc)) {
+        try (Connection conn = DatabaseManager.getWriteConnection();
+             PreparedStatement stmt = conn.prepareStatement(sqlDoc)) {
             stmt.setString(1, doc.getTitle());
             stmt.setString(2, doc.getAuthor());
             stmt.setString(3, doc.getGenre());
@@ -354,85 +397,110 @@ public class DocumentDAOImpl implements DocumentDAO {
         } catch (SQLException e) {
             e.printStackTrace();
             throw new RuntimeException("Failed to update document", e);
+        } finally {
+            invalidate(doc.getIdDoc());
         }
     }
 
     // -------------------- REMOVE --------------------
     public void removeDocument(Document document) {
-        try {
-            int idDoc = getIdDocForDocument(document);
+        int idDoc = -1;
+        try (Connection conn = DatabaseManager.getWriteConnection()) {
+            idDoc = getIdDocForDocument(conn, document);
 
             if (document instanceof Book) {
                 String sqlBook = "DELETE FROM Book WHERE id_doc = ?";
-                PreparedStatement stmtBook = conn.prepareStatement(sqlBook);
-                stmtBook.setInt(1, idDoc);
-                stmtBook.executeUpdate();
+                try (PreparedStatement stmtBook = conn.prepareStatement(sqlBook)) {
+                    stmtBook.setInt(1, idDoc);
+                    stmtBook.executeUpdate();
+                }
             } else if (document instanceof Magazine) {
                 String sqlMag = "DELETE FROM Magazine WHERE id_doc = ?";
-                PreparedStatement stmtMag = conn.prepareStatement(sqlMag);
-                stmtMag.setInt(1, idDoc);
-                stmtMag.executeUpdate();
+                try (PreparedStatement stmtMag = conn.prepareStatement(sqlMag)) {
+                    stmtMag.setInt(1, idDoc);
+                    stmtMag.executeUpdate();
+                }
             }
 
             String sqlDoc = "DELETE FROM Document WHERE id_doc = ?";
-            PreparedStatement stmtDoc = conn.prepareStatement(sqlDoc);
-            stmtDoc.setInt(1, idDoc);
-            stmtDoc.executeUpdate();
+            try (PreparedStatement stmtDoc = conn.prepareStatement(sqlDoc)) {
+                stmtDoc.setInt(1, idDoc);
+                stmtDoc.executeUpdate();
+            }
 
         } catch (SQLException e) {
             e.printStackTrace();
+            throw new RuntimeException("Failed to remove document", e);
+        } finally {
+            if (idDoc > 0) invalidate(idDoc);
         }
     }
 
     // -------------------- HELPERS --------------------
 
-    private Document getFullDocumentById(int idDoc) throws SQLException {
-        // Check Book
-        String sqlBook = "SELECT * FROM Book WHERE id_doc = ?";
-        PreparedStatement stmtBook = conn.prepareStatement(sqlBook);
-        stmtBook.setInt(1, idDoc);
-        ResultSet rsBook = stmtBook.executeQuery();
-        if (rsBook.next()) {
-            return new Book(
-                rsBook.getString("title"),
-                rsBook.getString("author"),
-                rsBook.getString("genre"),
-                rsBook.getString("isbn"),
-                (Integer) rsBook.getObject("pageNumber")
-            );
-        }
+    /**
+     * Forgets a document whose row has just changed: in the identity map, the
+     * shared cache and the Book / Magazine lookup caches. Called by every
+     * update and remove path, and by borrow writes since they change availability,
+     * after the write: a reader that cached the old row before it committed
+     * loses it here, or when the enclosing unit of work ends.
+     */
+    static void invalidate(int idDoc) {
+        IdentityMap.evictDocument(idDoc);
+        CACHE.invalidate(idDoc);
+        BookDAOImpl.CACHE.invalidateIf(book -> book.getIdDoc() == idDoc);
+        MagazineDAOImpl.CACHE.invalidateIf(magazine -> magazine.getIdDoc() == idDoc);
+    }
+
+    /** {@link #invalidate} for every document, after a write that may have changed any of them. */
+    static void invalidateAll() {
+        IdentityMap.clear();
+        CACHE.invalidateAll();
+        BookDAOImpl.CACHE.invalidateAll();
+        MagazineDAOImpl.CACHE.invalidateAll();
+    }
 
-        // Check Magazine
-        String sqlMag = "SELECT * FROM Magazine WHERE id_doc = ?";
-        PreparedStatement stmtMag = conn.prepareStatement(sqlMag);
-        stmtMag.setInt(1, idDoc);
-        ResultSet rsMag = stmtMag.executeQuery();
-        if (rsMag.next()) {
-            return new Magazine(
-                rsMag.getString("title"),
-                rsMag.getString("author"),
-                rsMag.getString("genre"),
-                (Integer) rsMag.getObject("number"),
-                Periodicity.valueOf(rsMag.getString("periodicity"))
-            );
+    /**
+     * Loads one document in a single round trip: Document, its Book or Magazine
+     * row and availability. Returns null when nothing matches.
+     */
+    private Document loadDocument(Connection conn, String where, Object param) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(DOCUMENT_SELECT + " WHERE " + where + " LIMIT 1")) {
+            stmt.setObject(1, param);
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? IdentityMap.canonical(RowMappers.DOCUMENT.map(rs)) : null;
         }
+    }
 
-        throw new SQLException("Document type not found for id_doc = " + idDoc);
+    /** CatalogSearch columns searched for a search type. */
+    private static String[] searchColumns(String type) {
+        if (type == null || type.equalsIgnoreCase("All")) {
+            return new String[] {"title", "author", "genre", "isbn"};
+        }
+        switch (type.toLowerCase()) {
+            case "title":  return new String[] {"title"};
+            case "author": return new String[] {"author"};
+            case "genre":  return new String[] {"genre"};
+            case "isbn":   return new String[] {"isbn"};
+            default:       return new String[0];
+        }
     }
 
-    private int getIdDocForDocument(Document doc) throws SQLException {
+    private int getIdDocForDocument(Connection conn, Document doc) throws SQLException {
         String sql = "SELECT id_doc FROM Document WHERE title = ? AND author = ? AND genre = ?";
-        PreparedStatement stmt = conn.prepareStatement(sql);
-        stmt.setString(1, doc.getTitle());
-        stmt.setString(2, doc.getAuthor());
-        stmt.setString(3, doc.getGenre());
-        ResultSet rs = stmt.executeQuery();
-        if (rs.next()) return rs.getInt("id_doc");
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, doc.getTitle());
+            stmt.setString(2, doc.getAuthor());
+            stmt.setString(3, doc.getGenre());
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) return rs.getInt(1);
+        }
         throw new SQLException("Document not found in Document table.");
     }
     public boolean isDocumentBorrowed(int idDoc) {
-        String sql = "SELECT COUNT(*) FROM Borrow WHERE id_doc = ? AND return_date IS NULL";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        String sql = "SELECT activeLoans FROM Document WHERE id_doc = ?";
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, idDoc);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
@@ -443,4 +511,29 @@ public class DocumentDAOImpl implements DocumentDAO {
         }
         return false;
     }
-}
\ No newline at end of file
+
+    /**
+     * Recomputes Document.activeLoans from the Borrow table, for instance after
+     * rows were edited with the triggers dropped or by an external tool.
+     *
+     * @return the number of documents whose counter was wrong
+     */
+    public int rebuildAvailability() {
+        String sql = "UPDATE Document SET activeLoans = "
+                + "(SELECT COUNT(*) FROM Borrow b WHERE b.id_doc = Document.id_doc AND b.returnDate IS NULL) "
+                + "WHERE activeLoans <> "
+                + "(SELECT COUNT(*) FROM Borrow b WHERE b.id_doc = Document.id_doc AND b.returnDate IS NULL)";
+        try (Connection conn = DatabaseManager.getWriteConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int fixed = stmt.executeUpdate();
+            if (fixed > 0) {
+                // Cached documents may carry the availability that was just corrected
+                invalidateAll();
+            }
+            return fixed;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Failed to rebuild document availability", e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.libman.dao;
+
+import java.util.function.Function;
+
+import com.libman.model.Document;
+
+/**
+ * Sort orders for paginated catalog listings. Every order ends with id_doc, so
+ * rows with equal values still have one fixed position (see {@link Page.Key}).
+ */
+public enum DocumentSort {
+    TITLE("d.title", Document::getTitle),
+    AUTHOR("d.author", Document::getAuthor),
+    GENRE("d.genre", Document::getGenre),
+    ID("d.id_doc", null);
+
+    private final String column;
+    private final Function<Document, Object> value;
+
+    DocumentSort(String column, Function<Document, Object> value) {
+        this.column = column;
+        this.value = value;
+    }
+
+    String column() {
+        return column;
+    }
+
+    /** Key positioned just after the given document in this order. */
+    public Page.Key keyAfter(Document document) {
+        return new Page.Key(value == null ? null : value.apply(document), document.getIdDoc());
+    }
+}
@@ -0,0 +1,163 @@
+package com.libman.dao;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Shared (second-level) cache of entities read by the DAOs, with LRU eviction
+ * beyond a maximum size and a time-to-live per entry.
+ *
+ * Unlike the {@link IdentityMap}, which lives for one unit of work, these
+ * caches are shared by every thread, so DAOs use them only for committed data:
+ * inside a {@link UnitOfWork} they neither read nor fill them, and an
+ * invalidation made inside a unit is repeated when it ends, so a reader that
+ * cached the old row meanwhile cannot keep it. Every DAO path that changes a
+ * row invalidates its entry after the write, never only before it: a reader
+ * could load the old committed row in between and cache it for the full TTL.
+ *
+ * Entities are mutable, so a cache given a copier stores a copy of what is put
+ * and returns a fresh copy from every get: a caller changing the instance it
+ * got never changes what other threads read.
+ *
+ * -Dlibman.cache.maxEntries (per cache, default 5000, 0 disables) and
+ * -Dlibman.cache.ttlMs (default 60000) configure every cache.
+ */
+public class EntityCache<K, V> {
+
+    private static final int MAX_ENTRIES = Integer.getInteger("libman.cache.maxEntries", 5000);
+    private static final long TTL_MS = Long.getLong("libman.cache.ttlMs", 60_000L);
+
+    private static final Map<String, EntityCache<?, ?>> REGISTRY = new ConcurrentHashMap<>();
+
+    private final int capacity;
+    private final long ttlNanos;
+    private final UnaryOperator<V> copier;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    private static final class Entry<V> {
+        final V value;
+        final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /** Cache handing out the stored instances themselves; for immutable values. */
+    public EntityCache(int capacity, long ttlMillis) {
+        this(capacity, ttlMillis, UnaryOperator.identity());
+    }
+
+    public EntityCache(int capacity, long ttlMillis, UnaryOperator<V> copier) {
+        this.capacity = capacity;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.copier = copier;
+    }
+
+    /**
+     * Cache sized by the libman.cache.* properties, listed under the name in
+     * {@link #allStats()}, copying values in and out with the copier.
+     */
+    static <K, V> EntityCache<K, V> named(String name, UnaryOperator<V> copier) {
+        EntityCache<K, V> cache = new EntityCache<>(MAX_ENTRIES, TTL_MS, copier);
+        REGISTRY.put(name, cache);
+        return cache;
+    }
+
+    /** Statistics of every named cache, by name. */
+    public static Map<String, CacheStats> allStats() {
+        Map<String, CacheStats> stats = new TreeMap<>();
+        REGISTRY.forEach((name, cache) -> stats.put(name, cache.getStats()));
+        return stats;
+    }
+
+    /** Empties every named cache, e.g. after the database was changed by another program. */
+    public static void clearAll() {
+        REGISTRY.values().forEach(EntityCache::invalidateAll);
+    }
+
+    /** Copy of the cached value, or null on a miss or an expired entry. Always null inside a unit of work. */
+    public synchronized V get(K key) {
+        if (capacity <= 0 || UnitOfWork.isActive()) return null;
+
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.expiresAt - System.nanoTime() > 0) {
+            hits++;
+            return copier.apply(entry.value);
+        }
+        if (entry != null) {
+            entries.remove(key);
+            evictions++;
+        }
+        misses++;
+        return null;
+    }
+
+    /** Caches a value read outside any unit of work; ignored inside one, where it may be uncommitted. */
+    public synchronized void put(K key, V value) {
+        if (capacity <= 0 || value == null || UnitOfWork.isActive()) return;
+
+        entries.put(key, new Entry<>(copier.apply(value), System.nanoTime() + ttlNanos));
+        Iterator<Entry<V>> it = entries.values().iterator();
+        while (entries.size() > capacity && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions++;
+        }
+    }
+
+    /** Drops the entry now and, inside a unit of work, once more when the unit ends. */
+    public void invalidate(K key) {
+        remove(key);
+        if (UnitOfWork.isActive()) {
+            UnitOfWork.afterCompletion(() -> remove(key));
+        }
+    }
+
+    /** {@link #invalidate} for every entry whose value matches, for caches not keyed by id. */
+    public void invalidateIf(Predicate<? super V> filter) {
+        removeIf(filter);
+        if (UnitOfWork.isActive()) {
+            UnitOfWork.afterCompletion(() -> removeIf(filter));
+        }
+    }
+
+    /** Drops every entry now and, inside a unit of work, once more when the unit ends. */
+    public void invalidateAll() {
+        clear();
+        if (UnitOfWork.isActive()) {
+            UnitOfWork.afterCompletion(this::clear);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized CacheStats getStats() {
+        return new CacheStats(hits, misses, evictions);
+    }
+
+    // ------------------ Helper Methods ------------------
+
+    private synchronized void remove(K key) {
+        entries.remove(key);
+    }
+
+    private synchronized void clear() {
+        entries.clear();
+    }
+
+    private synchronized void removeIf(Predicate<? super V> filter) {
+        entries.values().removeIf(entry -> filter.test(entry.value));
+    }
+}
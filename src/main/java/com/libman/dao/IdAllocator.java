@@ -0,0 +1,124 @@
+package com.libman.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Hands out ids from a named row of the Sequence table (schema V9) with hi-lo
+ * block reservation: one short write reserves the next blockSize ids, which
+ * are then handed out from memory, so most ids cost no query at all.
+ *
+ * A reservation never goes below MAX(column) + 1 of the keyed table, so rows
+ * inserted with explicit ids elsewhere (demo data, older versions) are
+ * skipped. Ids of a block left unused when the application stops are lost,
+ * so allocated ids can have gaps.
+ *
+ * A reservation made inside a {@link UnitOfWork} is part of that unit. If the
+ * unit rolls back, the reservation is written again once it has ended, so the
+ * ids still held in memory are never handed out twice.
+ *
+ * Block size: -Dlibman.ids.blockSize (default 50).
+ */
+public class IdAllocator {
+
+    private static final int BLOCK_SIZE = Integer.getInteger("libman.ids.blockSize", 50);
+
+    /** Member.idMember */
+    public static final IdAllocator MEMBERS = new IdAllocator("member", "Member", "idMember", BLOCK_SIZE);
+
+    private final String name;
+    private final int blockSize;
+    private final String reserveSql;
+
+    // Current block: next is the next id to hand out, limit the first id past the block
+    private long next;
+    private long limit;
+
+    /**
+     * @param name   Sequence row, created on first use
+     * @param table  table whose ids are allocated (an identifier from code, never user input)
+     * @param column its id column
+     */
+    public IdAllocator(String name, String table, String column, int blockSize) {
+        if (blockSize < 1) throw new IllegalArgumentException("blockSize must be at least 1");
+        this.name = name;
+        this.blockSize = blockSize;
+        this.reserveSql = "UPDATE Sequence SET nextValue = MAX(nextValue, "
+                + "(SELECT COALESCE(MAX(" + column + "), 0) + 1 FROM " + table + ")) + ? WHERE name = ?";
+    }
+
+    /** Next free id. Queries the database only when the current block is used up. */
+    public long next() {
+        synchronized (this) {
+            if (next < limit) return next++;
+        }
+
+        // Reserve outside the lock: the writer may be held by a unit of work waiting on this allocator
+        long start = reserve();
+        synchronized (this) {
+            if (next >= limit) {
+                next = start;
+                limit = start + blockSize;
+            }
+            // else another thread refilled first; the block reserved here is skipped
+            return next++;
+        }
+    }
+
+    /** {@link #next()} for int keys. */
+    public int nextInt() {
+        return Math.toIntExact(next());
+    }
+
+    // ------------------ Helper Methods ------------------
+
+    private long reserve() {
+        boolean joined = UnitOfWork.isActive();
+        try {
+            long start = UnitOfWork.call(() -> {
+                try (Connection conn = DatabaseManager.getWriteConnection()) {
+                    try (PreparedStatement stmt = conn.prepareStatement(
+                            "INSERT OR IGNORE INTO Sequence (name, nextValue) VALUES (?, 1)")) {
+                        stmt.setString(1, name);
+                        stmt.executeUpdate();
+                    }
+                    try (PreparedStatement stmt = conn.prepareStatement(reserveSql)) {
+                        stmt.setInt(1, blockSize);
+                        stmt.setString(2, name);
+                        stmt.executeUpdate();
+                    }
+                    try (PreparedStatement stmt = conn.prepareStatement(
+                            "SELECT nextValue FROM Sequence WHERE name = ?")) {
+                        stmt.setString(1, name);
+                        ResultSet rs = stmt.executeQuery();
+                        rs.next();
+                        return rs.getLong(1) - blockSize;
+                    }
+                }
+            });
+            if (joined) {
+                long reservedUpTo = start + blockSize;
+                UnitOfWork.afterCompletion(() -> keepReservation(reservedUpTo));
+            }
+            return start;
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to reserve ids from sequence '" + name + "'", e);
+        }
+    }
+
+    // Writes the reservation back if the enclosing unit rolled it back; a no-op after a commit
+    private void keepReservation(long reservedUpTo) {
+        String sql = "INSERT INTO Sequence (name, nextValue) VALUES (?, ?) "
+                + "ON CONFLICT(name) DO UPDATE SET nextValue = MAX(nextValue, excluded.nextValue)";
+        try (Connection conn = DatabaseManager.getWriteConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, name);
+            stmt.setLong(2, reservedUpTo);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Failed to keep the reservation of sequence '" + name + "': " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.libman.dao;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.libman.model.Document;
+import com.libman.model.Member;
+
+/**
+ * Per-thread identity map: within one scope every Document and Member row is
+ * materialised once, and later lookups of the same id_doc / idMember return
+ * that instance without a query.
+ *
+ * A scope is opened around every {@link UnitOfWork} and every
+ * {@link AsyncLibraryManager} task, or explicitly:
+ * <pre>
+ * IdentityMap.Scope scope = IdentityMap.open();
+ * try {
+ *     ...
+ * } finally {
+ *     scope.close();
+ * }
+ * </pre>
+ * Nested opens join the enclosing scope. DAO update and delete paths evict the
+ * ids they touch, so a later lookup in the same scope reads the new row. With
+ * no scope open, every lookup queries as before.
+ */
+public final class IdentityMap {
+
+    private static final ThreadLocal<IdentityMap> CURRENT = new ThreadLocal<>();
+
+    private final Map<Integer, Document> documents = new HashMap<>();
+    private final Map<Integer, Member> members = new HashMap<>();
+
+    /** Handle of an open scope; only the handle that created the map clears it. */
+    public static final class Scope implements AutoCloseable {
+        private final boolean owner;
+
+        private Scope(boolean owner) {
+            this.owner = owner;
+        }
+
+        @Override
+        public void close() {
+            if (owner) CURRENT.remove();
+        }
+    }
+
+    private IdentityMap() {
+    }
+
+    /** Opens a scope on the calling thread, or joins the one already open. */
+    public static Scope open() {
+        if (CURRENT.get() != null) return new Scope(false);
+        CURRENT.set(new IdentityMap());
+        return new Scope(true);
+    }
+
+    /** True while the calling thread has a scope open. */
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /** Forgets every instance of the open scope, e.g. after a rollback. */
+    static void clear() {
+        IdentityMap map = CURRENT.get();
+        if (map != null) {
+            map.documents.clear();
+            map.members.clear();
+        }
+    }
+
+    // -------------------- Documents --------------------
+
+    /** Instance already loaded in this scope, or null. */
+    static Document document(int idDoc) {
+        IdentityMap map = CURRENT.get();
+        return map == null ? null : map.documents.get(idDoc);
+    }
+
+    /** The scope's instance for this document's id, registering the given one if it is the first. */
+    static Document canonical(Document document) {
+        IdentityMap map = CURRENT.get();
+        if (map == null || document == null) return document;
+        Document existing = map.documents.putIfAbsent(document.getIdDoc(), document);
+        return existing != null ? existing : document;
+    }
+
+    /** The scope's document map, or a fresh one (shared by a single query) when no scope is open. */
+    static Map<Integer, Document> documents() {
+        IdentityMap map = CURRENT.get();
+        return map == null ? new HashMap<>() : map.documents;
+    }
+
+    static void evictDocument(int idDoc) {
+        IdentityMap map = CURRENT.get();
+        if (map != null) map.documents.remove(idDoc);
+    }
+
+    // -------------------- Members --------------------
+
+    /** Instance already loaded in this scope, or null. */
+    static Member member(int idMember) {
+        IdentityMap map = CURRENT.get();
+        return map == null ? null : map.members.get(idMember);
+    }
+
+    /** The scope's instance for this member's id, registering the given one if it is the first. */
+    static Member canonical(Member member) {
+        IdentityMap map = CURRENT.get();
+        if (map == null || member == null) return member;
+        Member existing = map.members.putIfAbsent(member.getIdMember(), member);
+        return existing != null ? existing : member;
+    }
+
+    /** The scope's member map, or a fresh one (shared by a single query) when no scope is open. */
+    static Map<Integer, Member> members() {
+        IdentityMap map = CURRENT.get();
+        return map == null ? new HashMap<>() : map.members;
+    }
+
+    static void evictMember(int idMember) {
+        IdentityMap map = CURRENT.get();
+        if (map != null) map.members.remove(idMember);
+    }
+}
@@ -0,0 +1,74 @@
+package com.libman.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Runs "WHERE id IN (...)" lookups for any number of ids.
+ *
+ * Ids are de-duplicated and split into chunks of at most {@link #MAX_CHUNK},
+ * well below SQLite's bound-parameter limit. Each chunk's placeholder count is
+ * rounded up to a power of two (padding repeats the last id), so only a handful
+ * of distinct SQL strings reach the prepared statement cache.
+ */
+final class InList {
+
+    static final int MAX_CHUNK = 512;
+
+    /** Called once per result row. */
+    @FunctionalInterface
+    interface RowHandler {
+        void handle(ResultSet rs) throws SQLException;
+    }
+
+    private InList() {
+    }
+
+    /**
+     * Runs {@code selectPrefix + "(?, ?, ...)"} for every chunk of ids.
+     *
+     * @param selectPrefix query ending in "IN ", for example "SELECT ... FROM Member m WHERE m.idMember IN "
+     */
+    static void forEachRow(Connection conn, String selectPrefix, Collection<Integer> ids,
+                           RowHandler handler) throws SQLException {
+        List<Integer> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        distinct.remove(null);
+
+        for (int from = 0; from < distinct.size(); from += MAX_CHUNK) {
+            List<Integer> chunk = distinct.subList(from, Math.min(from + MAX_CHUNK, distinct.size()));
+            int padded = paddedSize(chunk.size());
+
+            try (PreparedStatement stmt = conn.prepareStatement(selectPrefix + placeholders(padded))) {
+                for (int i = 0; i < padded; i++) {
+                    stmt.setInt(i + 1, chunk.get(Math.min(i, chunk.size() - 1)));
+                }
+                ResultSet rs = stmt.executeQuery();
+                while (rs.next()) {
+                    handler.handle(rs);
+                }
+            }
+        }
+    }
+
+    // ------------------ Helper Methods ------------------
+
+    private static int paddedSize(int size) {
+        int padded = Integer.highestOneBit(size);
+        return padded == size ? size : Math.min(padded << 1, MAX_CHUNK);
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder sb = new StringBuilder(count * 3 + 2).append('(');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append('?');
+        }
+        return sb.append(')').toString();
+    }
+}
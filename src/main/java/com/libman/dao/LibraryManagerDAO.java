@@ -1,5 +1,7 @@
 package com.libman.dao;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -7,9 +9,17 @@ import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import com.libman.model.*;
 import com.libman.exception.*;
+import com.libman.io.CatalogImporter;
+import com.libman.io.ImportListener;
+import com.libman.io.ImportReport;
+import com.libman.search.Autocomplete;
+import com.libman.search.TrigramIndex;
 
 public class LibraryManagerDAO {
     private MemberDAO memberDAO;
@@ -19,6 +29,15 @@ public class LibraryManagerDAO {
     private BorrowDAO borrowDAO;
 
     private static final int MAX_BORROWS_PER_MEMBER = 5;
+
+    // -Dlibman.search.inMemory=true answers searchDocuments from an in-process trigram index
+    private static final boolean IN_MEMORY_SEARCH = Boolean.getBoolean("libman.search.inMemory");
+
+    // Shared by every manager so that writes through any screen keep it current; built on first use
+    private static final SharedIndex<TrigramIndex> searchIndex = new SharedIndex<>();
+
+    // Title, author and member-name suggestions, shared the same way; built on first completion
+    private static final SharedIndex<Autocomplete> autocomplete = new SharedIndex<>();
     private static final double PENALTY_PER_DAY = 0.5;
 
     public LibraryManagerDAO(MemberDAO memberDAO, DocumentDAO documentDAO,
@@ -33,18 +52,12 @@ public class LibraryManagerDAO {
     // -------------------- Members --------------------
     public void addMember(Member member) {
         memberDAO.addMember(member);
+        indexMember(member);
     }
 
+    /** Reserves a member id; ids come from blocks held in memory, see {@link IdAllocator}. */
     public int generateNextMemberId() {
-        int id = 1;
-        while (true) {
-            try {
-                memberDAO.searchMemberById(id);
-                id++;
-            } catch (MemberNotFoundException e) {
-                return id;
-            }
-        }
+        return IdAllocator.MEMBERS.nextInt();
     }
 
     public Member searchMemberById(Integer id) {
@@ -67,11 +80,17 @@ public class LibraryManagerDAO {
         return memberDAO.getAllMembers();
     }
 
+    /** Streams every member without building the list; see {@link MemberDAO#forEachMember}. */
+    public void forEachMember(Consumer<? super Member> action) {
+        memberDAO.forEachMember(action);
+    }
+
     public void updateMember(Member member, String name, String surname, PenaltyStatus penaltyStatus) {
         memberDAO.updateMember(member, name, surname, penaltyStatus);
         member.setName(name);
         member.setSurname(surname);
         member.setPenaltyStatus(penaltyStatus);
+        indexMember(member);
     }
 
     public PenaltyStatus hasPenalty(Member member) {
@@ -82,8 +101,13 @@ public class LibraryManagerDAO {
         return memberDAO.getMemberHistory(member);
     }
 
+    public void forEachMemberHistory(Member member, Consumer<? super Borrow> action) {
+        memberDAO.forEachMemberHistory(member, action);
+    }
+
     public void deleteMember(Member member) {
         memberDAO.deleteMember(member.getIdMember());
+        unindexMember(member.getIdMember());
     }
 
     public Document getDocumentByTitle(String title) throws SQLException {
@@ -105,7 +129,8 @@ public class LibraryManagerDAO {
     // -------------------- Books --------------------
     public void addBook(Book book) {
         try {
-            bookDAO.addBook(book);
+            inTransaction(() -> bookDAO.addBook(book));
+            indexDocument(book);
         } catch (DocumentNotFoundException e) {
             throw new RuntimeException("Failed to add book: " + e.getMessage(), e);
         }
@@ -124,12 +149,13 @@ public class LibraryManagerDAO {
      */
     public void updateBook(Book book, String title, String author, String genre, String isbn, Integer pageNumber) {
         try {
-            bookDAO.updateBookAttributes(book, title, author, genre, isbn, pageNumber);
+            inTransaction(() -> bookDAO.updateBookAttributes(book, title, author, genre, isbn, pageNumber));
             book.setTitle(title);
             book.setAuthor(author);
             book.setGenre(genre);
             book.setIsbn(isbn);
             book.setPageNumber(pageNumber);
+            indexDocument(book);
         } catch (DocumentNotFoundException e) {
             throw new RuntimeException("Failed to update book: " + e.getMessage(), e);
         }
@@ -148,8 +174,14 @@ public class LibraryManagerDAO {
      */
     public void deleteBook(String isbn) {
         try {
-            Book book = bookDAO.getBookByIsbn(isbn);
-            bookDAO.removeBook(book);
+            Book removed = UnitOfWork.call(() -> {
+                Book book = bookDAO.getBookByIsbn(isbn);
+                bookDAO.removeBook(book);
+                return book;
+            });
+            unindexDocument(removed);
+        } catch (SQLException e) {
+            throw new RuntimeException("Transaction failed: " + e.getMessage(), e);
         } catch (DocumentNotFoundException e) {
             throw new RuntimeException("Failed to delete book: " + e.getMessage(), e);
         }
@@ -157,7 +189,8 @@ public class LibraryManagerDAO {
 
     public void removeBook(Book book) {
         try {
-            bookDAO.removeBook(book);
+            inTransaction(() -> bookDAO.removeBook(book));
+            unindexDocument(book);
         } catch (DocumentNotFoundException e) {
             throw new RuntimeException("Failed to remove book: " + e.getMessage(), e);
         }
@@ -167,26 +200,31 @@ public class LibraryManagerDAO {
         return bookDAO.getAllBooks();
     }
 
+    public void forEachBook(Consumer<? super Book> action) {
+        bookDAO.forEachBook(action);
+    }
+
     public List<Book> getBooksByAuthor(String author) {
         List<Book> result = new ArrayList<>();
-        for (Book b : getAllBooks()) {
+        forEachBook(b -> {
             if (b.getAuthor().equalsIgnoreCase(author)) result.add(b);
-        }
+        });
         return result;
     }
 
     public List<Book> getBooksByGenre(String genre) {
         List<Book> result = new ArrayList<>();
-        for (Book b : getAllBooks()) {
+        forEachBook(b -> {
             if (b.getGenre().equalsIgnoreCase(genre)) result.add(b);
-        }
+        });
         return result;
     }
 
     // -------------------- Magazines --------------------
     public void addMagazine(Magazine magazine) {
         try {
-            magazineDAO.addMagazine(magazine);
+            inTransaction(() -> magazineDAO.addMagazine(magazine));
+            indexDocument(magazine);
         } catch (DocumentNotFoundException e) {
             throw new RuntimeException("Failed to add magazine: " + e.getMessage(), e);
         }
@@ -206,12 +244,13 @@ public class LibraryManagerDAO {
     public void updateMagazine(Magazine magazine, String title, String author, String genre,
                                int number, Magazine.Periodicity periodicity) {
         try {
-            magazineDAO.updateMagazineAttributes(magazine, title, author, genre, number, periodicity);
+            inTransaction(() -> magazineDAO.updateMagazineAttributes(magazine, title, author, genre, number, periodicity));
             magazine.setTitle(title);
             magazine.setAuthor(author);
             magazine.setGenre(genre);
             magazine.setNumber(number);
             magazine.setPeriodicity(periodicity);
+            indexDocument(magazine);
         } catch (DocumentNotFoundException e) {
             throw new RuntimeException("Failed to update magazine: " + e.getMessage(), e);
         }
@@ -230,8 +269,14 @@ public class LibraryManagerDAO {
      */
     public void deleteMagazine(int number) {
         try {
-            Magazine magazine = magazineDAO.getMagazineByNumber(number);
-            magazineDAO.removeMagazine(magazine);
+            Magazine removed = UnitOfWork.call(() -> {
+                Magazine magazine = magazineDAO.getMagazineByNumber(number);
+                magazineDAO.removeMagazine(magazine);
+                return magazine;
+            });
+            unindexDocument(removed);
+        } catch (SQLException e) {
+            throw new RuntimeException("Transaction failed: " + e.getMessage(), e);
         } catch (DocumentNotFoundException e) {
             throw new RuntimeException("Failed to delete magazine: " + e.getMessage(), e);
         }
@@ -239,7 +284,8 @@ public class LibraryManagerDAO {
 
     public void removeMagazine(Magazine magazine) {
         try {
-            magazineDAO.removeMagazine(magazine);
+            inTransaction(() -> magazineDAO.removeMagazine(magazine));
+            unindexDocument(magazine);
         } catch (DocumentNotFoundException e) {
             throw new RuntimeException("Failed to remove magazine: " + e.getMessage(), e);
         }
@@ -252,161 +298,268 @@ public class LibraryManagerDAO {
     // -------------------- Documents (all types) --------------------
 
     /**
-     * Returns a list of all documents (books + magazines)
+     * Returns a list of all documents (books + magazines), with availability
+     * stamped from one snapshot of the borrowed document ids
      */
     public List<Document> getAllDocuments() {
         List<Document> all = new ArrayList<>();
         all.addAll(getAllBooks());
         all.addAll(getAllMagazines());
+
+        BitSet borrowed = borrowDAO.getBorrowedDocumentIds();
+        for (Document d : all) {
+            d.setAvailability(!borrowed.get(d.getIdDoc()));
+        }
         return all;
     }
 
     /**
-     * Search documents by type and query.
+     * One page of the catalog (books + magazines) in the given order; pass the
+     * previous page's getNextKey(), or null for the first page
+     */
+    public Page<Document> getDocumentsPage(DocumentSort sort, Page.Key after, int pageSize) {
+        return documentDAO.getDocumentsPage(sort, after, pageSize);
+    }
+
+    public Page<Book> getBooksPage(DocumentSort sort, Page.Key after, int pageSize) {
+        return bookDAO.getBooksPage(sort, after, pageSize);
+    }
+
+    public Page<Magazine> getMagazinesPage(DocumentSort sort, Page.Key after, int pageSize) {
+        return magazineDAO.getMagazinesPage(sort, after, pageSize);
+    }
+
+    /**
+     * Totals shown above the catalog, without loading it
+     */
+    public CatalogStats getCatalogStats() {
+        return documentDAO.getCatalogStats();
+    }
+
+    /**
+     * Search documents by type and query (case-insensitive substring, best matches first).
      * type: "All", "Title", "Author", "Genre", "ISBN"
      */
     public List<Document> searchDocuments(String type, String query) {
-        List<Document> result = new ArrayList<>();
+        TrigramIndex index = getSearchIndex();
+        return index != null ? index.search(type, query) : documentDAO.searchDocuments(type, query);
+    }
 
-        if (type == null || type.equals("All") || type.equalsIgnoreCase("Title")) {
-            for (Document d : getAllDocuments()) {
-                if (d.getTitle().toLowerCase().contains(query.toLowerCase())) {
-                    if (!result.contains(d)) result.add(d);
+    /**
+     * The shared in-memory search index, built from the catalog on first call,
+     * or null when -Dlibman.search.inMemory is not set
+     */
+    public TrigramIndex getSearchIndex() {
+        if (!IN_MEMORY_SEARCH) return null;
+        TrigramIndex index = searchIndex.get();
+        if (index == null) {
+            synchronized (LibraryManagerDAO.class) {
+                index = searchIndex.get();
+                if (index == null) {
+                    index = new TrigramIndex();
+                    searchIndex.build(index, fresh -> fresh.rebuild(getAllDocuments()));
                 }
             }
-            if (!type.equalsIgnoreCase("All")) return result;
         }
+        return index;
+    }
+
+    // -------------------- Autocomplete --------------------
+
+    /**
+     * Up to limit distinct titles starting with the prefix (case-insensitive), from memory
+     */
+    public List<String> completeTitles(String prefix, int limit) {
+        return getAutocomplete().completeTitles(prefix, limit);
+    }
 
-        if (type == null || type.equals("All") || type.equalsIgnoreCase("Author")) {
-            for (Document d : getAllDocuments()) {
-                if (d.getAuthor().toLowerCase().contains(query.toLowerCase())) {
-                    if (!result.contains(d)) result.add(d);
+    /**
+     * Up to limit distinct authors starting with the prefix (case-insensitive), from memory
+     */
+    public List<String> completeAuthors(String prefix, int limit) {
+        return getAutocomplete().completeAuthors(prefix, limit);
+    }
+
+    /**
+     * Up to limit members whose "name surname" or "surname name" starts with the prefix, from memory
+     */
+    public List<Member> completeMembers(String prefix, int limit) {
+        return getAutocomplete().completeMembers(prefix, limit);
+    }
+
+    /**
+     * The shared suggestion index, loaded from the catalog and member list on first call
+     */
+    public Autocomplete getAutocomplete() {
+        Autocomplete suggestions = autocomplete.get();
+        if (suggestions == null) {
+            synchronized (LibraryManagerDAO.class) {
+                suggestions = autocomplete.get();
+                if (suggestions == null) {
+                    suggestions = new Autocomplete();
+                    autocomplete.build(suggestions, fresh -> fresh.rebuild(getAllDocuments(), getAllMembers()));
                 }
             }
-            if (!type.equalsIgnoreCase("All")) return result;
         }
+        return suggestions;
+    }
 
-        if (type == null || type.equals("All") || type.equalsIgnoreCase("Genre")) {
-            for (Document d : getAllDocuments()) {
-                if (d.getGenre().toLowerCase().contains(query.toLowerCase())) {
-                    if (!result.contains(d)) result.add(d);
-                }
-            }
-            if (!type.equalsIgnoreCase("All")) return result;
+    /**
+     * Reloads the in-memory search index from the database, e.g. after writes made outside this manager
+     */
+    public void rebuildSearchIndex() {
+        TrigramIndex index = getSearchIndex();
+        if (index == null) return;
+        synchronized (LibraryManagerDAO.class) {
+            searchIndex.build(index, loaded -> loaded.rebuild(getAllDocuments()));
         }
+    }
 
-        if (type == null || type.equals("All") || type.equalsIgnoreCase("ISBN")) {
-            for (Document d : getAllBooks()) { // only books have ISBN
-                Book b = (Book) d;
-                if (b.getIsbn().toLowerCase().contains(query.toLowerCase())) {
-                    if (!result.contains(b)) result.add(b);
+    /**
+     * Bulk-imports books and magazines from a CSV or JSON file (see {@link CatalogImporter}),
+     * then reloads the in-memory search and suggestion indexes that are already built
+     */
+    public ImportReport importCatalog(Path input, Path errorFile, ImportListener listener)
+            throws IOException, SQLException {
+        try {
+            return new CatalogImporter().importFile(input, errorFile, listener);
+        } finally {
+            synchronized (LibraryManagerDAO.class) {
+                TrigramIndex index = searchIndex.get();
+                if (index != null) searchIndex.build(index, loaded -> loaded.rebuild(getAllDocuments()));
+                Autocomplete suggestions = autocomplete.get();
+                if (suggestions != null) {
+                    autocomplete.build(suggestions, loaded -> loaded.rebuild(getAllDocuments(), getAllMembers()));
                 }
             }
         }
-
-        return result;
     }
 
     // -------------------- Borrows --------------------
     public boolean addBorrow(Member member, Document document) throws SQLException {
+        LocalDate today = LocalDate.now();
+        return addBorrow(member, document, today, today.plusDays(14));
+    }
+
+    /**
+     * Checkout with the dates picked at the desk; a null expected return date
+     * defaults to 14 days after the borrow date
+     */
+    public boolean addBorrow(Member member, Document document, LocalDate borrowDate, LocalDate expectedReturnDate)
+            throws SQLException {
         if (member == null) 
             throw new MemberNotFoundException("Member is null.");
         if (document == null) 
             throw new DocumentNotFoundException("Document is null.");
-
-        // Fetch persisted member
-        Member persistedMember = memberDAO.searchMemberById(member.getIdMember());
-        if (persistedMember == null) 
-            throw new MemberNotFoundException("Member does not exist in the database.");
-
-        // Fetch persisted document
-        Document persistedDocument = documentDAO.getDocumentById(document.getIdDoc());
-        if (persistedDocument == null)
-            throw new DocumentNotFoundException("Document does not exist in the database.");
-
-        // Check availability and member limits
-        if (!persistedDocument.isAvailable()) 
-            throw new BorrowException("Document is not available.");
-        if (persistedMember.getNbBorrows() >= MAX_BORROWS_PER_MEMBER)
-            throw new BorrowException("This member cannot borrow more documents.");
-        if (persistedMember.getPenaltyStatus().getLevel() >= 2)
-            throw new BorrowException("This member is suspended or banned.");
-
-        // Check overdue items
-        for (Borrow b : memberDAO.getMemberHistory(persistedMember)) {
-            if (b.getReturnDate() == null && b.getExpectedReturnDate().isBefore(LocalDate.now())) {
-                throw new BorrowException("Member has overdue items.");
+        if (borrowDate == null)
+            throw new BorrowException("Borrow date is required.");
+        LocalDate dueDate = expectedReturnDate != null ? expectedReturnDate : borrowDate.plusDays(14);
+        if (dueDate.isBefore(borrowDate))
+            throw new BorrowException("Expected return date is before the borrow date.");
+
+        // Checks and writes share one transaction: the checkout commits once or not at all
+        boolean checkedOut = UnitOfWork.call(() -> {
+            // Fetch persisted member
+            Member persistedMember = memberDAO.searchMemberById(member.getIdMember());
+            if (persistedMember == null) 
+                throw new MemberNotFoundException("Member does not exist in the database.");
+
+            // Fetch persisted document
+            Document persistedDocument = documentDAO.getDocumentById(document.getIdDoc());
+            if (persistedDocument == null)
+                throw new DocumentNotFoundException("Document does not exist in the database.");
+
+            // Check availability and member limits
+            if (!persistedDocument.isAvailable()) 
+                throw new BorrowException("Document is not available.");
+            if (persistedMember.getNbBorrows() >= MAX_BORROWS_PER_MEMBER)
+                throw new BorrowException("This member cannot borrow more documents.");
+            if (persistedMember.getPenaltyStatus().getLevel() >= 2)
+                throw new BorrowException("This member is suspended or banned.");
+
+            // Check overdue items
+            for (Borrow b : memberDAO.getMemberHistory(persistedMember)) {
+                if (b.getReturnDate() == null && b.getExpectedReturnDate().isBefore(LocalDate.now())) {
+                    throw new BorrowException("Member has overdue items.");
+                }
             }
-        }
 
-        // Create Borrow object with foreign keys properly set
-        Borrow borrow = new Borrow();
-        borrow.setIdDoc(persistedDocument.getIdDoc());
-        borrow.setIdMember(persistedMember.getIdMember());
-        borrow.setDocument(persistedDocument);
-        borrow.setMember(persistedMember);
-        borrow.setBorrowDate(LocalDate.now());
-        borrow.setExpectedReturnDate(LocalDate.now().plusDays(14));
-        borrow.setReturnDate(null);
-
-        // Persist borrow via BorrowDAO
-        boolean added = borrowDAO.addBorrow(borrow);
-        if (!added)
-            throw new BorrowException("Failed to add borrow to database.");
-
-        // Update document availability
-        persistedDocument.setAvailability(false);
-        documentDAO.updateDocument(persistedDocument);
-
-        // Update member's borrow count
-        persistedMember.setNbBorrows(persistedMember.getNbBorrows() + 1);
-        memberDAO.updateMember(
-            persistedMember,
-            persistedMember.getName(),
-            persistedMember.getSurname(),
-            persistedMember.getPenaltyStatus()
-        );
-
-        return true;
+            // Create Borrow object with foreign keys properly set
+            Borrow borrow = new Borrow();
+            borrow.setIdDoc(persistedDocument.getIdDoc());
+            borrow.setIdMember(persistedMember.getIdMember());
+            borrow.setDocument(persistedDocument);
+            borrow.setMember(persistedMember);
+            borrow.setBorrowDate(borrowDate);
+            borrow.setExpectedReturnDate(dueDate);
+            borrow.setReturnDate(null);
+
+            // Persist borrow via BorrowDAO
+            boolean added = borrowDAO.addBorrow(borrow);
+            if (!added)
+                throw new BorrowException("Failed to add borrow to database.");
+
+            // Availability follows from the new row: the activeLoans triggers count it
+            persistedDocument.setAvailability(false);
+
+            // Update member's borrow count
+            persistedMember.setNbBorrows(persistedMember.getNbBorrows() + 1);
+            memberDAO.updateMember(
+                persistedMember,
+                persistedMember.getName(),
+                persistedMember.getSurname(),
+                persistedMember.getPenaltyStatus()
+            );
+
+            return true;
+        });
+        if (checkedOut) setIndexedAvailability(document.getIdDoc(), false);
+        return checkedOut;
     }
 
     public void removeBorrow(Borrow borrow) {
         if (borrow == null) throw new BorrowException("Borrow is null.");
         if (borrow.getReturnDate() != null) throw new BorrowException("This borrow has already been returned.");
 
-        LocalDate today = LocalDate.now();
+        try {
+            // One transaction for the member, document and borrow updates
+            UnitOfWork.run(() -> {
+                LocalDate today = LocalDate.now();
         
-        // Calculate penalty if late
-        if (borrow.getExpectedReturnDate().isBefore(today)) {
-            long delay = ChronoUnit.DAYS.between(borrow.getExpectedReturnDate(), today);
-            double penalty = delay * PENALTY_PER_DAY;
+                // Calculate penalty if late
+                if (borrow.getExpectedReturnDate().isBefore(today)) {
+                    long delay = ChronoUnit.DAYS.between(borrow.getExpectedReturnDate(), today);
+                    double penalty = delay * PENALTY_PER_DAY;
             
-            // Add penalty to member
-            Member member = borrow.getMember();
-            double newTotalPenalty = member.getPenalty() + penalty;
-            member.setPenalty(newTotalPenalty);
+                    // Add penalty to member
+                    Member member = borrow.getMember();
+                    double newTotalPenalty = member.getPenalty() + penalty;
+                    member.setPenalty(newTotalPenalty);
             
-            // Update penalty status based on total penalty
-            PenaltyStatus newStatus = calculatePenaltyStatus(newTotalPenalty);
-            member.setPenaltyStatus(newStatus);
+                    // Update penalty status based on total penalty
+                    PenaltyStatus newStatus = calculatePenaltyStatus(newTotalPenalty);
+                    member.setPenaltyStatus(newStatus);
             
-            // Update member in database
-            memberDAO.updateMember(member, member.getName(), member.getSurname(), newStatus);
-        }
+                    // Update member in database
+                    memberDAO.updateMember(member, member.getName(), member.getSurname(), newStatus);
+                }
 
-        // Mark document as available
-        Document document = borrow.getDocument();
-        document.setAvailability(true);
-        documentDAO.updateDocument(document);
+                // The activeLoans triggers make the document available again once the return date is set
+                borrow.getDocument().setAvailability(true);
         
-        // Decrease member's borrow count
-        Member member = borrow.getMember();
-        member.setNbBorrows(member.getNbBorrows() - 1);
-        memberDAO.updateMember(member, member.getName(), member.getSurname(), member.getPenaltyStatus());
-
-        // Set return date and update in database
-        borrow.setReturnDate(today);
-        borrowDAO.removeBorrow(borrow);
+                // Decrease member's borrow count
+                Member member = borrow.getMember();
+                member.setNbBorrows(member.getNbBorrows() - 1);
+                memberDAO.updateMember(member, member.getName(), member.getSurname(), member.getPenaltyStatus());
+
+                // Set return date and update in database
+                borrow.setReturnDate(today);
+                borrowDAO.removeBorrow(borrow);
+            });
+            setIndexedAvailability(borrow.getDocument().getIdDoc(), true);
+        } catch (SQLException e) {
+            throw new BorrowException("Failed to return document: " + e.getMessage());
+        }
     }
 
     /**
@@ -445,6 +598,13 @@ public class LibraryManagerDAO {
         return borrowDAO.getAllBorrows();
     }
 
+    /**
+     * Stream all borrows one at a time, for exports and reports over the whole table
+     */
+    public void forEachBorrow(Consumer<? super Borrow> action) {
+        borrowDAO.forEachBorrow(action);
+    }
+
     /**
      * Check if a specific document is currently borrowed
      */
@@ -452,19 +612,38 @@ public class LibraryManagerDAO {
         return borrowDAO.isDocumentBorrowed(idDoc);
     }
 
+    /**
+     * Ids of every document with an open borrow, in one query
+     */
+    public BitSet getBorrowedDocumentIds() {
+        return borrowDAO.getBorrowedDocumentIds();
+    }
+
+    /**
+     * Repair command: recompute every document's active-loan counter from the Borrow table;
+     * the in-memory search index is reloaded when a counter was wrong
+     */
+    public int rebuildAvailability() {
+        int fixed = documentDAO.rebuildAvailability();
+        if (fixed > 0 && searchIndex.get() != null) {
+            UnitOfWork.afterCommit(this::rebuildSearchIndex);
+        }
+        return fixed;
+    }
+
     /**
      * Get borrows returned today for statistics
      */
     public int getReturnedTodayCount() {
-        int count = 0;
+        int[] count = {0};
         LocalDate today = LocalDate.now();
-        
-        for (Borrow b : borrowDAO.getAllBorrows()) {
+
+        borrowDAO.forEachBorrow(b -> {
             if (b.getReturnDate() != null && b.getReturnDate().equals(today)) {
-                count++;
+                count[0]++;
             }
-        }
-        return count;
+        });
+        return count[0];
     }
 
     public int getActiveBorrowsCount(int memberId) throws Exception {
@@ -487,6 +666,59 @@ public class LibraryManagerDAO {
         return totalPenalty;
     }
 
+    /**
+     * Open loans and overdue penalty of every member with an open loan, keyed by
+     * idMember, in one query; other members have {@link MemberLoanStats#NONE}
+     */
+    public Map<Integer, MemberLoanStats> getMemberLoanStats() {
+        return borrowDAO.getMemberLoanStats(LocalDate.now(), PENALTY_PER_DAY);
+    }
+
+    // -------------------- Helper Methods --------------------
+
+    /**
+     * Runs a multi-statement DAO operation as one transaction, so the Document
+     * row and its Book/Magazine row are written (or rolled back) together.
+     */
+    private void inTransaction(UnitOfWork.VoidWork work) {
+        try {
+            UnitOfWork.run(work);
+        } catch (SQLException e) {
+            throw new RuntimeException("Transaction failed: " + e.getMessage(), e);
+        }
+    }
+
+    // Search and suggestion upkeep: applied to a built index and recorded for a build in progress
+    // (see SharedIndex); before the first build there is nothing to update, it reads the database anyway.
+    // Applied after the commit, so a write queued in a batch that rolls back never reaches the indexes.
+    private void indexDocument(Document document) {
+        UnitOfWork.afterCommit(() -> {
+            searchIndex.update(index -> index.put(document));
+            autocomplete.update(suggestions -> suggestions.putDocument(document));
+        });
+    }
+
+    private void unindexDocument(Document document) {
+        if (document == null) return;
+        int idDoc = document.getIdDoc();
+        UnitOfWork.afterCommit(() -> {
+            searchIndex.update(index -> index.remove(idDoc));
+            autocomplete.update(suggestions -> suggestions.removeDocument(idDoc));
+        });
+    }
+
+    private void setIndexedAvailability(int idDoc, boolean available) {
+        UnitOfWork.afterCommit(() -> searchIndex.update(index -> index.setAvailability(idDoc, available)));
+    }
+
+    private void indexMember(Member member) {
+        UnitOfWork.afterCommit(() -> autocomplete.update(suggestions -> suggestions.putMember(member)));
+    }
+
+    private void unindexMember(int idMember) {
+        UnitOfWork.afterCommit(() -> autocomplete.update(suggestions -> suggestions.removeMember(idMember)));
+    }
+
     public DocumentDAO getDocumentDAO() {
         return documentDAO;
     }
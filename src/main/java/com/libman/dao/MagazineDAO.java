@@ -17,4 +17,5 @@ public interface MagazineDAO {
 
     // New method
     List<Magazine> getAllMagazines();
+    Page<Magazine> getMagazinesPage(DocumentSort sort, Page.Key after, int pageSize);  // after == null: first page
 }
\ No newline at end of file
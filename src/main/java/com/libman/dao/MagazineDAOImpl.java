@@ -13,11 +13,11 @@ import com.libman.exception.DocumentNotFoundException;
 
 public class MagazineDAOImpl implements MagazineDAO {
 
-    private Connection conn;
+    // Committed magazines by number; DocumentDAOImpl.invalidate drops them by id_doc
+    static final EntityCache<Integer, Magazine> CACHE = EntityCache.named("magazinesByNumber", RowMappers::copy);
 
-    public MagazineDAOImpl() {
-        this.conn = DatabaseManager.getConnection();
-    }
+    private static final String MAGAZINE_SELECT =
+            "SELECT " + RowMappers.MAGAZINE_COLUMNS + " FROM Magazine mg JOIN Document d ON mg.id_doc = d.id_doc";
 
     @Override
     public void addMagazine(Magazine magazine) throws DocumentNotFoundException {
@@ -28,32 +28,36 @@ public class MagazineDAOImpl implements MagazineDAO {
         String insertMagazineSQL = 
             "INSERT INTO Magazine (title, number, periodicity, author, genre, id_doc) VALUES (?, ?, ?, ?, ?, ?)";
 
-        try {
+        try (Connection conn = DatabaseManager.getWriteConnection()) {
             // 1️⃣ Insert into Document table
-            PreparedStatement stmtDoc = conn.prepareStatement(insertDocumentSQL, Statement.RETURN_GENERATED_KEYS);
-            stmtDoc.setString(1, magazine.getTitle());
-            stmtDoc.setString(2, magazine.getAuthor());
-            stmtDoc.setString(3, magazine.getGenre());
-            stmtDoc.executeUpdate();
-
-            // 2️⃣ Retrieve generated id_doc
-            ResultSet rs = stmtDoc.getGeneratedKeys();
-            if (!rs.next()) {
-                throw new DocumentNotFoundException("Failed to retrieve generated id_doc.");
+            int id_doc;
+            try (PreparedStatement stmtDoc = conn.prepareStatement(insertDocumentSQL, Statement.RETURN_GENERATED_KEYS)) {
+                stmtDoc.setString(1, magazine.getTitle());
+                stmtDoc.setString(2, magazine.getAuthor());
+                stmtDoc.setString(3, magazine.getGenre());
+                stmtDoc.executeUpdate();
+
+                // 2️⃣ Retrieve generated id_doc
+                try (ResultSet rs = stmtDoc.getGeneratedKeys()) {
+                    if (!rs.next()) {
+                        throw new DocumentNotFoundException("Failed to retrieve generated id_doc.");
+                    }
+                    id_doc = rs.getInt(1);
+                }
             }
-            int id_doc = rs.getInt(1);
             magazine.setIdDoc(id_doc);
 
             // 3️⃣ Insert into Magazine table
-            PreparedStatement stmtMag = conn.prepareStatement(insertMagazineSQL);
-            stmtMag.setString(1, magazine.getTitle());
-            stmtMag.setInt(2, magazine.getNumber());
-            stmtMag.setString(3, magazine.getPeriodicity().name());
-            stmtMag.setString(4, magazine.getAuthor());
-            stmtMag.setString(5, magazine.getGenre());
-            stmtMag.setInt(6, id_doc);
-
-            stmtMag.executeUpdate();
+            try (PreparedStatement stmtMag = conn.prepareStatement(insertMagazineSQL)) {
+                stmtMag.setString(1, magazine.getTitle());
+                stmtMag.setInt(2, magazine.getNumber());
+                stmtMag.setString(3, magazine.getPeriodicity().name());
+                stmtMag.setString(4, magazine.getAuthor());
+                stmtMag.setString(5, magazine.getGenre());
+                stmtMag.setInt(6, id_doc);
+
+                stmtMag.executeUpdate();
+            }
 
             System.out.println("Magazine added with id_doc=" + id_doc);
 
@@ -65,26 +69,19 @@ public class MagazineDAOImpl implements MagazineDAO {
 
     @Override
     public Magazine getMagazineByNumber(int number) throws DocumentNotFoundException {
-        try {
-            String sql = "SELECT m.title AS mag_title, m.number, m.periodicity, " +
-                         "d.id_doc, d.author, d.genre " +
-                         "FROM Magazine m " +
-                         "JOIN Document d ON m.id_doc = d.id_doc " +
-                         "WHERE m.number = ?";
-
-            PreparedStatement stmt = conn.prepareStatement(sql);
+        Magazine cached = CACHE.get(number);
+        if (cached != null) return cached;
+
+        String sql = MAGAZINE_SELECT + " WHERE mg.number = ?";
+
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, number);
             ResultSet rs = stmt.executeQuery();
 
             if (rs.next()) {
-                Magazine mag = new Magazine(
-                    rs.getString("mag_title"),
-                    rs.getString("author"),
-                    rs.getString("genre"),
-                    rs.getInt("number"),
-                    Magazine.Periodicity.valueOf(rs.getString("periodicity"))
-                );
-                mag.setIdDoc(rs.getInt("id_doc"));
+                Magazine mag = RowMappers.MAGAZINE.map(rs);
+                CACHE.put(number, mag);
                 return mag;
             }
 
@@ -105,9 +102,10 @@ public class MagazineDAOImpl implements MagazineDAO {
         String sqlDoc = "UPDATE Document SET title = ?, author = ?, genre = ? WHERE id_doc = ?";
         String sqlMag = "UPDATE Magazine SET number = ?, periodicity = ? WHERE id_doc = ?";
 
-        try {
+        try (Connection conn = DatabaseManager.getWriteConnection();
+             PreparedStatement stmtDoc = conn.prepareStatement(sqlDoc);
+             PreparedStatement stmtMag = conn.prepareStatement(sqlMag)) {
             // Update Document table
-            PreparedStatement stmtDoc = conn.prepareStatement(sqlDoc);
             stmtDoc.setString(1, newTitle != null ? newTitle : magazine.getTitle());
             stmtDoc.setString(2, newAuthor != null ? newAuthor : magazine.getAuthor());
             stmtDoc.setString(3, newGenre != null ? newGenre : magazine.getGenre());
@@ -115,7 +113,6 @@ public class MagazineDAOImpl implements MagazineDAO {
             stmtDoc.executeUpdate();
 
             // Update Magazine table
-            PreparedStatement stmtMag = conn.prepareStatement(sqlMag);
             stmtMag.setInt(1, newNumber != null ? newNumber : magazine.getNumber());
             stmtMag.setString(2, newPeriodicity != null ? newPeriodicity.name() : magazine.getPeriodicity().name());
             stmtMag.setInt(3, magazine.getIdDoc());
@@ -133,6 +130,8 @@ public class MagazineDAOImpl implements MagazineDAO {
         } catch (SQLException e) {
             e.printStackTrace();
             throw new DocumentNotFoundException("Failed to update magazine: " + e.getMessage());
+        } finally {
+            DocumentDAOImpl.invalidate(magazine.getIdDoc());
         }
     }
 
@@ -141,14 +140,14 @@ public class MagazineDAOImpl implements MagazineDAO {
         String sqlMag = "DELETE FROM Magazine WHERE id_doc = ?";
         String sqlDoc = "DELETE FROM Document WHERE id_doc = ?";
 
-        try {
+        try (Connection conn = DatabaseManager.getWriteConnection();
+             PreparedStatement stmtMag = conn.prepareStatement(sqlMag);
+             PreparedStatement stmtDoc = conn.prepareStatement(sqlDoc)) {
             // Delete from Magazine table first
-            PreparedStatement stmtMag = conn.prepareStatement(sqlMag);
             stmtMag.setInt(1, magazine.getIdDoc());
             stmtMag.executeUpdate();
 
             // Delete from Document table
-            PreparedStatement stmtDoc = conn.prepareStatement(sqlDoc);
             stmtDoc.setInt(1, magazine.getIdDoc());
             stmtDoc.executeUpdate();
 
@@ -157,31 +156,25 @@ public class MagazineDAOImpl implements MagazineDAO {
         } catch (SQLException e) {
             e.printStackTrace();
             throw new DocumentNotFoundException("Failed to remove magazine: " + e.getMessage());
+        } finally {
+            DocumentDAOImpl.invalidate(magazine.getIdDoc());
         }
     }
 
+    @Override
+    public Page<Magazine> getMagazinesPage(DocumentSort sort, Page.Key after, int pageSize) {
+        return DocumentDAOImpl.loadPage(DocumentDAOImpl.MAGAZINE_FILTER, Magazine.class, sort, after, pageSize);
+    }
+
     @Override
     public List<Magazine> getAllMagazines() {
         List<Magazine> magazines = new ArrayList<>();
-        String sql = "SELECT m.title AS mag_title, m.number, m.periodicity, " +
-                     "d.id_doc, d.author, d.genre " +
-                     "FROM Magazine m " +
-                     "JOIN Document d ON m.id_doc = d.id_doc";
-
-        try {
-            PreparedStatement stmt = conn.prepareStatement(sql);
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(MAGAZINE_SELECT)) {
             ResultSet rs = stmt.executeQuery();
 
             while (rs.next()) {
-                Magazine mag = new Magazine(
-                    rs.getString("mag_title"),
-                    rs.getString("author"),
-                    rs.getString("genre"),
-                    rs.getInt("number"),
-                    Magazine.Periodicity.valueOf(rs.getString("periodicity"))
-                );
-                mag.setIdDoc(rs.getInt("id_doc"));
-                magazines.add(mag);
+                magazines.add(RowMappers.MAGAZINE.map(rs));
             }
 
         } catch (SQLException e) {
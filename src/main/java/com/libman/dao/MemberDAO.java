@@ -5,15 +5,21 @@ import com.libman.model.PenaltyStatus;
 import com.libman.model.Borrow;
 import com.libman.exception.MemberNotFoundException;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface MemberDAO {
     void addMember(Member member);
     Member searchMemberById(int memberId) throws MemberNotFoundException;
+    Map<Integer, Member> getMembersByIds(Collection<Integer> memberIds);
     Member searchMemberByName(String name, String surname) throws MemberNotFoundException;
     void updateMember(Member member, String name, String surname, PenaltyStatus penaltyStatus);
     List<Borrow> getMemberHistory(Member member);
+    void forEachMemberHistory(Member member, Consumer<? super Borrow> action);  // streams rows
     PenaltyStatus hasPenalty(Member member);
     List<Member> getAllMembers();
+    void forEachMember(Consumer<? super Member> action);  // streams rows, nothing kept in memory
     void deleteMember(int memberId);
 }
@@ -9,21 +9,25 @@ import com.libman.exception.MemberNotFoundException;
 import java.time.LocalDate;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public class MemberDAOImpl implements MemberDAO {
 
-    private Connection conn;
+    // Committed members by idMember, shared by every thread (see EntityCache)
+    static final EntityCache<Integer, Member> CACHE = EntityCache.named("members", RowMappers::copy);
 
-    public MemberDAOImpl() {
-        this.conn = DatabaseManager.getConnection();
-    }
+    private static final String MEMBER_SELECT = "SELECT " + RowMappers.MEMBER_COLUMNS + " FROM Member m";
 
     // ---------------- ADD ----------------
     @Override
     public void addMember(Member member) {
         String sql = "INSERT INTO Member (idMember, name, surname, PenaltyStatus) VALUES (?, ?, ?, ?)";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseManager.getWriteConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, member.getIdMember());
             stmt.setString(2, member.getName());
             stmt.setString(3, member.getSurname());
@@ -31,23 +35,28 @@ public class MemberDAOImpl implements MemberDAO {
             stmt.executeUpdate();
         } catch (SQLException e) {
             e.printStackTrace();
+            // Rethrow so a queued or enclosing unit of work rolls this insert back and reports it
+            throw new RuntimeException("Failed to add member", e);
         }
     }
 
     // ---------------- SEARCH ----------------
     @Override
     public Member searchMemberById(int id) {
-        String sql = "SELECT * FROM Member WHERE idMember = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        Member known = IdentityMap.member(id);
+        if (known != null) return known;
+        Member cached = CACHE.get(id);
+        if (cached != null) return IdentityMap.canonical(cached);
+
+        String sql = MEMBER_SELECT + " WHERE m.idMember = ?";
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, id);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
-                return new Member(
-                        rs.getInt("idMember"),
-                        rs.getString("name"),
-                        rs.getString("surname"),
-                        PenaltyStatus.fromInt(rs.getInt("PenaltyStatus"))
-                );
+                Member m = IdentityMap.canonical(RowMappers.MEMBER.map(rs));
+                CACHE.put(id, m);
+                return m;
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -55,20 +64,54 @@ public class MemberDAOImpl implements MemberDAO {
         throw new MemberNotFoundException("No member found with id = " + id);
     }
 
+    /**
+     * Loads many members at once, in chunked IN-list queries.
+     * Ids with no member are simply absent from the returned map.
+     */
+    @Override
+    public Map<Integer, Member> getMembersByIds(Collection<Integer> memberIds) {
+        Map<Integer, Member> members = new HashMap<>();
+        if (memberIds == null || memberIds.isEmpty()) return members;
+
+        // Members already in the identity map or the cache are not queried again
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : memberIds) {
+            if (id == null) continue;
+            Member known = IdentityMap.member(id);
+            if (known == null) {
+                known = CACHE.get(id);
+                if (known != null) known = IdentityMap.canonical(known);
+            }
+            if (known != null) {
+                members.put(id, known);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (missing.isEmpty()) return members;
+
+        try (Connection conn = DatabaseManager.getReadConnection()) {
+            InList.forEachRow(conn, MEMBER_SELECT + " WHERE m.idMember IN ", missing, rs -> {
+                Member m = IdentityMap.canonical(RowMappers.MEMBER.map(rs));
+                CACHE.put(m.getIdMember(), m);
+                members.put(m.getIdMember(), m);
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to load members by id", e);
+        }
+        return members;
+    }
+
     @Override
     public Member searchMemberByName(String name, String surname) {
-        String sql = "SELECT * FROM Member WHERE name = ? AND surname = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        String sql = MEMBER_SELECT + " WHERE m.name = ? AND m.surname = ?";
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, name);
             stmt.setString(2, surname);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
-                return new Member(
-                        rs.getInt("idMember"),
-                        rs.getString("name"),
-                        rs.getString("surname"),
-                        PenaltyStatus.fromInt(rs.getInt("PenaltyStatus"))
-                );
+                return IdentityMap.canonical(RowMappers.MEMBER.map(rs));
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -79,43 +122,52 @@ public class MemberDAOImpl implements MemberDAO {
     @Override
     public List<Member> getAllMembers() {
         List<Member> list = new ArrayList<>();
-        String sql = "SELECT * FROM Member ORDER BY idMember";
+        try {
+            forEachMember(list::add);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+        return list;
+    }
 
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+    @Override
+    public void forEachMember(Consumer<? super Member> action) {
+        String sql = MEMBER_SELECT + " ORDER BY m.idMember";
+
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setFetchSize(DatabaseManager.getFetchSize());
             ResultSet rs = stmt.executeQuery();
 
             while (rs.next()) {
-                Member m = new Member(
-                    rs.getInt("idMember"),
-                    rs.getString("name"),
-                    rs.getString("surname"),
-                    PenaltyStatus.fromInt(rs.getInt("PenaltyStatus"))
-                );
-                list.add(m);
+                action.accept(RowMappers.MEMBER.map(rs));
             }
 
         } catch (SQLException e) {
-            e.printStackTrace();
+            throw new RuntimeException("Failed to retrieve members: " + e.getMessage(), e);
         }
-
-        return list;
     }
 
     @Override
     public void deleteMember(int memberId) {
         String sql = "DELETE FROM Member WHERE idMember = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseManager.getWriteConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, memberId);
             stmt.executeUpdate();
         } catch (SQLException e) {
             e.printStackTrace();
+            throw new RuntimeException("Failed to delete member", e);
+        } finally {
+            invalidate(memberId);
         }
     }
     // ---------------- UPDATE ----------------
     @Override
     public void updateMember(Member member, String name, String surname, PenaltyStatus penaltyStatus) {
         String sql = "UPDATE Member SET name = ?, surname = ?, PenaltyStatus = ? WHERE idMember = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseManager.getWriteConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, name != null ? name : member.getName());
             stmt.setString(2, surname != null ? surname : member.getSurname());
             stmt.setInt(3, penaltyStatus != null ? penaltyStatus.getLevel() : member.getPenaltyStatus().getLevel());
@@ -123,6 +175,10 @@ public class MemberDAOImpl implements MemberDAO {
             stmt.executeUpdate();
         } catch (SQLException e) {
             e.printStackTrace();
+            // Rethrow so an enclosing unit of work rolls back instead of committing half a checkout
+            throw new RuntimeException("Failed to update member", e);
+        } finally {
+            invalidate(member.getIdMember());
         }
     }
 
@@ -132,36 +188,24 @@ public class MemberDAOImpl implements MemberDAO {
         List<Borrow> history = new ArrayList<>();
         if (member == null) return history;
 
-        try {
-            String sql = "SELECT * FROM Borrow WHERE idMember = ?";
-            PreparedStatement stmt = conn.prepareStatement(sql);
+        String sql = "SELECT " + RowMappers.BORROW_COLUMNS + " FROM Borrow b WHERE b.idMember = ?";
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, member.getIdMember());
             ResultSet rs = stmt.executeQuery();
 
+            List<Integer> docIds = new ArrayList<>();
             while (rs.next()) {
-                String borrowId = rs.getString("id");
-                int docId = rs.getInt("id_doc");
-
-                // Fetch Document
-                Document doc = new DocumentDAOImpl().getDocumentById(docId);
-
-                // Parse dates as LocalDate
-                String borrowDateStr = rs.getString("borrowDate");
-                LocalDate borrowDate = borrowDateStr != null ? LocalDate.parse(borrowDateStr) : null;
-
-                String expectedReturnStr = rs.getString("expectedReturnDate");
-                LocalDate expectedReturn = expectedReturnStr != null ? LocalDate.parse(expectedReturnStr) : null;
-
-                String returnDateStr = rs.getString("returnDate");
-                LocalDate returnDate = returnDateStr != null ? LocalDate.parse(returnDateStr) : null;
-
-                // Create Borrow object
-                Borrow borrow = new Borrow(doc, member, borrowDate);
-                borrow.setId(borrowId);
-                borrow.setExpectedReturnDate(expectedReturn);
-                borrow.setReturnDate(returnDate);
+                docIds.add(rs.getInt(2));
+                // The document is attached below
+                history.add(RowMappers.borrow(rs, null, member));
+            }
 
-                history.add(borrow);
+            // Fetch every document of the history in one batch instead of once per borrow;
+            // documents already in the identity map are reused without a query
+            Map<Integer, Document> documents = DocumentDAOImpl.findDocumentsByIds(docIds);
+            for (int i = 0; i < history.size(); i++) {
+                history.get(i).setDocument(documents.get(docIds.get(i)));
             }
 
         } catch (SQLException e) {
@@ -171,6 +215,13 @@ public class MemberDAOImpl implements MemberDAO {
         return history;
     }
 
+    @Override
+    public void forEachMemberHistory(Member member, Consumer<? super Borrow> action) {
+        if (member == null) return;
+        BorrowDAOImpl.visitBorrows(BorrowDAOImpl.hydratedSelect("WHERE b.idMember = ? ORDER BY b.borrowDate, b.id"),
+                                   action, member.getIdMember());
+    }
+
 
     // ---------------- PENALTY ----------------
     @Override
@@ -180,7 +231,8 @@ public class MemberDAOImpl implements MemberDAO {
 
     public int getActiveBorrowsCount(int memberId) throws SQLException {
         String sql = "SELECT COUNT(*) FROM Borrow WHERE idMember = ? AND returnDate IS NULL";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, memberId);
             ResultSet rs = stmt.executeQuery();
             return rs.next() ? rs.getInt(1) : 0;
@@ -188,20 +240,29 @@ public class MemberDAOImpl implements MemberDAO {
     }
 
     public double getTotalPenaltyForMember(int memberId) throws SQLException {
-        String sql = "SELECT borrowDate, expectedReturnDate, returnDate FROM Borrow WHERE idMember = ?";
+        String sql = "SELECT expectedReturnDate, returnDate FROM Borrow WHERE idMember = ?";
         double totalPenalty = 0;
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, memberId);
             ResultSet rs = stmt.executeQuery();
             while (rs.next()) {
-                String returnStr = rs.getString("returnDate");
-                String expectedStr = rs.getString("expectedReturnDate");
-                java.time.LocalDate expected = java.time.LocalDate.parse(expectedStr);
-                java.time.LocalDate returned = returnStr != null ? java.time.LocalDate.parse(returnStr) : java.time.LocalDate.now();
+                LocalDate expected = RowMappers.date(rs, 1);
+                if (expected == null) continue;
+                LocalDate returned = RowMappers.date(rs, 2);
+                if (returned == null) returned = LocalDate.now();
                 long daysLate = java.time.temporal.ChronoUnit.DAYS.between(expected, returned);
                 if (daysLate > 0) totalPenalty += daysLate * 0.5;
             }
         }
         return totalPenalty;
     }
+
+    // ---------------- HELPERS ----------------
+
+    /** Forgets a member whose row has just changed, in the identity map and the shared cache; see DocumentDAOImpl.invalidate. */
+    static void invalidate(int idMember) {
+        IdentityMap.evictMember(idMember);
+        CACHE.invalidate(idMember);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.libman.dao;
+
+/**
+ * A member's open loans and the penalty accrued on the overdue ones, as shown
+ * on the Members view cards.
+ */
+public record MemberLoanStats(int activeBorrows, double totalPenalty) {
+
+    /** Figures of a member with no open loan. */
+    public static final MemberLoanStats NONE = new MemberLoanStats(0, 0);
+}
@@ -0,0 +1,57 @@
+package com.libman.dao;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing.
+ *
+ * Pages are addressed by the sort key of the last row already shown instead of
+ * an offset, so fetching page 1000 costs the same as page 1 and rows inserted
+ * meanwhile do not shift later pages.
+ */
+public final class Page<T> {
+
+    /** Position after a row: its sort value and id (the tie-breaker). */
+    public static final class Key {
+        private final Object sortValue;
+        private final int id;
+
+        public Key(Object sortValue, int id) {
+            this.sortValue = sortValue;
+            this.id = id;
+        }
+
+        public Object getSortValue() {
+            return sortValue;
+        }
+
+        public int getId() {
+            return id;
+        }
+    }
+
+    private final List<T> items;
+    private final boolean hasMore;
+    private final Key nextKey;
+
+    public Page(List<T> items, boolean hasMore, Key nextKey) {
+        this.items = Collections.unmodifiableList(items);
+        this.hasMore = hasMore;
+        this.nextKey = nextKey;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /** True when at least one more row follows this page. */
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    /** Key to pass to fetch the following page; null when this page is the last. */
+    public Key getNextKey() {
+        return hasMore ? nextKey : null;
+    }
+}
@@ -0,0 +1,80 @@
+package com.libman.dao;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+
+import com.libman.model.*;
+
+/**
+ * Write side of {@link LibraryManagerDAO} routed through the shared {@link WriteQueue}.
+ *
+ * Each method queues the same operation the manager would run directly and
+ * returns a future completed after its batch has committed. Checkouts and
+ * returns from several desks are then written by one thread, many per commit,
+ * instead of contending for the database lock.
+ */
+public class QueuedLibraryManager {
+
+    private final LibraryManagerDAO manager;
+    private final WriteQueue queue;
+
+    public QueuedLibraryManager(LibraryManagerDAO manager) {
+        this(manager, DatabaseManager.getWriteQueue());
+    }
+
+    public QueuedLibraryManager(LibraryManagerDAO manager, WriteQueue queue) {
+        this.manager = manager;
+        this.queue = queue;
+    }
+
+    // -------------------- Borrows --------------------
+    public CompletableFuture<Boolean> addBorrow(Member member, Document document) {
+        return queue.submit(() -> manager.addBorrow(member, document));
+    }
+
+    public CompletableFuture<Boolean> addBorrow(Member member, Document document,
+                                                LocalDate borrowDate, LocalDate expectedReturnDate) {
+        return queue.submit(() -> manager.addBorrow(member, document, borrowDate, expectedReturnDate));
+    }
+
+    public CompletableFuture<Void> removeBorrow(Borrow borrow) {
+        return queue.submit(() -> {
+            manager.removeBorrow(borrow);
+            return null;
+        });
+    }
+
+    // -------------------- Members --------------------
+    public CompletableFuture<Void> addMember(Member member) {
+        return queue.submit(() -> {
+            manager.addMember(member);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> updateMember(Member member, String name, String surname, PenaltyStatus penaltyStatus) {
+        return queue.submit(() -> {
+            manager.updateMember(member, name, surname, penaltyStatus);
+            return null;
+        });
+    }
+
+    // -------------------- Documents --------------------
+    public CompletableFuture<Void> updateBook(Book book) {
+        return queue.submit(() -> {
+            manager.updateBook(book);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> updateMagazine(Magazine magazine) {
+        return queue.submit(() -> {
+            manager.updateMagazine(magazine);
+            return null;
+        });
+    }
+
+    public LibraryManagerDAO getManager() {
+        return manager;
+    }
+}
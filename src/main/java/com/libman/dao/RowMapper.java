@@ -0,0 +1,13 @@
+package com.libman.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Builds one object from the current result row, reading columns by position.
+ * The positions follow the matching column list in {@link RowMappers}.
+ */
+@FunctionalInterface
+interface RowMapper<T> {
+    T map(ResultSet rs) throws SQLException;
+}
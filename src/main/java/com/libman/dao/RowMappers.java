@@ -0,0 +1,181 @@
+package com.libman.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+import com.libman.model.Book;
+import com.libman.model.Borrow;
+import com.libman.model.Document;
+import com.libman.model.Magazine;
+import com.libman.model.Magazine.Periodicity;
+import com.libman.model.Member;
+import com.libman.model.PenaltyStatus;
+
+/**
+ * Explicit select lists and the positional mappers that read them.
+ *
+ * Each *_COLUMNS list fixes the order of its columns, so the mappers read
+ * rs.getXxx(index) instead of looking every column up by name on every row.
+ * Lists can be concatenated in one select; the mappers taking a first column
+ * read their block from that offset (see BorrowDAOImpl's hydrated select).
+ * Keep a list and its mapper in step when adding a column.
+ */
+final class RowMappers {
+
+    /**
+     * Document (alias d) with its Book (bk) or Magazine (mg) row and availability,
+     * from the trigger-maintained activeLoans counter (schema V4).
+     * Use together with {@link DocumentDAOImpl#DOCUMENT_JOINS}.
+     */
+    static final String DOCUMENT_COLUMNS =
+            "d.id_doc, d.title, d.author, d.genre, bk.isbn, bk.pageNumber, mg.number, mg.periodicity, "
+            + "d.activeLoans = 0 AS available";
+    static final int DOCUMENT_WIDTH = 9;
+
+    // FROM Book bk JOIN Document d; the title is the Book table's own copy
+    static final String BOOK_COLUMNS = "bk.title, d.author, d.genre, bk.isbn, bk.pageNumber, d.id_doc";
+
+    // FROM Magazine mg JOIN Document d
+    static final String MAGAZINE_COLUMNS = "mg.title, d.author, d.genre, mg.number, mg.periodicity, d.id_doc";
+
+    // FROM Member m
+    static final String MEMBER_COLUMNS = "m.idMember, m.name, m.surname, m.PenaltyStatus";
+    static final int MEMBER_WIDTH = 4;
+
+    // FROM Borrow b; borrow(rs, ...) attaches the document and member itself
+    static final String BORROW_COLUMNS =
+            "b.id, b.id_doc, b.idMember, b.borrowDate, b.expectedReturnDate, b.returnDate";
+    static final int BORROW_WIDTH = 6;
+
+    static final RowMapper<Document> DOCUMENT = rs -> document(rs, 1);
+    static final RowMapper<Member> MEMBER = rs -> member(rs, 1);
+
+    static final RowMapper<Book> BOOK = rs -> {
+        Book book = new Book(rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getInt(5));
+        book.setIdDoc(rs.getInt(6));
+        return book;
+    };
+
+    static final RowMapper<Magazine> MAGAZINE = rs -> {
+        Magazine magazine = new Magazine(rs.getString(1), rs.getString(2), rs.getString(3), rs.getInt(4),
+                                         periodicity(rs.getString(5)));
+        magazine.setIdDoc(rs.getInt(6));
+        return magazine;
+    };
+
+    private RowMappers() {
+    }
+
+    /** Document from the DOCUMENT_COLUMNS block starting at first; null when its id_doc is NULL (no joined row). */
+    static Document document(ResultSet rs, int first) throws SQLException {
+        int idDoc = rs.getInt(first);
+        if (rs.wasNull()) return null;
+
+        String title = rs.getString(first + 1);
+        String author = rs.getString(first + 2);
+        String genre = rs.getString(first + 3);
+
+        Document doc;
+        String isbn = rs.getString(first + 4);
+        if (isbn != null) {
+            doc = new Book(title, author, genre, isbn, rs.getInt(first + 5));
+        } else {
+            int number = rs.getInt(first + 6);
+            if (!rs.wasNull()) {
+                doc = new Magazine(title, author, genre, number, periodicity(rs.getString(first + 7)));
+            } else {
+                doc = new Document(title, author, genre) {};
+            }
+        }
+        doc.setIdDoc(idDoc);
+        doc.setAvailability(rs.getBoolean(first + 8));
+        return doc;
+    }
+
+    /** Member from the MEMBER_COLUMNS block starting at first; null when its idMember is NULL. */
+    static Member member(ResultSet rs, int first) throws SQLException {
+        int idMember = rs.getInt(first);
+        if (rs.wasNull()) return null;
+        return new Member(idMember, rs.getString(first + 1), rs.getString(first + 2),
+                          PenaltyStatus.fromInt(rs.getInt(first + 3)));
+    }
+
+    /** Borrow from the BORROW_COLUMNS block starting at 1, with the given document and member. */
+    static Borrow borrow(ResultSet rs, Document document, Member member) throws SQLException {
+        Borrow borrow = new Borrow();
+        borrow.setId(rs.getInt(1));
+        borrow.setDocument(document);
+        borrow.setMember(member);
+        borrow.setBorrowDate(date(rs, 4));
+        borrow.setExpectedReturnDate(date(rs, 5));
+        borrow.setReturnDate(date(rs, 6));
+        return borrow;
+    }
+
+    /** Detached copy of a document, for the shared caches; keeps its Book or Magazine type. */
+    static Document copy(Document doc) {
+        if (doc instanceof Book book) return copy(book);
+        if (doc instanceof Magazine magazine) return copy(magazine);
+
+        Document copy = new Document(doc.getTitle(), doc.getAuthor(), doc.getGenre()) {};
+        copy.setIdDoc(doc.getIdDoc());
+        copy.setAvailability(doc.isAvailable());
+        return copy;
+    }
+
+    static Book copy(Book book) {
+        Book copy = new Book(book.getTitle(), book.getAuthor(), book.getGenre(), book.getIsbn(), book.getPageNumber());
+        copy.setIdDoc(book.getIdDoc());
+        copy.setAvailability(book.isAvailable());
+        return copy;
+    }
+
+    static Magazine copy(Magazine magazine) {
+        Magazine copy = new Magazine(magazine.getTitle(), magazine.getAuthor(), magazine.getGenre(),
+                                     magazine.getNumber(), magazine.getPeriodicity());
+        copy.setIdDoc(magazine.getIdDoc());
+        copy.setAvailability(magazine.isAvailable());
+        return copy;
+    }
+
+    static Member copy(Member member) {
+        Member copy = new Member(member.getIdMember(), member.getName(), member.getSurname(),
+                                 member.getPenaltyStatus());
+        copy.setPenalty(member.getPenalty());
+        copy.setNbBorrows(member.getNbBorrows());
+        return copy;
+    }
+
+    /**
+     * Date column: ISO yyyy-MM-dd text as written by the DAOs (a time part is
+     * ignored), or epoch milliseconds as stored by older versions. Null when
+     * empty or unreadable.
+     */
+    static LocalDate date(ResultSet rs, int column) throws SQLException {
+        String value = rs.getString(column);
+        if (value == null || value.isEmpty()) return null;
+
+        try {
+            if (value.length() >= 10 && value.charAt(4) == '-') {
+                return LocalDate.parse(value.length() == 10 ? value : value.substring(0, 10));
+            }
+            return Instant.ofEpochMilli(Long.parseLong(value)).atZone(ZoneId.systemDefault()).toLocalDate();
+        } catch (RuntimeException e) {
+            System.err.println("Failed to parse date from column " + column + ": " + value);
+            return null;
+        }
+    }
+
+    static Periodicity periodicity(String value) {
+        if (value == null || value.isBlank()) return Periodicity.DAILY;
+        try {
+            return Periodicity.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            // fallback default if DB has unexpected value
+            return Periodicity.DAILY;
+        }
+    }
+}
@@ -0,0 +1,470 @@
+package com.libman.dao;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Versioned schema migrations.
+ *
+ * Each migration has a version number and a list of SQL statements. Applied
+ * versions are recorded in the schema_version table, so running the migrator
+ * again only applies what is missing. Every migration runs in its own
+ * transaction together with its schema_version row.
+ */
+public class SchemaMigrator {
+
+    static final class Migration {
+        final int version;
+        final String description;
+        final String[] statements;
+
+        Migration(int version, String description, String... statements) {
+            this.version = version;
+            this.description = description;
+            this.statements = statements;
+        }
+    }
+
+    // Ordered by version; never edit a migration that has shipped, add a new one instead
+    private static final List<Migration> MIGRATIONS = List.of(
+
+        new Migration(1, "Baseline tables",
+            """
+            CREATE TABLE IF NOT EXISTS Document(
+                id_doc INTEGER PRIMARY KEY,
+                title TEXT,
+                author TEXT,
+                genre TEXT
+            );
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS Member(
+                idMember INTEGER PRIMARY KEY,
+                name TEXT,
+                surname TEXT,
+                PenaltyStatus INTEGER CHECK(PenaltyStatus IN (0,1,2,3))
+            );
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS Borrow (
+                id TEXT PRIMARY KEY,
+                id_doc INTEGER,
+                idMember INTEGER,
+                borrowDate TEXT,
+                expectedReturnDate TEXT,
+                returnDate TEXT,
+                FOREIGN KEY(id_doc) REFERENCES Document(id_doc),
+                FOREIGN KEY(idMember) REFERENCES Member(idMember)
+            );
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS Book(
+                title TEXT,
+                isbn TEXT PRIMARY KEY,
+                pageNumber INTEGER,
+                author TEXT,
+                genre TEXT,
+                id_doc INTEGER,
+                FOREIGN KEY (id_doc) REFERENCES Document(id_doc)
+            );
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS Magazine(
+                title TEXT,
+                id TEXT PRIMARY KEY,
+                number INTEGER,
+                periodicity TEXT CHECK(periodicity IN
+                    ('DAILY','WEEKLY','BIWEEKLY','MONTHLY','BIMONTHLY','QUARTERLY','YEARLY')),
+                author TEXT,
+                genre TEXT,
+                id_doc INTEGER,
+                FOREIGN KEY (id_doc) REFERENCES Document(id_doc)
+            );
+            """),
+
+        new Migration(2, "Indexes for active-borrow, member-borrow, title and member-name lookups",
+            // Borrow WHERE id_doc = ? AND returnDate IS NULL: partial index holds only open loans
+            "CREATE INDEX IF NOT EXISTS idx_borrow_active_doc ON Borrow(id_doc) WHERE returnDate IS NULL",
+            // Borrow WHERE idMember = ? [AND returnDate IS NULL [AND expectedReturnDate < ?]]
+            "CREATE INDEX IF NOT EXISTS idx_borrow_member ON Borrow(idMember, returnDate, expectedReturnDate)",
+            // Document WHERE title = ?: covers every column (id_doc is the rowid)
+            "CREATE INDEX IF NOT EXISTS idx_document_title ON Document(title, author, genre)",
+            // Member WHERE name = ? AND surname = ?: covers every column (idMember is the rowid)
+            "CREATE INDEX IF NOT EXISTS idx_member_name ON Member(name, surname, PenaltyStatus)"),
+
+        new Migration(3, "Application metadata key/value table",
+            """
+            CREATE TABLE IF NOT EXISTS app_metadata(
+                key TEXT PRIMARY KEY,
+                value TEXT
+            );
+            """),
+
+        new Migration(4, "Document.activeLoans counter maintained by Borrow triggers",
+            "ALTER TABLE Document ADD COLUMN activeLoans INTEGER NOT NULL DEFAULT 0",
+            """
+            UPDATE Document SET activeLoans =
+                (SELECT COUNT(*) FROM Borrow b WHERE b.id_doc = Document.id_doc AND b.returnDate IS NULL);
+            """,
+            """
+            CREATE TRIGGER IF NOT EXISTS trg_borrow_insert_loans AFTER INSERT ON Borrow
+            WHEN NEW.returnDate IS NULL
+            BEGIN
+                UPDATE Document SET activeLoans = activeLoans + 1 WHERE id_doc = NEW.id_doc;
+            END;
+            """,
+            // Covers returns (NULL -> date), re-opened loans (date -> NULL) and a loan moved to another document
+            """
+            CREATE TRIGGER IF NOT EXISTS trg_borrow_update_loans AFTER UPDATE OF returnDate, id_doc ON Borrow
+            BEGIN
+                UPDATE Document SET activeLoans = activeLoans - 1
+                    WHERE id_doc = OLD.id_doc AND OLD.returnDate IS NULL;
+                UPDATE Document SET activeLoans = activeLoans + 1
+                    WHERE id_doc = NEW.id_doc AND NEW.returnDate IS NULL;
+            END;
+            """,
+            """
+            CREATE TRIGGER IF NOT EXISTS trg_borrow_delete_loans AFTER DELETE ON Borrow
+            WHEN OLD.returnDate IS NULL
+            BEGIN
+                UPDATE Document SET activeLoans = activeLoans - 1 WHERE id_doc = OLD.id_doc;
+            END;
+            """),
+
+        new Migration(5, "CatalogSearch full-text index (FTS5, trigram) kept in sync by triggers",
+            // rowid = Document.id_doc; trigram tokens give case-insensitive substring matches
+            """
+            CREATE VIRTUAL TABLE IF NOT EXISTS CatalogSearch
+                USING fts5(title, author, genre, isbn, tokenize = 'trigram');
+            """,
+            """
+            INSERT INTO CatalogSearch(rowid, title, author, genre, isbn)
+                SELECT d.id_doc, d.title, d.author, d.genre, bk.isbn
+                FROM Document d LEFT JOIN Book bk ON bk.id_doc = d.id_doc;
+            """,
+            """
+            CREATE TRIGGER IF NOT EXISTS trg_document_insert_search AFTER INSERT ON Document
+            BEGIN
+                INSERT INTO CatalogSearch(rowid, title, author, genre, isbn)
+                    VALUES (NEW.id_doc, NEW.title, NEW.author, NEW.genre,
+                            (SELECT isbn FROM Book WHERE id_doc = NEW.id_doc));
+            END;
+            """,
+            // Only the indexed columns, so activeLoans updates skip it; V11 also skips writes that change nothing
+            """
+            CREATE TRIGGER IF NOT EXISTS trg_document_update_search AFTER UPDATE OF id_doc, title, author, genre ON Document
+            BEGIN
+                DELETE FROM CatalogSearch WHERE rowid = OLD.id_doc;
+                INSERT INTO CatalogSearch(rowid, title, author, genre, isbn)
+                    VALUES (NEW.id_doc, NEW.title, NEW.author, NEW.genre,
+                            (SELECT isbn FROM Book WHERE id_doc = NEW.id_doc));
+            END;
+            """,
+            """
+            CREATE TRIGGER IF NOT EXISTS trg_document_delete_search AFTER DELETE ON Document
+            BEGIN
+                DELETE FROM CatalogSearch WHERE rowid = OLD.id_doc;
+            END;
+            """,
+            """
+            CREATE TRIGGER IF NOT EXISTS trg_book_insert_search AFTER INSERT ON Book
+            BEGIN
+                UPDATE CatalogSearch SET isbn = NEW.isbn WHERE rowid = NEW.id_doc;
+            END;
+            """,
+            """
+            CREATE TRIGGER IF NOT EXISTS trg_book_update_search AFTER UPDATE OF isbn, id_doc ON Book
+            BEGIN
+                UPDATE CatalogSearch SET isbn = NULL WHERE rowid = OLD.id_doc;
+                UPDATE CatalogSearch SET isbn = NEW.isbn WHERE rowid = NEW.id_doc;
+            END;
+            """,
+            """
+            CREATE TRIGGER IF NOT EXISTS trg_book_delete_search AFTER DELETE ON Book
+            BEGIN
+                UPDATE CatalogSearch SET isbn = NULL WHERE rowid = OLD.id_doc;
+            END;
+            """),
+
+        new Migration(6, "Sort-key indexes for keyset pagination and Book/Magazine join indexes",
+            // (column, rowid) order = ORDER BY column, id_doc: a page is one index seek, no sort
+            "CREATE INDEX IF NOT EXISTS idx_document_sort_title ON Document(title)",
+            "CREATE INDEX IF NOT EXISTS idx_document_sort_author ON Document(author)",
+            "CREATE INDEX IF NOT EXISTS idx_document_sort_genre ON Document(genre)",
+            // Document LEFT JOIN Book/Magazine ON id_doc: otherwise SQLite builds a temporary index per query
+            "CREATE INDEX IF NOT EXISTS idx_book_doc ON Book(id_doc)",
+            "CREATE INDEX IF NOT EXISTS idx_magazine_doc ON Magazine(id_doc)"),
+
+        new Migration(7, "Bulk-load switch for the CatalogSearch insert triggers",
+            // While an import transaction holds the 'catalogSearch.bulkLoad' row, inserts skip the
+            // per-row FTS work and the importer indexes each chunk with one INSERT ... SELECT
+            "DROP TRIGGER IF EXISTS trg_document_insert_search",
+            """
+            CREATE TRIGGER trg_document_insert_search AFTER INSERT ON Document
+            WHEN NOT EXISTS (SELECT 1 FROM app_metadata WHERE key = 'catalogSearch.bulkLoad')
+            BEGIN
+                INSERT INTO CatalogSearch(rowid, title, author, genre, isbn)
+                    VALUES (NEW.id_doc, NEW.title, NEW.author, NEW.genre,
+                            (SELECT isbn FROM Book WHERE id_doc = NEW.id_doc));
+            END;
+            """,
+            "DROP TRIGGER IF EXISTS trg_book_insert_search",
+            """
+            CREATE TRIGGER trg_book_insert_search AFTER INSERT ON Book
+            WHEN NOT EXISTS (SELECT 1 FROM app_metadata WHERE key = 'catalogSearch.bulkLoad')
+            BEGIN
+                UPDATE CatalogSearch SET isbn = NEW.isbn WHERE rowid = NEW.id_doc;
+            END;
+            """),
+
+        new Migration(8, "Borrow.changeSeq change counter for incremental exports",
+            // Every insert or update stamps the row with the next value of one counter; writes are
+            // serialised on the writer connection, so a row committed later always gets a higher value
+            "ALTER TABLE Borrow ADD COLUMN changeSeq INTEGER NOT NULL DEFAULT 0",
+            "INSERT OR IGNORE INTO app_metadata (key, value) VALUES ('borrow.changeSeq', '0')",
+            "CREATE INDEX IF NOT EXISTS idx_borrow_change ON Borrow(changeSeq)",
+            """
+            CREATE TRIGGER IF NOT EXISTS trg_borrow_insert_change AFTER INSERT ON Borrow
+            BEGIN
+                UPDATE app_metadata SET value = value + 1 WHERE key = 'borrow.changeSeq';
+                UPDATE Borrow SET changeSeq = (SELECT value FROM app_metadata WHERE key = 'borrow.changeSeq')
+                    WHERE rowid = NEW.rowid;
+            END;
+            """,
+            // Every column except changeSeq, so the stamping UPDATE does not fire it again
+            """
+            CREATE TRIGGER IF NOT EXISTS trg_borrow_update_change
+            AFTER UPDATE OF id, id_doc, idMember, borrowDate, expectedReturnDate, returnDate ON Borrow
+            BEGIN
+                UPDATE app_metadata SET value = value + 1 WHERE key = 'borrow.changeSeq';
+                UPDATE Borrow SET changeSeq = (SELECT value FROM app_metadata WHERE key = 'borrow.changeSeq')
+                    WHERE rowid = NEW.rowid;
+            END;
+            """),
+
+        new Migration(9, "Sequence table for block-allocated ids",
+            // One row per named sequence: the first id not yet reserved by any IdAllocator block
+            """
+            CREATE TABLE IF NOT EXISTS Sequence (
+                name TEXT PRIMARY KEY,
+                nextValue INTEGER NOT NULL
+            )
+            """,
+            "INSERT OR IGNORE INTO Sequence (name, nextValue) SELECT 'member', COALESCE(MAX(idMember), 0) + 1 FROM Member"),
+
+        new Migration(10, "Borrow rebuilt with an INTEGER PRIMARY KEY instead of 'BRnnn' text ids",
+            """
+            CREATE TABLE Borrow_new (
+                id INTEGER PRIMARY KEY,
+                id_doc INTEGER,
+                idMember INTEGER,
+                borrowDate TEXT,
+                expectedReturnDate TEXT,
+                returnDate TEXT,
+                changeSeq INTEGER NOT NULL DEFAULT 0,
+                FOREIGN KEY(id_doc) REFERENCES Document(id_doc),
+                FOREIGN KEY(idMember) REFERENCES Member(idMember)
+            );
+            """,
+            // 'BR012' keeps number 12, so the displayed ids do not change; the first row wins a duplicate number
+            """
+            INSERT INTO Borrow_new (id, id_doc, idMember, borrowDate, expectedReturnDate, returnDate, changeSeq)
+            SELECT num, id_doc, idMember, borrowDate, expectedReturnDate, returnDate, changeSeq
+            FROM (SELECT *, ROW_NUMBER() OVER (PARTITION BY num ORDER BY old) AS rn
+                  FROM (SELECT *, rowid AS old,
+                               CASE WHEN id GLOB 'BR[0-9]*' AND substr(id, 3) NOT GLOB '*[^0-9]*'
+                                    THEN CAST(substr(id, 3) AS INTEGER) ELSE 0 END AS num
+                        FROM Borrow))
+            WHERE num > 0 AND rn = 1
+            ORDER BY num;
+            """,
+            // Any other id gets a new number above every kept one
+            """
+            INSERT INTO Borrow_new (id_doc, idMember, borrowDate, expectedReturnDate, returnDate, changeSeq)
+            SELECT id_doc, idMember, borrowDate, expectedReturnDate, returnDate, changeSeq
+            FROM (SELECT *, ROW_NUMBER() OVER (PARTITION BY num ORDER BY old) AS rn
+                  FROM (SELECT *, rowid AS old,
+                               CASE WHEN id GLOB 'BR[0-9]*' AND substr(id, 3) NOT GLOB '*[^0-9]*'
+                                    THEN CAST(substr(id, 3) AS INTEGER) ELSE 0 END AS num
+                        FROM Borrow))
+            WHERE NOT (num > 0 AND rn = 1)
+            ORDER BY old;
+            """,
+            // Dropping Borrow drops its indexes and triggers; they are recreated as in V2, V4 and V8
+            "DROP TABLE Borrow",
+            "ALTER TABLE Borrow_new RENAME TO Borrow",
+            "CREATE INDEX idx_borrow_active_doc ON Borrow(id_doc) WHERE returnDate IS NULL",
+            "CREATE INDEX idx_borrow_member ON Borrow(idMember, returnDate, expectedReturnDate)",
+            "CREATE INDEX idx_borrow_change ON Borrow(changeSeq)",
+            """
+            CREATE TRIGGER trg_borrow_insert_loans AFTER INSERT ON Borrow
+            WHEN NEW.returnDate IS NULL
+            BEGIN
+                UPDATE Document SET activeLoans = activeLoans + 1 WHERE id_doc = NEW.id_doc;
+            END;
+            """,
+            """
+            CREATE TRIGGER trg_borrow_update_loans AFTER UPDATE OF returnDate, id_doc ON Borrow
+            BEGIN
+                UPDATE Document SET activeLoans = activeLoans - 1
+                    WHERE id_doc = OLD.id_doc AND OLD.returnDate IS NULL;
+                UPDATE Document SET activeLoans = activeLoans + 1
+                    WHERE id_doc = NEW.id_doc AND NEW.returnDate IS NULL;
+            END;
+            """,
+            """
+            CREATE TRIGGER trg_borrow_delete_loans AFTER DELETE ON Borrow
+            WHEN OLD.returnDate IS NULL
+            BEGIN
+                UPDATE Document SET activeLoans = activeLoans - 1 WHERE id_doc = OLD.id_doc;
+            END;
+            """,
+            """
+            CREATE TRIGGER trg_borrow_insert_change AFTER INSERT ON Borrow
+            BEGIN
+                UPDATE app_metadata SET value = value + 1 WHERE key = 'borrow.changeSeq';
+                UPDATE Borrow SET changeSeq = (SELECT value FROM app_metadata WHERE key = 'borrow.changeSeq')
+                    WHERE id = NEW.id;
+            END;
+            """,
+            """
+            CREATE TRIGGER trg_borrow_update_change
+            AFTER UPDATE OF id, id_doc, idMember, borrowDate, expectedReturnDate, returnDate ON Borrow
+            BEGIN
+                UPDATE app_metadata SET value = value + 1 WHERE key = 'borrow.changeSeq';
+                UPDATE Borrow SET changeSeq = (SELECT value FROM app_metadata WHERE key = 'borrow.changeSeq')
+                    WHERE id = NEW.id;
+            END;
+            """),
+
+        new Migration(11, "Skip the CatalogSearch rewrite when a Document or Book update leaves the indexed columns unchanged",
+            // UPDATE OF fires whenever a column is assigned, even to its old value
+            "DROP TRIGGER IF EXISTS trg_document_update_search",
+            """
+            CREATE TRIGGER trg_document_update_search AFTER UPDATE OF id_doc, title, author, genre ON Document
+            WHEN OLD.title IS NOT NEW.title OR OLD.author IS NOT NEW.author
+                 OR OLD.genre IS NOT NEW.genre OR OLD.id_doc IS NOT NEW.id_doc
+            BEGIN
+                DELETE FROM CatalogSearch WHERE rowid = OLD.id_doc;
+                INSERT INTO CatalogSearch(rowid, title, author, genre, isbn)
+                    VALUES (NEW.id_doc, NEW.title, NEW.author, NEW.genre,
+                            (SELECT isbn FROM Book WHERE id_doc = NEW.id_doc));
+            END;
+            """,
+            "DROP TRIGGER IF EXISTS trg_book_update_search",
+            """
+            CREATE TRIGGER trg_book_update_search AFTER UPDATE OF isbn, id_doc ON Book
+            WHEN OLD.isbn IS NOT NEW.isbn OR OLD.id_doc IS NOT NEW.id_doc
+            BEGIN
+                UPDATE CatalogSearch SET isbn = NULL WHERE rowid = OLD.id_doc;
+                UPDATE CatalogSearch SET isbn = NEW.isbn WHERE rowid = NEW.id_doc;
+            END;
+            """)
+    );
+
+    /** Highest version known to this build. */
+    public static int latestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version;
+    }
+
+    /**
+     * Cheap startup check: compares the version mirrored in the database header
+     * (PRAGMA user_version) with the latest migration, without reading any table.
+     */
+    public static boolean isUpToDate(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() && rs.getInt(1) >= latestVersion();
+        }
+    }
+
+    /** Highest version recorded in the database, or 0 when nothing was applied yet. */
+    public static int currentVersion(Connection conn) throws SQLException {
+        ensureVersionTable(conn);
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Applies every pending migration in version order.
+     *
+     * @return the number of migrations applied
+     */
+    public static int migrate(Connection conn) throws SQLException {
+        return migrate(conn, latestVersion());
+    }
+
+    /**
+     * Applies the pending migrations up to and including targetVersion, e.g. to
+     * build a database as an older release left it.
+     *
+     * @return the number of migrations applied
+     */
+    public static int migrate(Connection conn, int targetVersion) throws SQLException {
+        int current = currentVersion(conn);
+        int applied = 0;
+
+        for (Migration migration : MIGRATIONS) {
+            if (migration.version <= current || migration.version > targetVersion) continue;
+            apply(conn, migration);
+            applied++;
+        }
+
+        try (Statement stmt = conn.createStatement()) {
+            if (applied > 0) {
+                stmt.execute("PRAGMA optimize");
+            }
+            // Mirror the version into the file header so the next startup can skip this method
+            stmt.execute("PRAGMA user_version = " + currentVersion(conn));
+        }
+        return applied;
+    }
+
+    // ------------------ Helper Methods ------------------
+
+    private static void ensureVersionTable(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS schema_version(
+                    version INTEGER PRIMARY KEY,
+                    description TEXT NOT NULL,
+                    installedOn TEXT NOT NULL,
+                    executionMs INTEGER NOT NULL
+                );
+            """);
+        }
+    }
+
+    private static void apply(Connection conn, Migration migration) throws SQLException {
+        long start = System.currentTimeMillis();
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            try (Statement stmt = conn.createStatement()) {
+                for (String sql : migration.statements) {
+                    stmt.execute(sql);
+                }
+            }
+
+            String record = "INSERT INTO schema_version (version, description, installedOn, executionMs) VALUES (?, ?, ?, ?)";
+            try (PreparedStatement stmt = conn.prepareStatement(record)) {
+                stmt.setInt(1, migration.version);
+                stmt.setString(2, migration.description);
+                stmt.setString(3, LocalDateTime.now().toString());
+                stmt.setLong(4, System.currentTimeMillis() - start);
+                stmt.executeUpdate();
+            }
+
+            conn.commit();
+            System.out.println("Applied migration V" + migration.version + ": " + migration.description);
+        } catch (SQLException e) {
+            conn.rollback();
+            throw new SQLException("Migration V" + migration.version + " failed: " + e.getMessage(), e);
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+}
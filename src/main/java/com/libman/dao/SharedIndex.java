@@ -0,0 +1,60 @@
+package com.libman.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Holds one in-memory index shared by every manager, and keeps it current
+ * across (re)builds.
+ *
+ * A build loads the index from a database snapshot, which can miss a write that
+ * commits while the snapshot is read. Changes reported during a build are therefore
+ * recorded and replayed on the loaded index before it is published, so a commit
+ * is never lost between the snapshot and the publication.
+ */
+final class SharedIndex<I> {
+
+    private volatile I index;
+
+    // Changes committed while a build runs; null when none is running. Guarded by this.
+    private List<Consumer<I>> duringBuild;
+
+    /** The published index, or null before the first build. */
+    I get() {
+        return index;
+    }
+
+    /**
+     * Loads target (a new index, or the published one to reload it), replays the
+     * changes committed meanwhile and publishes it. Callers must not run two builds at once.
+     */
+    void build(I target, Consumer<I> loader) {
+        synchronized (this) {
+            duringBuild = new ArrayList<>();
+        }
+        boolean loaded = false;
+        try {
+            loader.accept(target);
+            loaded = true;
+        } finally {
+            synchronized (this) {
+                if (loaded) {
+                    for (Consumer<I> change : duringBuild) change.accept(target);
+                    index = target;
+                }
+                duringBuild = null;
+            }
+        }
+    }
+
+    /**
+     * Applies a committed change to the published index, if any, and records it for a
+     * running build. Without either, the change is dropped: the next build reads it from the database.
+     */
+    synchronized void update(Consumer<I> change) {
+        if (duringBuild != null) duringBuild.add(change);
+        I published = index;
+        if (published != null) change.accept(published);
+    }
+}
@@ -0,0 +1,16 @@
+package com.libman.dao;
+
+/**
+ * Time spent in each phase of opening the database, measured once by
+ * {@link DatabaseManager} when the pools are first opened.
+ */
+public record StartupTimings(long poolsMillis, long schemaMillis, boolean migrated,
+                             long demoDataMillis, boolean seeded, long totalMillis) {
+
+    @Override
+    public String toString() {
+        return String.format("Startup timings: pools %d ms, schema %d ms (%s), demo data %d ms (%s), total %d ms",
+                             poolsMillis, schemaMillis, migrated ? "migrated" : "up to date",
+                             demoDataMillis, seeded ? "seeded" : "skipped", totalMillis);
+    }
+}
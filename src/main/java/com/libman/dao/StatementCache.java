@@ -0,0 +1,209 @@
+package com.libman.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU cache of prepared statements for one physical connection, keyed by SQL text.
+ *
+ * Callers keep the usual try-with-resources pattern: closing a cached statement
+ * closes its result sets and parks it for the next caller instead of finalizing
+ * it, so SQLite does not parse and plan the same SQL again. If the cached
+ * statement is still open (the same SQL prepared twice at once) the second
+ * caller gets a plain, uncached statement.
+ */
+public class StatementCache {
+
+    private static final AtomicLong totalHits = new AtomicLong();
+    private static final AtomicLong totalMisses = new AtomicLong();
+    private static final AtomicLong totalEvictions = new AtomicLong();
+
+    private final Connection physical;
+    private final int capacity;
+    private final LinkedHashMap<Key, Entry> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public StatementCache(Connection physical, int capacity) {
+        this.physical = physical;
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /** Returns a cached statement for this SQL, preparing it on a miss. */
+    public synchronized PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        if (capacity <= 0) {
+            return physical.prepareStatement(sql, autoGeneratedKeys);
+        }
+
+        Key key = new Key(sql, autoGeneratedKeys);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (entry.inUse) {
+                // Same SQL already running on this connection (e.g. a nested call): don't share it
+                return physical.prepareStatement(sql, autoGeneratedKeys);
+            }
+            hits++;
+            totalHits.incrementAndGet();
+            entry.inUse = true;
+            return entry.proxy;
+        }
+
+        misses++;
+        totalMisses.incrementAndGet();
+        entry = new Entry(physical.prepareStatement(sql, autoGeneratedKeys));
+        entry.inUse = true;
+        entries.put(key, entry);
+        evictOverflow();
+        return entry.proxy;
+    }
+
+    /** Closes every cached statement; used when the physical connection goes away. */
+    public synchronized void closeAll() {
+        for (Entry entry : entries.values()) {
+            closeQuietly(entry.statement);
+        }
+        entries.clear();
+    }
+
+    public synchronized CacheStats getStats() {
+        return new CacheStats(hits, misses, evictions);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /** Counters summed over every connection's cache. */
+    public static CacheStats getGlobalStats() {
+        return new CacheStats(totalHits.get(), totalMisses.get(), totalEvictions.get());
+    }
+
+    // ------------------ Helper Methods ------------------
+
+    private void evictOverflow() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > capacity && it.hasNext()) {
+            Entry eldest = it.next();
+            it.remove();
+            evictions++;
+            totalEvictions.incrementAndGet();
+            if (eldest.inUse) {
+                eldest.evicted = true; // closed for real when its caller releases it
+            } else {
+                closeQuietly(eldest.statement);
+            }
+        }
+    }
+
+    private synchronized void release(Entry entry) {
+        for (ResultSet rs : entry.openResults) {
+            try {
+                rs.close();
+            } catch (SQLException ignored) {
+            }
+        }
+        entry.openResults.clear();
+        entry.inUse = false;
+
+        if (entry.evicted) {
+            closeQuietly(entry.statement);
+            return;
+        }
+        try {
+            entry.statement.clearParameters();
+        } catch (SQLException e) {
+            entries.values().remove(entry);
+            closeQuietly(entry.statement);
+        }
+    }
+
+    private static void closeQuietly(Statement stmt) {
+        try {
+            stmt.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    private static final class Key {
+        final String sql;
+        final int autoGeneratedKeys;
+
+        Key(String sql, int autoGeneratedKeys) {
+            this.sql = sql;
+            this.autoGeneratedKeys = autoGeneratedKeys;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return autoGeneratedKeys == other.autoGeneratedKeys && sql.equals(other.sql);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sql, autoGeneratedKeys);
+        }
+    }
+
+    /** A cached statement and the proxy handed to callers. */
+    private final class Entry implements InvocationHandler {
+        final PreparedStatement statement;
+        final PreparedStatement proxy;
+        final List<ResultSet> openResults = new ArrayList<>(1);
+        boolean inUse;
+        boolean evicted;
+
+        Entry(PreparedStatement statement) {
+            this.statement = statement;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class },
+                    this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (inUse) release(this);
+                    return null;
+                case "isClosed":
+                    return !inUse;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            if (!inUse) {
+                throw new SQLException("Statement already closed");
+            }
+            try {
+                Object result = method.invoke(statement, args);
+                if (result instanceof ResultSet && !openResults.contains(result)) {
+                    openResults.add((ResultSet) result);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
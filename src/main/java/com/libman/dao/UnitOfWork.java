@@ -0,0 +1,181 @@
+package com.libman.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs a block of DAO calls as one transaction on the writer connection.
+ *
+ * The writer stays checked out by the calling thread for the whole block, so
+ * every DAO call inside it (reads included) shares the same connection and the
+ * block commits once. Nested units run inside a savepoint: a failing inner
+ * unit rolls back only its own changes and rethrows, and the outer unit
+ * decides whether to commit. Each unit also runs inside an {@link IdentityMap}
+ * scope, so a row it reads twice is materialised once.
+ *
+ * Usage:
+ * <pre>
+ * UnitOfWork.run(() -> {
+ *     borrowDAO.addBorrow(borrow);
+ *     memberDAO.updateMember(member, ...);
+ * });
+ * </pre>
+ */
+public final class UnitOfWork {
+
+    /** Work returning a result. Unchecked exceptions roll back as well. */
+    @FunctionalInterface
+    public interface Work<T> {
+        T execute() throws SQLException;
+    }
+
+    /** Work without a result. */
+    @FunctionalInterface
+    public interface VoidWork {
+        void execute() throws SQLException;
+    }
+
+    private static final ThreadLocal<Integer> DEPTH = ThreadLocal.withInitial(() -> 0);
+    private static final ThreadLocal<List<Runnable>> AFTER_COMPLETION = ThreadLocal.withInitial(ArrayList::new);
+    private static final ThreadLocal<List<Runnable>> AFTER_COMMIT = ThreadLocal.withInitial(ArrayList::new);
+
+    private UnitOfWork() {
+    }
+
+    /** Runs the work in a transaction (or a savepoint when one is already open) and returns its result. */
+    public static <T> T call(Work<T> work) throws SQLException {
+        IdentityMap.Scope scope = IdentityMap.open();
+        try (Connection conn = DatabaseManager.getWriteConnection()) {
+            if (DEPTH.get() > 0) {
+                return inSavepoint(conn, work);
+            }
+            return inTransaction(conn, work);
+        } finally {
+            scope.close();
+        }
+    }
+
+    /** Runs the work in a transaction (or a savepoint when one is already open). */
+    public static void run(VoidWork work) throws SQLException {
+        call(() -> {
+            work.execute();
+            return null;
+        });
+    }
+
+    /** True while the calling thread is inside a unit of work. */
+    public static boolean isActive() {
+        return DEPTH.get() > 0;
+    }
+
+    /**
+     * Runs the action when the outermost unit ends, after its commit or rollback
+     * (right away when no unit is active). Used to drop shared cache entries.
+     */
+    static void afterCompletion(Runnable action) {
+        if (!isActive()) {
+            action.run();
+            return;
+        }
+        AFTER_COMPLETION.get().add(action);
+    }
+
+    /**
+     * Runs the action once the outermost unit has committed (right away when no
+     * unit is active). It is dropped if that unit, or the savepoint it was
+     * registered in, rolls back. Used for in-memory indexes that must only
+     * show committed rows.
+     */
+    static void afterCommit(Runnable action) {
+        if (!isActive()) {
+            action.run();
+            return;
+        }
+        AFTER_COMMIT.get().add(action);
+    }
+
+    // ------------------ Helper Methods ------------------
+
+    private static <T> T inTransaction(Connection conn, Work<T> work) throws SQLException {
+        conn.setAutoCommit(false);
+        DEPTH.set(1);
+        boolean committed = false;
+        try {
+            T result = work.execute();
+            conn.commit();
+            committed = true;
+            return result;
+        } catch (SQLException | RuntimeException | Error e) {
+            rollbackQuietly(conn, null, e);
+            throw e;
+        } finally {
+            DEPTH.remove();
+            try {
+                conn.setAutoCommit(true);
+            } catch (SQLException ignored) {
+                // The pool resets the connection when it is released
+            }
+            List<Runnable> onCommit = AFTER_COMMIT.get();
+            AFTER_COMMIT.remove();
+            runAfterCompletion();
+            if (committed) runAfterCommit(onCommit);
+        }
+    }
+
+    private static <T> T inSavepoint(Connection conn, Work<T> work) throws SQLException {
+        int depth = DEPTH.get();
+        Savepoint savepoint = conn.setSavepoint("uow_" + depth);
+        List<Runnable> onCommit = AFTER_COMMIT.get();
+        int registered = onCommit.size();
+        DEPTH.set(depth + 1);
+        try {
+            T result = work.execute();
+            conn.releaseSavepoint(savepoint);
+            return result;
+        } catch (SQLException | RuntimeException | Error e) {
+            rollbackQuietly(conn, savepoint, e);
+            // What the rolled-back work registered will never be committed
+            onCommit.subList(registered, onCommit.size()).clear();
+            throw e;
+        } finally {
+            DEPTH.set(depth);
+        }
+    }
+
+    private static void runAfterCompletion() {
+        List<Runnable> actions = AFTER_COMPLETION.get();
+        AFTER_COMPLETION.remove();
+        for (Runnable action : actions) {
+            action.run();
+        }
+    }
+
+    // The data is committed by now: a failing action must not make the unit look failed
+    private static void runAfterCommit(List<Runnable> actions) {
+        for (Runnable action : actions) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                System.err.println("After-commit action failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private static void rollbackQuietly(Connection conn, Savepoint savepoint, Throwable cause) {
+        // Instances loaded since the savepoint may show rows that no longer exist
+        IdentityMap.clear();
+        try {
+            if (savepoint != null) {
+                conn.rollback(savepoint);
+                conn.releaseSavepoint(savepoint);
+            } else {
+                conn.rollback();
+            }
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+    }
+}
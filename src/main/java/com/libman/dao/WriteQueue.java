@@ -0,0 +1,191 @@
+package com.libman.dao;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-writer command queue with group commit.
+ *
+ * Write commands are queued and executed by one writer thread. The thread takes
+ * whatever is waiting (up to the batch size) and runs it in one transaction:
+ * each command gets its own savepoint, so a failing command is rolled back on
+ * its own and the rest of the batch still commits. Futures are completed only
+ * after the commit, so a caller never sees a result that could still be lost.
+ */
+public class WriteQueue implements AutoCloseable {
+
+    /** Marker queued by close(); everything queued before it is still written. */
+    private static final Command<Void> STOP = new Command<>(() -> null, new CompletableFuture<>());
+
+    private final String name;
+    private final BlockingQueue<Command<?>> queue;
+    private final int maxBatchSize;
+    private final long offerTimeoutMillis;
+    private final Thread writer;
+    private volatile boolean closed;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong commands = new AtomicLong();
+    private volatile int largestBatch;
+
+    public WriteQueue(String name, int capacity, int maxBatchSize, long offerTimeoutMillis) {
+        if (capacity < 1 || maxBatchSize < 1) {
+            throw new IllegalArgumentException("Invalid write queue size: capacity=" + capacity + ", batch=" + maxBatchSize);
+        }
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatchSize = maxBatchSize;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.writer = new Thread(this::drainLoop, name + "-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues a write. The future completes with the work's result once its batch
+     * has committed, or exceptionally if the work or the commit failed.
+     * When the queue stays full for the offer timeout the future fails with
+     * {@link RejectedExecutionException}.
+     */
+    public <T> CompletableFuture<T> submit(UnitOfWork.Work<T> work) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (closed) {
+            future.completeExceptionally(new RejectedExecutionException("Write queue '" + name + "' is closed"));
+            return future;
+        }
+        if (Thread.currentThread() == writer) {
+            // Submitted from inside a command: run it in the current batch instead of waiting on ourselves
+            try {
+                future.complete(UnitOfWork.call(work));
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+            return future;
+        }
+
+        try {
+            if (!queue.offer(new Command<>(work, future), offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                future.completeExceptionally(new RejectedExecutionException(
+                        "Write queue '" + name + "' is full (" + queue.size() + " pending)"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    public long getCommandCount() {
+        return commands.get();
+    }
+
+    public int getLargestBatch() {
+        return largestBatch;
+    }
+
+    /** Stops accepting commands; commands already queued are still written. */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        try {
+            queue.put(STOP);
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ------------------ Helper Methods ------------------
+
+    private void drainLoop() {
+        List<Command<?>> batch = new ArrayList<>(maxBatchSize);
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                continue; // Only close() stops the writer
+            }
+            queue.drainTo(batch, maxBatchSize - 1);
+            stopping = batch.remove(STOP);
+            if (!batch.isEmpty()) writeBatch(batch);
+            batch.clear();
+        }
+
+        // Commands that raced with close() after the stop marker are still written
+        queue.drainTo(batch);
+        batch.remove(STOP);
+        if (!batch.isEmpty()) writeBatch(batch);
+    }
+
+    private void writeBatch(List<Command<?>> batch) {
+        try {
+            UnitOfWork.run(() -> {
+                for (Command<?> command : batch) {
+                    command.execute();
+                }
+            });
+        } catch (SQLException | RuntimeException | Error e) {
+            // The commit itself failed: nothing in the batch was written
+            System.err.println("Write queue '" + name + "': batch of " + batch.size() + " failed: " + e.getMessage());
+            for (Command<?> command : batch) {
+                command.failed = e;
+            }
+        }
+
+        batches.incrementAndGet();
+        commands.addAndGet(batch.size());
+        if (batch.size() > largestBatch) largestBatch = batch.size();
+
+        for (Command<?> command : batch) {
+            command.complete();
+        }
+    }
+
+    /** One queued write and the future waiting for it. */
+    private static final class Command<T> {
+        final UnitOfWork.Work<T> work;
+        final CompletableFuture<T> future;
+        T result;
+        Throwable failed;
+
+        Command(UnitOfWork.Work<T> work, CompletableFuture<T> future) {
+            this.work = work;
+            this.future = future;
+        }
+
+        /** Runs inside the batch transaction, in a savepoint of its own. */
+        void execute() {
+            if (future.isCancelled()) return;
+            try {
+                result = UnitOfWork.call(work);
+            } catch (Throwable t) {
+                failed = t;
+            }
+        }
+
+        void complete() {
+            if (failed != null) {
+                future.completeExceptionally(failed);
+            } else {
+                future.complete(result);
+            }
+        }
+    }
+}
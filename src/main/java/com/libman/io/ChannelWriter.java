@@ -0,0 +1,85 @@
+package com.libman.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * UTF-8 text writer over a {@link FileChannel} with one fixed direct buffer:
+ * text is encoded straight into the buffer, which is written out whenever it
+ * fills, so memory use does not depend on how much is written.
+ */
+final class ChannelWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = Integer.getInteger("libman.export.bufferSize", 64 * 1024);
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private long bytesWritten;
+
+    ChannelWriter(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                        StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    ChannelWriter write(CharSequence text) throws IOException {
+        CharBuffer chars = CharBuffer.wrap(text);
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, false);
+            if (result.isOverflow()) {
+                drain();
+            } else if (result.isUnderflow()) {
+                return this;
+            } else {
+                result.throwException();
+            }
+        }
+    }
+
+    ChannelWriter write(char c) throws IOException {
+        if (c < 0x80) {
+            if (!buffer.hasRemaining()) drain();
+            buffer.put((byte) c);
+            return this;
+        }
+        return write(String.valueOf(c));
+    }
+
+    /** Bytes handed to the channel so far, including what is still buffered. */
+    long size() {
+        return bytesWritten + buffer.position();
+    }
+
+    /** Writes out the buffer and forces the file to disk, e.g. before recording a watermark. */
+    void sync() throws IOException {
+        drain();
+        channel.force(true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            channel.close();
+        }
+    }
+
+    // ------------------ Helper Methods ------------------
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,19 @@
+package com.libman.io;
+
+/** RFC 4180 quoting shared by the importer's error file and the exporter. */
+final class Csv {
+
+    private Csv() {
+    }
+
+    /** The value as one CSV field: quoted only when it contains a separator, quote or line break. */
+    static String field(String value) {
+        if (value == null) return "";
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        return quote ? '"' + value.replace("\"", "\"\"") + '"' : value;
+    }
+}
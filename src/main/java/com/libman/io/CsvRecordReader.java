@@ -0,0 +1,137 @@
+package com.libman.io;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streaming RFC 4180 reader. The first record is the header; its names
+ * (case-insensitive) become the field names of every following record.
+ * Quoted fields may contain commas, doubled quotes and line breaks.
+ */
+final class CsvRecordReader implements RecordReader {
+
+    private final Reader in;
+    private final List<String> header;
+    private final List<String> values = new ArrayList<>();
+    private final StringBuilder field = new StringBuilder();
+    private final StringBuilder raw = new StringBuilder();
+    private long line = 1;
+    private int pushedBack = -2;
+
+    CsvRecordReader(Reader in) throws IOException {
+        this.in = in;
+        List<String> names = new ArrayList<>();
+        if (readRecord()) {
+            for (String name : values) {
+                names.add(name.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        this.header = names;
+    }
+
+    @Override
+    public SourceRecord next() throws IOException {
+        while (true) {
+            long start = line;
+            if (!readRecord()) return null;
+            if (values.size() == 1 && values.get(0).isBlank()) continue;  // empty line
+
+            Map<String, String> fields = new HashMap<>();
+            for (int i = 0; i < values.size(); i++) {
+                String name = i < header.size() ? header.get(i) : "#" + (i + 1);
+                fields.put(name, values.get(i));
+            }
+            if (values.size() != header.size()) {
+                fields.put("#columns", values.size() + " columns, header has " + header.size());
+            }
+            return new SourceRecord(start, fields, raw.toString());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // ------------------ Helper Methods ------------------
+
+    /** Reads one record into values/raw; false at end of input. */
+    private boolean readRecord() throws IOException {
+        values.clear();
+        field.setLength(0);
+        raw.setLength(0);
+
+        int c = read();
+        if (c < 0) return false;
+
+        boolean quoted = false;
+        boolean fieldStart = true;
+        while (c >= 0) {
+            if (quoted) {
+                if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        unread(next);
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && fieldStart) {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(field.toString());
+                field.setLength(0);
+                fieldStart = true;
+                c = read();
+                continue;
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r') {
+                    int next = read();
+                    if (next != '\n') unread(next);
+                }
+                break;
+            } else {
+                field.append((char) c);
+            }
+            fieldStart = false;
+            c = read();
+        }
+        values.add(field.toString());
+
+        // Raw text without the line break, for the error file
+        int end = raw.length();
+        while (end > 0 && (raw.charAt(end - 1) == '\n' || raw.charAt(end - 1) == '\r')) end--;
+        raw.setLength(end);
+        return true;
+    }
+
+    private int read() throws IOException {
+        int c;
+        if (pushedBack != -2) {
+            c = pushedBack;
+            pushedBack = -2;
+        } else {
+            c = in.read();
+        }
+        if (c >= 0) {
+            raw.append((char) c);
+            if (c == '\n') line++;
+        }
+        return c;
+    }
+
+    private void unread(int c) {
+        if (c < 0) return;
+        pushedBack = c;
+        raw.setLength(raw.length() - 1);
+        if (c == '\n') line--;
+    }
+}
@@ -0,0 +1,21 @@
+package com.libman.io;
+
+import java.nio.file.Path;
+
+/**
+ * Outcome of one table export. For borrow exports, watermark is the highest
+ * changeSeq written (or the starting watermark when nothing changed); pass it
+ * to the next incremental export. It is -1 for the other tables.
+ */
+public record ExportReport(String table, long rows, long bytes, long elapsedMillis, long watermark, Path file) {
+
+    public double rowsPerSecond() {
+        return elapsedMillis == 0 ? rows * 1000.0 : rows * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d rows, %d bytes in %d ms (%.0f rows/s)",
+                             table, rows, bytes, elapsedMillis, rowsPerSecond());
+    }
+}
@@ -0,0 +1,8 @@
+package com.libman.io;
+
+/** Progress callback, called on the importing thread after every committed chunk. */
+@FunctionalInterface
+public interface ImportListener {
+
+    void progress(long read, long imported, long rejected, double rowsPerSecond);
+}
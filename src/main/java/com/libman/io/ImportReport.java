@@ -0,0 +1,18 @@
+package com.libman.io;
+
+import java.nio.file.Path;
+
+/** Outcome of one catalog import. */
+public record ImportReport(long read, long imported, long rejected, long elapsedMillis, Path errorFile) {
+
+    /** Records read per second over the whole import. */
+    public double rowsPerSecond() {
+        return elapsedMillis == 0 ? read * 1000.0 : read * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d read, %d imported, %d rejected in %d ms (%.0f rows/s)",
+                             read, imported, rejected, elapsedMillis, rowsPerSecond());
+    }
+}
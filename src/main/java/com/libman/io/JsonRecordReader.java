@@ -0,0 +1,173 @@
+package com.libman.io;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streaming reader for a JSON array of flat objects, or for newline-delimited
+ * objects (one per line). Values must be strings, numbers, booleans or null;
+ * each object is parsed on its own, so the file is never held in memory.
+ * Malformed JSON cannot be resynchronised and fails the whole read.
+ */
+final class JsonRecordReader implements RecordReader {
+
+    private final Reader in;
+    private final StringBuilder raw = new StringBuilder();
+    private final StringBuilder text = new StringBuilder();
+    private boolean capturing;
+    private long line = 1;
+    private int pushedBack = -2;
+    private boolean started;
+    private boolean inArray;
+    private boolean finished;
+
+    JsonRecordReader(Reader in) {
+        this.in = in;
+    }
+
+    @Override
+    public SourceRecord next() throws IOException {
+        if (finished) return null;
+
+        int c = skipWhitespace();
+        if (!started) {
+            started = true;
+            if (c == '[') {
+                inArray = true;
+                c = skipWhitespace();
+                if (c == ']') return end();
+            }
+        } else if (inArray) {
+            if (c == ']') return end();
+            if (c != ',') throw error("expected ',' or ']'");
+            c = skipWhitespace();
+        }
+        if (c < 0) {
+            if (inArray) throw error("unterminated array");
+            return end();
+        }
+        if (c != '{') throw error("expected '{'");
+
+        long start = line;
+        raw.setLength(0);
+        raw.append('{');
+        capturing = true;
+        try {
+            return new SourceRecord(start, readObject(), raw.toString());
+        } finally {
+            capturing = false;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // ------------------ Helper Methods ------------------
+
+    private SourceRecord end() {
+        finished = true;
+        return null;
+    }
+
+    /** Members of an object whose '{' was just read. */
+    private Map<String, String> readObject() throws IOException {
+        Map<String, String> fields = new HashMap<>();
+        int c = skipWhitespace();
+        if (c == '}') return fields;
+
+        while (true) {
+            if (c != '"') throw error("expected a field name");
+            String name = readString().toLowerCase(Locale.ROOT);
+            if (skipWhitespace() != ':') throw error("expected ':'");
+            fields.put(name, readValue(skipWhitespace()));
+
+            c = skipWhitespace();
+            if (c == '}') return fields;
+            if (c != ',') throw error("expected ',' or '}'");
+            c = skipWhitespace();
+        }
+    }
+
+    /** A scalar value starting with c; numbers and literals are kept as their text, null as null. */
+    private String readValue(int c) throws IOException {
+        if (c == '"') return readString();
+        if (c == '{' || c == '[') throw error("nested objects and arrays are not supported");
+
+        text.setLength(0);
+        while (c >= 0 && c != ',' && c != '}' && c != ']' && !Character.isWhitespace(c)) {
+            text.append((char) c);
+            c = read();
+        }
+        unread(c);
+        String literal = text.toString();
+        if (literal.isEmpty()) throw error("expected a value");
+        return literal.equals("null") ? null : literal;
+    }
+
+    /** String body after its opening quote. */
+    private String readString() throws IOException {
+        text.setLength(0);
+        while (true) {
+            int c = read();
+            if (c < 0) throw error("unterminated string");
+            if (c == '"') return text.toString();
+            if (c != '\\') {
+                text.append((char) c);
+                continue;
+            }
+            c = read();
+            switch (c) {
+                case '"', '\\', '/' -> text.append((char) c);
+                case 'b' -> text.append('\b');
+                case 'f' -> text.append('\f');
+                case 'n' -> text.append('\n');
+                case 'r' -> text.append('\r');
+                case 't' -> text.append('\t');
+                case 'u' -> {
+                    int code = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(read(), 16);
+                        if (digit < 0) throw error("bad \\u escape");
+                        code = code * 16 + digit;
+                    }
+                    text.append((char) code);
+                }
+                default -> throw error("bad escape");
+            }
+        }
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c = read();
+        while (c >= 0 && Character.isWhitespace(c)) c = read();
+        return c;
+    }
+
+    private int read() throws IOException {
+        int c;
+        if (pushedBack != -2) {
+            c = pushedBack;
+            pushedBack = -2;
+        } else {
+            c = in.read();
+            if (c == '\n') line++;
+        }
+        if (capturing && c >= 0) raw.append((char) c);
+        return c;
+    }
+
+    private void unread(int c) {
+        if (c < 0) return;
+        pushedBack = c;
+        if (capturing) raw.setLength(raw.length() - 1);
+    }
+
+    private IOException error(String message) {
+        return new IOException("Malformed JSON at line " + line + ": " + message);
+    }
+}
@@ -0,0 +1,245 @@
+package com.libman.io;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.libman.dao.AppMetadata;
+import com.libman.dao.DatabaseManager;
+import com.libman.dao.UnitOfWork;
+
+/**
+ * Streaming export of the catalog, members and borrows to CSV or JSON.
+ *
+ * Each table is read with one query on a reader connection and written row by
+ * row through a {@link ChannelWriter}; no row outlives its own write, so memory
+ * stays flat for any table size, and the single query gives a consistent
+ * snapshot of the table. {@link #exportAll} runs the tables in parallel, each on
+ * its own reader connection.
+ *
+ * Borrow exports can be incremental: every insert or update stamps the row
+ * with a rising changeSeq (schema V8), and {@link #exportBorrowChanges} writes
+ * only rows stamped after the watermark recorded by its previous run. Deleted
+ * borrows leave no row to export; a full export picks them up.
+ *
+ * CSV files have a header row. JSON files hold one array of flat objects. The
+ * catalog columns use the importer's field names, so an export can be imported
+ * again with {@link CatalogImporter}.
+ */
+public class LibraryExporter {
+
+    public enum Table {
+        DOCUMENTS("documents",
+            "SELECT d.id_doc, "
+            + "CASE WHEN bk.id_doc IS NOT NULL THEN 'book' WHEN mg.id_doc IS NOT NULL THEN 'magazine' END AS type, "
+            + "d.title, d.author, d.genre, bk.isbn, bk.pageNumber, mg.number, mg.periodicity, d.activeLoans "
+            + "FROM Document d "
+            + "LEFT JOIN Book bk ON bk.id_doc = d.id_doc LEFT JOIN Magazine mg ON mg.id_doc = d.id_doc "
+            + "ORDER BY d.id_doc"),
+        MEMBERS("members",
+            "SELECT idMember, name, surname, PenaltyStatus FROM Member ORDER BY idMember"),
+        // Served by idx_borrow_change, in change order
+        BORROWS("borrows",
+            "SELECT id, id_doc, idMember, borrowDate, expectedReturnDate, returnDate, changeSeq "
+            + "FROM Borrow WHERE changeSeq > ? ORDER BY changeSeq");
+
+        private final String fileName;
+        private final String sql;
+
+        Table(String fileName, String sql) {
+            this.fileName = fileName;
+            this.sql = sql;
+        }
+    }
+
+    public enum Format {
+        CSV(".csv"), JSON(".json");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+    }
+
+    // app_metadata key holding the changeSeq reached by the last exportBorrowChanges
+    static final String BORROW_WATERMARK = "export.borrows.watermark";
+
+    /** Full export of one table. */
+    public ExportReport export(Table table, Path file, Format format) throws IOException, SQLException {
+        return write(table, file, format, -1);
+    }
+
+    /** Borrows inserted or updated after the given changeSeq; -1 exports every borrow. */
+    public ExportReport exportBorrowsSince(long watermark, Path file, Format format) throws IOException, SQLException {
+        return write(Table.BORROWS, file, format, watermark);
+    }
+
+    /**
+     * Borrows changed since the previous call (all of them the first time). The
+     * new watermark is recorded only after the file is safely on disk, so a
+     * failed run is simply repeated by the next one.
+     */
+    public ExportReport exportBorrowChanges(Path file, Format format) throws IOException, SQLException {
+        String stored;
+        try (Connection conn = DatabaseManager.getReadConnection()) {
+            stored = AppMetadata.get(conn, BORROW_WATERMARK);
+        }
+        ExportReport report = exportBorrowsSince(stored != null ? Long.parseLong(stored) : -1, file, format);
+        UnitOfWork.run(() -> {
+            try (Connection conn = DatabaseManager.getWriteConnection()) {
+                AppMetadata.put(conn, BORROW_WATERMARK, Long.toString(report.watermark()));
+            }
+        });
+        return report;
+    }
+
+    /** Full export of every table into the directory (documents.csv, members.csv, borrows.csv...), in parallel. */
+    public List<ExportReport> exportAll(Path directory, Format format) throws IOException, SQLException {
+        Table[] tables = Table.values();
+        ExecutorService executor = Executors.newFixedThreadPool(tables.length);
+        try {
+            List<Future<ExportReport>> running = new ArrayList<>();
+            for (Table table : tables) {
+                Path file = directory.resolve(table.fileName + format.extension);
+                running.add(executor.submit(() -> export(table, file, format)));
+            }
+
+            List<ExportReport> reports = new ArrayList<>();
+            for (Future<ExportReport> future : running) {
+                reports.add(await(future));
+            }
+            return reports;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // ------------------ Helper Methods ------------------
+
+    private static ExportReport write(Table table, Path file, Format format, long watermark)
+            throws IOException, SQLException {
+        long start = System.nanoTime();
+        long rows = 0;
+        long highWater = watermark;
+
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(table.sql);
+             ChannelWriter out = new ChannelWriter(file)) {
+            stmt.setFetchSize(DatabaseManager.getFetchSize());
+            if (table == Table.BORROWS) stmt.setLong(1, watermark);
+
+            ResultSet rs = stmt.executeQuery();
+            ResultSetMetaData meta = rs.getMetaData();
+            String[] columns = new String[meta.getColumnCount()];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = meta.getColumnLabel(i + 1);
+            }
+
+            int changeSeq = table == Table.BORROWS ? rs.findColumn("changeSeq") : 0;
+
+            StringBuilder line = new StringBuilder(256);
+            if (format == Format.CSV) {
+                for (int i = 0; i < columns.length; i++) {
+                    if (i > 0) line.append(',');
+                    line.append(Csv.field(columns[i]));
+                }
+                out.write(line.append('\n'));
+            } else {
+                out.write('[');
+            }
+
+            while (rs.next()) {
+                line.setLength(0);
+                if (format == Format.CSV) {
+                    appendCsvRow(line, rs, columns.length);
+                    line.append('\n');
+                } else {
+                    line.append(rows > 0 ? ",\n" : "\n");
+                    appendJsonRow(line, rs, columns);
+                }
+                out.write(line);
+                rows++;
+                if (table == Table.BORROWS) highWater = Math.max(highWater, rs.getLong(changeSeq));
+            }
+
+            if (format == Format.JSON) out.write("\n]\n");
+            out.sync();
+
+            return new ExportReport(table.fileName, rows, out.size(), (System.nanoTime() - start) / 1_000_000,
+                                    table == Table.BORROWS ? highWater : -1, file);
+        }
+    }
+
+    private static void appendCsvRow(StringBuilder line, ResultSet rs, int columnCount) throws SQLException {
+        for (int i = 1; i <= columnCount; i++) {
+            if (i > 1) line.append(',');
+            line.append(Csv.field(rs.getString(i)));
+        }
+    }
+
+    private static void appendJsonRow(StringBuilder line, ResultSet rs, String[] columns) throws SQLException {
+        line.append('{');
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) line.append(',');
+            appendJsonString(line, columns[i]);
+            line.append(':');
+
+            Object value = rs.getObject(i + 1);
+            if (value == null) {
+                line.append("null");
+            } else if (value instanceof Number) {
+                line.append(value);
+            } else {
+                appendJsonString(line, value.toString());
+            }
+        }
+        line.append('}');
+    }
+
+    private static void appendJsonString(StringBuilder line, String value) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+        line.append('"');
+    }
+
+    private static ExportReport await(Future<ExportReport> future) throws IOException, SQLException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof SQLException sql) throw sql;
+            throw new RuntimeException("Export failed: " + cause.getMessage(), cause);
+        }
+    }
+}
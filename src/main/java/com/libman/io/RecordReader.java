@@ -0,0 +1,11 @@
+package com.libman.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/** Pull parser over an import file; holds one record in memory at a time. */
+interface RecordReader extends Closeable {
+
+    /** Next record, or null at the end of the input. */
+    SourceRecord next() throws IOException;
+}
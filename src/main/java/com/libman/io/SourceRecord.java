@@ -0,0 +1,25 @@
+package com.libman.io;
+
+import java.util.Map;
+
+/** One parsed input record: its fields by lower-cased name, where it started, and its original text. */
+final class SourceRecord {
+
+    final long line;
+    final Map<String, String> fields;
+    final String raw;
+
+    SourceRecord(long line, Map<String, String> fields, String raw) {
+        this.line = line;
+        this.fields = fields;
+        this.raw = raw;
+    }
+
+    /** Trimmed value, or null when the field is missing or blank. */
+    String get(String name) {
+        String value = fields.get(name);
+        if (value == null) return null;
+        value = value.trim();
+        return value.isEmpty() ? null : value;
+    }
+}
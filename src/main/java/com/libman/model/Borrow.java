@@ -2,7 +2,7 @@ package com.libman.model;
 import java.time.LocalDate;
 
 public class Borrow {
-    private String id;
+    private int id;         // Borrow.id (INTEGER PRIMARY KEY); 0 until inserted
     private int idDoc;      // Foreign key to Document
     private int idMember;   // Foreign key to Member
     private Document document;
@@ -29,8 +29,13 @@ public class Borrow {
         this.returnDate = null; 
     }
 
-    public String getId() { return id; }
-    public void setId(String id) { this.id = id; }
+    public int getId() { return id; }
+    public void setId(int id) { this.id = id; }
+
+    /** Id as shown to users, e.g. "BR007"; null before the borrow is saved. */
+    public String getDisplayId() {
+        return id > 0 ? String.format("BR%03d", id) : null;
+    }
 
     public int getIdDoc() { return idDoc; }
     public void setIdDoc(int idDoc) {
@@ -121,7 +126,7 @@ public class Borrow {
     @Override
     public String toString() {
         return "Borrow{" +
-                "id='" + id + '\'' +
+                "id=" + getDisplayId() +
                 ", idDoc=" + idDoc +
                 ", idMember=" + idMember +
                 ", book=" + (document != null ? document.getTitle() : "N/A") +
@@ -0,0 +1,180 @@
+package com.libman.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.libman.model.Document;
+import com.libman.model.Member;
+
+/**
+ * Prefix suggestions for document titles, authors and member names.
+ *
+ * Each field is a {@link PrefixIndex}; the last indexed values are remembered
+ * per document and member id, so re-indexing an edited record removes its old
+ * title or name even when the caller already changed the object. Members are
+ * found by "name surname" and by "surname name".
+ *
+ * Safe for concurrent use: lookups share a read lock, updates take the write lock.
+ */
+public class Autocomplete {
+
+    private final PrefixIndex titles = new PrefixIndex();
+    private final PrefixIndex authors = new PrefixIndex();
+    private final PrefixIndex members = new PrefixIndex();
+
+    // id -> {title, author} and id -> member as they were indexed
+    private final Map<Integer, String[]> documentTerms = new HashMap<>();
+    private final Map<Integer, Member> memberTerms = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Replaces the whole index. */
+    public void rebuild(Collection<? extends Document> documents, Collection<Member> allMembers) {
+        lock.writeLock().lock();
+        try {
+            titles.clear();
+            authors.clear();
+            members.clear();
+            documentTerms.clear();
+            memberTerms.clear();
+            // Append everything, then sort each index once instead of inserting in order
+            documents.forEach(document -> indexDocument(document, true));
+            allMembers.forEach(member -> indexMember(member, true));
+            titles.sort();
+            authors.sort();
+            members.sort();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Adds a document or replaces its previous title and author. */
+    public void putDocument(Document document) {
+        lock.writeLock().lock();
+        try {
+            unindexDocument(document.getIdDoc());
+            indexDocument(document, false);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeDocument(int idDoc) {
+        lock.writeLock().lock();
+        try {
+            unindexDocument(idDoc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Adds a member or replaces its previous name. */
+    public void putMember(Member member) {
+        lock.writeLock().lock();
+        try {
+            unindexMember(member.getIdMember());
+            indexMember(member, false);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeMember(int idMember) {
+        lock.writeLock().lock();
+        try {
+            unindexMember(idMember);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Up to {@code limit} distinct titles starting with the prefix, alphabetically. */
+    public List<String> completeTitles(String prefix, int limit) {
+        return completeTerms(titles, 0, prefix, limit);
+    }
+
+    /** Up to {@code limit} distinct authors starting with the prefix, alphabetically. */
+    public List<String> completeAuthors(String prefix, int limit) {
+        return completeTerms(authors, 1, prefix, limit);
+    }
+
+    /** Up to {@code limit} members whose "name surname" or "surname name" starts with the prefix. */
+    public List<Member> completeMembers(String prefix, int limit) {
+        Set<Member> result = new LinkedHashSet<>();
+        lock.readLock().lock();
+        try {
+            members.forEachWithPrefix(prefix, id -> {
+                result.add(memberTerms.get(id));
+                return result.size() < limit;
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new ArrayList<>(result);
+    }
+
+    // ------------------ Helper Methods ------------------
+
+    private List<String> completeTerms(PrefixIndex index, int term, String prefix, int limit) {
+        Set<String> result = new LinkedHashSet<>();
+        lock.readLock().lock();
+        try {
+            index.forEachWithPrefix(prefix, id -> {
+                result.add(documentTerms.get(id)[term].strip());
+                return result.size() < limit;
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new ArrayList<>(result);
+    }
+
+    private void indexDocument(Document document, boolean bulk) {
+        int id = document.getIdDoc();
+        String[] terms = {document.getTitle(), document.getAuthor()};
+        documentTerms.put(id, terms);
+        add(titles, terms[0], id, bulk);
+        add(authors, terms[1], id, bulk);
+    }
+
+    private void unindexDocument(int id) {
+        String[] terms = documentTerms.remove(id);
+        if (terms == null) return;
+        titles.remove(terms[0], id);
+        authors.remove(terms[1], id);
+    }
+
+    private void indexMember(Member member, boolean bulk) {
+        int id = member.getIdMember();
+        // Snapshot: later edits to the caller's object must not change what was indexed
+        Member snapshot = new Member(id, member.getName(), member.getSurname(), member.getPenaltyStatus());
+        memberTerms.put(id, snapshot);
+        add(members, fullName(member.getName(), member.getSurname()), id, bulk);
+        add(members, fullName(member.getSurname(), member.getName()), id, bulk);
+    }
+
+    private void unindexMember(int id) {
+        Member member = memberTerms.remove(id);
+        if (member == null) return;
+        members.remove(fullName(member.getName(), member.getSurname()), id);
+        members.remove(fullName(member.getSurname(), member.getName()), id);
+    }
+
+    private static void add(PrefixIndex index, String key, int id, boolean bulk) {
+        if (bulk) {
+            index.append(key, id);
+        } else {
+            index.add(key, id);
+        }
+    }
+
+    private static String fullName(String first, String second) {
+        return (first == null ? "" : first.strip()) + " " + (second == null ? "" : second.strip());
+    }
+}
@@ -0,0 +1,74 @@
+package com.libman.search;
+
+import java.util.Arrays;
+
+/**
+ * Sorted set of document ids backed by a plain int array.
+ *
+ * Ids mostly arrive in increasing order (new documents get the next id), so an
+ * add is usually an append; removals shift the tail.
+ */
+final class PostingList {
+
+    private int[] ids = new int[4];
+    private int size;
+
+    /** Adds the id if it is not present yet. */
+    void add(int id) {
+        int pos = size > 0 && ids[size - 1] < id ? -(size + 1) : Arrays.binarySearch(ids, 0, size, id);
+        if (pos >= 0) return;
+        pos = -(pos + 1);
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+        }
+        System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+        ids[pos] = id;
+        size++;
+    }
+
+    void remove(int id) {
+        int pos = Arrays.binarySearch(ids, 0, size, id);
+        if (pos < 0) return;
+        System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+        size--;
+        if (size < ids.length >> 2 && ids.length > 16) {
+            ids = Arrays.copyOf(ids, ids.length >> 1);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Copy of the ids, in increasing order. */
+    int[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    /**
+     * Keeps the entries of {@code sorted} (the first {@code count} of them) that are also in this list.
+     *
+     * @return the number of entries kept, compacted at the front of {@code sorted}
+     */
+    int retainAll(int[] sorted, int count) {
+        int kept = 0;
+        int i = 0;
+        int j = 0;
+        while (i < count && j < size) {
+            if (sorted[i] < ids[j]) {
+                i++;
+            } else if (sorted[i] > ids[j]) {
+                j++;
+            } else {
+                sorted[kept++] = sorted[i];
+                i++;
+                j++;
+            }
+        }
+        return kept;
+    }
+}
@@ -0,0 +1,126 @@
+package com.libman.search;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.IntPredicate;
+
+/**
+ * Sorted array of (key, id) pairs answering "keys starting with" lookups.
+ *
+ * Keys are stored lower-cased in two parallel arrays ordered by key then id, so
+ * a prefix is one binary search followed by a walk over the matching run.
+ * Not thread-safe; {@link Autocomplete} guards it.
+ */
+final class PrefixIndex {
+
+    private String[] keys = new String[16];
+    private int[] ids = new int[16];
+    private int size;
+
+    void add(String key, int id) {
+        if (key == null || key.isBlank()) return;
+        key = normalize(key);
+        int pos = find(key, id);
+        if (pos >= 0) return;
+        pos = -(pos + 1);
+        if (size == keys.length) {
+            int capacity = size + (size >> 1) + 1;
+            keys = Arrays.copyOf(keys, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+        }
+        System.arraycopy(keys, pos, keys, pos + 1, size - pos);
+        System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+        keys[pos] = key;
+        ids[pos] = id;
+        size++;
+    }
+
+    /** Bulk load: appends without keeping the order; call {@link #sort()} once done. */
+    void append(String key, int id) {
+        if (key == null || key.isBlank()) return;
+        if (size == keys.length) {
+            int capacity = size + (size >> 1) + 1;
+            keys = Arrays.copyOf(keys, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+        }
+        keys[size] = normalize(key);
+        ids[size] = id;
+        size++;
+    }
+
+    /** Restores the (key, id) order after {@link #append} and drops duplicate pairs. */
+    void sort() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> {
+            int cmp = keys[a].compareTo(keys[b]);
+            return cmp != 0 ? cmp : Integer.compare(ids[a], ids[b]);
+        });
+
+        String[] sortedKeys = new String[Math.max(size, 16)];
+        int[] sortedIds = new int[sortedKeys.length];
+        int count = 0;
+        for (int i : order) {
+            if (count > 0 && sortedIds[count - 1] == ids[i] && sortedKeys[count - 1].equals(keys[i])) continue;
+            sortedKeys[count] = keys[i];
+            sortedIds[count] = ids[i];
+            count++;
+        }
+        keys = sortedKeys;
+        ids = sortedIds;
+        size = count;
+    }
+
+    void remove(String key, int id) {
+        if (key == null || key.isBlank()) return;
+        int pos = find(normalize(key), id);
+        if (pos < 0) return;
+        System.arraycopy(keys, pos + 1, keys, pos, size - pos - 1);
+        System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+        keys[--size] = null;
+    }
+
+    void clear() {
+        keys = new String[16];
+        ids = new int[16];
+        size = 0;
+    }
+
+    /**
+     * Walks the ids of every key starting with the prefix, in key order, until
+     * the visitor returns false.
+     */
+    void forEachWithPrefix(String prefix, IntPredicate visitor) {
+        prefix = normalize(prefix);
+        if (prefix.isEmpty()) return;
+        int pos = find(prefix, Integer.MIN_VALUE);
+        for (int i = pos >= 0 ? pos : -(pos + 1); i < size && keys[i].startsWith(prefix); i++) {
+            if (!visitor.test(ids[i])) return;
+        }
+    }
+
+    // ------------------ Helper Methods ------------------
+
+    /** Binary search on (key, id); same contract as {@link Arrays#binarySearch}. */
+    private int find(String key, int id) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = keys[mid].compareTo(key);
+            if (cmp == 0) cmp = Integer.compare(ids[mid], id);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    static String normalize(String value) {
+        return value == null ? "" : value.strip().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,233 @@
+package com.libman.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.libman.model.Book;
+import com.libman.model.Document;
+
+/**
+ * In-memory trigram index over the catalog, for substring search without a query.
+ *
+ * Every field value is lower-cased and cut into overlapping three-character
+ * trigrams; each (field, trigram) pair keeps a sorted {@link PostingList} of
+ * document ids. A search intersects the lists of the query's trigrams, smallest
+ * first, then checks the few remaining candidates with {@code contains}, which
+ * gives exactly the "lower-case contains" semantics of the SQL search. Queries
+ * shorter than three characters scan the documents instead.
+ *
+ * Safe for concurrent use: searches share a read lock, updates take the write lock.
+ */
+public class TrigramIndex {
+
+    /** Indexed fields, in the order "All" searches report their hits. */
+    public enum Field {
+        TITLE, AUTHOR, GENRE, ISBN;
+
+        /** Fields searched for a search type ("All", "Title", "Author", "Genre", "ISBN"). */
+        public static Field[] forType(String type) {
+            if (type == null || type.equalsIgnoreCase("All")) return values();
+            for (Field field : values()) {
+                if (field.name().equalsIgnoreCase(type)) return new Field[] {field};
+            }
+            return new Field[0];
+        }
+    }
+
+    private static final int GRAM = 3;
+    private static final Field[] FIELDS = Field.values();
+
+    /** An indexed document and its lower-cased field values. */
+    private static final class Entry {
+        final Document document;
+        final String[] text;
+
+        Entry(Document document, String[] text) {
+            this.document = document;
+            this.text = text;
+        }
+    }
+
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final Map<Long, PostingList> postings = new HashMap<>();
+    private PostingList allIds = new PostingList();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Replaces the whole index with the given documents. */
+    public void rebuild(Collection<? extends Document> documents) {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            postings.clear();
+            allIds = new PostingList();
+            for (Document document : documents) {
+                index(document);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Adds a document, or re-indexes it after an update. Ids must be positive (database ids). */
+    public void put(Document document) {
+        lock.writeLock().lock();
+        try {
+            unindex(document.getIdDoc());
+            index(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int idDoc) {
+        lock.writeLock().lock();
+        try {
+            unindex(idDoc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Updates the availability shown on the indexed document after a checkout or return. */
+    public void setAvailability(int idDoc, boolean available) {
+        lock.readLock().lock();
+        try {
+            Entry entry = entries.get(idDoc);
+            if (entry != null) entry.document.setAvailability(available);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Documents whose field contains the query, ignoring case. Hits are grouped
+     * by field (title, author, genre, ISBN) and ordered by id within a field;
+     * a document matching several fields is reported once.
+     */
+    public List<Document> search(String type, String query) {
+        List<Document> results = new ArrayList<>();
+        if (query == null) return results;
+        String needle = query.toLowerCase(Locale.ROOT);
+
+        lock.readLock().lock();
+        try {
+            BitSet seen = new BitSet();
+            for (Field field : Field.forType(type)) {
+                int[] hits = needle.length() < GRAM ? scan(field, needle) : lookup(field, needle);
+                for (int id : hits) {
+                    if (!seen.get(id)) {
+                        seen.set(id);
+                        results.add(entries.get(id).document);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return results;
+    }
+
+    // ------------------ Helper Methods ------------------
+
+    private void index(Document document) {
+        int id = document.getIdDoc();
+        String[] text = new String[FIELDS.length];
+        text[Field.TITLE.ordinal()] = lower(document.getTitle());
+        text[Field.AUTHOR.ordinal()] = lower(document.getAuthor());
+        text[Field.GENRE.ordinal()] = lower(document.getGenre());
+        text[Field.ISBN.ordinal()] = document instanceof Book book ? lower(book.getIsbn()) : "";
+
+        entries.put(id, new Entry(document, text));
+        allIds.add(id);
+        for (Field field : FIELDS) {
+            String value = text[field.ordinal()];
+            for (int i = 0; i + GRAM <= value.length(); i++) {
+                postings.computeIfAbsent(key(field, value, i), k -> new PostingList()).add(id);
+            }
+        }
+    }
+
+    private void unindex(int id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) return;
+        allIds.remove(id);
+        for (Field field : FIELDS) {
+            String value = entry.text[field.ordinal()];
+            for (int i = 0; i + GRAM <= value.length(); i++) {
+                Long key = key(field, value, i);
+                PostingList list = postings.get(key);
+                if (list != null) {
+                    list.remove(id);
+                    if (list.isEmpty()) postings.remove(key);
+                }
+            }
+        }
+    }
+
+    /** Intersects the posting lists of every trigram in the query, then verifies the candidates. */
+    private int[] lookup(Field field, String needle) {
+        List<PostingList> lists = new ArrayList<>();
+        for (int i = 0; i + GRAM <= needle.length(); i++) {
+            PostingList list = postings.get(key(field, needle, i));
+            if (list == null) return new int[0];
+            lists.add(list);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+
+        int[] candidates = lists.get(0).toArray();
+        int count = candidates.length;
+        for (int i = 1; i < lists.size() && count > 0; i++) {
+            count = lists.get(i).retainAll(candidates, count);
+        }
+
+        // Trigrams present in any order is necessary, not sufficient
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (entries.get(candidates[i]).text[field.ordinal()].contains(needle)) {
+                candidates[kept++] = candidates[i];
+            }
+        }
+        return Arrays.copyOf(candidates, kept);
+    }
+
+    /** Linear scan for queries too short to form a trigram. */
+    private int[] scan(Field field, String needle) {
+        int[] ids = allIds.toArray();
+        int kept = 0;
+        for (int id : ids) {
+            if (entries.get(id).text[field.ordinal()].contains(needle)) {
+                ids[kept++] = id;
+            }
+        }
+        return Arrays.copyOf(ids, kept);
+    }
+
+    /** Field in the top bits, then the three UTF-16 chars of the trigram. */
+    private static Long key(Field field, String value, int start) {
+        return ((long) field.ordinal() << 48)
+                | ((long) value.charAt(start) << 32)
+                | ((long) value.charAt(start + 1) << 16)
+                | value.charAt(start + 2);
+    }
+
+    private static String lower(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,10 +1,17 @@
 package ui;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
 import javafx.stage.Stage;
 
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+
+import com.libman.dao.DatabaseManager;
+
 public class Main extends Application {
 
     @Override
@@ -14,6 +21,24 @@ public class Main extends Application {
         stage.setTitle("Library Manager");
         stage.setScene(scene);
         stage.show();
+
+        // The views open the database off the JavaFX thread; report its startup phases once it is open
+        CompletableFuture.runAsync(() -> {
+            try {
+                DatabaseManager.getPool();
+                System.out.println(DatabaseManager.getStartupTimings());
+            } catch (SQLException e) {
+                System.err.println("Database unavailable: " + e.getMessage());
+                Platform.runLater(() -> {
+                    Alert alert = new Alert(Alert.AlertType.ERROR);
+                    alert.setTitle("Database Error");
+                    alert.setHeaderText("The library database could not be opened");
+                    alert.setContentText(e.getMessage());
+                    alert.initOwner(stage);
+                    alert.showAndWait();
+                });
+            }
+        });
     }
 
     public static void main(String[] args) {
@@ -16,6 +16,9 @@ import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 public class BorrowsController {
 
@@ -36,6 +39,9 @@ public class BorrowsController {
     @FXML private ComboBox<String> historyFilterField;
 
     private LibraryManagerDAO manager;
+    private AsyncLibraryManager async;
+    private CompletableFuture<?> pendingRefresh;
+    private CompletableFuture<?> pendingStatistics;
     private Member selectedMember;
     private Document selectedDocument;
 
@@ -46,6 +52,7 @@ public class BorrowsController {
         BorrowDAO borrowDAO = new BorrowDAOImpl();
         MagazineDAO magazineDAO = new MagazineDAOImpl();
         manager = new LibraryManagerDAO(memberDAO, documentDAO, bookDAO, magazineDAO, borrowDAO);
+        async = new AsyncLibraryManager(manager);
     }
 
     @FXML
@@ -77,6 +84,23 @@ public class BorrowsController {
                 historyFilterField.getSelectionModel().selectFirst();
             }
 
+            // Suggestions while typing: titles, and members by name for the ID field
+            SuggestionMenu.attach(borrowDocTitleField,
+                    prefix -> async.completeTitles(prefix, SuggestionMenu.LIMIT),
+                    title -> title,
+                    title -> {
+                        borrowDocTitleField.setText(title);
+                        searchDocument();
+                    });
+            SuggestionMenu.attach(borrowMemberIdField,
+                    prefix -> prefix.chars().allMatch(Character::isDigit)
+                            ? null : async.completeMembers(prefix, SuggestionMenu.LIMIT),
+                    member -> member.getName() + " " + member.getSurname() + " (ID " + member.getIdMember() + ")",
+                    member -> {
+                        borrowMemberIdField.setText(String.valueOf(member.getIdMember()));
+                        searchMember();
+                    });
+
             // Defer heavy UI refresh to JavaFX thread to avoid FXML load ordering issues
             Platform.runLater(() -> {
                 try {
@@ -95,62 +119,78 @@ public class BorrowsController {
 
     @FXML
     private void searchMember() {
+        if (borrowMemberIdField == null) return;
+
+        String idText = borrowMemberIdField.getText().trim();
+        if (idText.isEmpty()) {
+            showAlert(Alert.AlertType.WARNING, "Input Required", "Please enter a member ID!");
+            return;
+        }
+
+        int memberId;
         try {
-            if (borrowMemberIdField == null) return;
+            memberId = Integer.parseInt(idText);
+        } catch (NumberFormatException e) {
+            showAlert(Alert.AlertType.ERROR, "Input Error", "Member ID must be a valid number!");
+            clearSelectedMember();
+            return;
+        }
 
-            String idText = borrowMemberIdField.getText().trim();
-            if (idText.isEmpty()) {
-                showAlert(Alert.AlertType.WARNING, "Input Required", "Please enter a member ID!");
+        async.searchMemberById(memberId).whenComplete((member, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                Throwable cause = unwrap(error);
+                if (cause instanceof MemberNotFoundException) {
+                    showAlert(Alert.AlertType.ERROR, "Not Found", "No member found with ID: " + memberId);
+                } else {
+                    showAlert(Alert.AlertType.ERROR, "Error", "Failed to search member: " + cause.getMessage());
+                }
+                clearSelectedMember();
                 return;
             }
 
-            int memberId = Integer.parseInt(idText);
-            selectedMember = manager.searchMemberById(memberId);
-
+            selectedMember = member;
             if (selectedMember != null && memberInfoLabel != null) {
                 memberInfoLabel.setText("✓ " + selectedMember.getName() + " " +
                         selectedMember.getSurname() + " (Status: " +
                         selectedMember.getPenaltyStatus().name() + ")");
                 memberInfoLabel.setStyle("-fx-font-size: 12px; -fx-text-fill: #48bb78; -fx-font-weight: bold;");
             }
+        }));
+    }
 
-        } catch (NumberFormatException e) {
-            showAlert(Alert.AlertType.ERROR, "Input Error", "Member ID must be a valid number!");
-            selectedMember = null;
-            if (memberInfoLabel != null) memberInfoLabel.setText("");
-        } catch (MemberNotFoundException e) {
-            showAlert(Alert.AlertType.ERROR, "Not Found", "No member found with ID: " + borrowMemberIdField.getText());
-            selectedMember = null;
-            if (memberInfoLabel != null) memberInfoLabel.setText("");
-        } catch (Exception e) {
-            showAlert(Alert.AlertType.ERROR, "Error", "Failed to search member: " + e.getMessage());
-            selectedMember = null;
-            if (memberInfoLabel != null) memberInfoLabel.setText("");
-        }
+    private void clearSelectedMember() {
+        selectedMember = null;
+        if (memberInfoLabel != null) memberInfoLabel.setText("");
     }
 
     @FXML
     private void searchDocument() {
-        try {
-            if (borrowDocTitleField == null) return;
+        if (borrowDocTitleField == null) return;
+
+        String title = borrowDocTitleField.getText().trim();
+        if (title.isEmpty()) {
+            showAlert(Alert.AlertType.WARNING, "Input Required", "Please enter a book title!");
+            return;
+        }
 
-            String title = borrowDocTitleField.getText().trim();
-            if (title.isEmpty()) {
-                showAlert(Alert.AlertType.WARNING, "Input Required", "Please enter a book title!");
+        async.getDocumentByTitle(title).whenComplete((document, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                Throwable cause = unwrap(error);
+                showAlert(Alert.AlertType.ERROR, "Error", "Failed to search document: " + cause.getMessage());
+                clearSelectedDocument();
+                cause.printStackTrace();
                 return;
             }
 
-            selectedDocument = manager.getDocumentByTitle(title);
-
+            selectedDocument = document;
             if (selectedDocument != null && documentInfoLabel != null) {
                 // Verify the document has a valid ID
                 if (selectedDocument.getIdDoc() <= 0) {
                     showAlert(Alert.AlertType.ERROR, "Error", "Document ID not found. Please try again.");
-                    selectedDocument = null;
-                    documentInfoLabel.setText("");
+                    clearSelectedDocument();
                     return;
                 }
-                
+
                 String availability = selectedDocument.isAvailable() ? "Available" : "Not Available";
                 documentInfoLabel.setText("✓ " + selectedDocument.getTitle() + " by " +
                         selectedDocument.getAuthor() + " (" + availability + ")");
@@ -160,18 +200,16 @@ public class BorrowsController {
                 } else {
                     documentInfoLabel.setStyle("-fx-font-size: 12px; -fx-text-fill: #ed8936; -fx-font-weight: bold;");
                 }
-            } else {
+            } else if (selectedDocument == null) {
                 showAlert(Alert.AlertType.ERROR, "Not Found", "No document found with title: " + title);
-                selectedDocument = null;
-                if (documentInfoLabel != null) documentInfoLabel.setText("");
+                clearSelectedDocument();
             }
+        }));
+    }
 
-        } catch (Exception e) {
-            showAlert(Alert.AlertType.ERROR, "Error", "Failed to search document: " + e.getMessage());
-            selectedDocument = null;
-            if (documentInfoLabel != null) documentInfoLabel.setText("");
-            e.printStackTrace();
-        }
+    private void clearSelectedDocument() {
+        selectedDocument = null;
+        if (documentInfoLabel != null) documentInfoLabel.setText("");
     }
 
     @FXML
@@ -205,55 +243,36 @@ public class BorrowsController {
                 return;
             }
 
-            // 2️⃣ Fetch persisted member and document via DAOs
-            Member persistedMember = manager.getMemberDAO().searchMemberById(selectedMember.getIdMember());
-            if (persistedMember == null) {
-                showAlert(Alert.AlertType.ERROR, "Database Error", "Selected member does not exist in the database!");
-                return;
-            }
-
-            Document persistedDocument = manager.getDocumentDAO().getDocumentById(selectedDocument.getIdDoc());
-            if (persistedDocument == null) {
-                showAlert(Alert.AlertType.ERROR, "Database Error", "Selected document does not exist in the database!");
-                return;
-            }
+            Member member = selectedMember;
+            Document document = selectedDocument;
+            LocalDate borrowDate = borrowDateField.getValue();
+            LocalDate expectedReturnDate = expectedReturnDateField.getValue();
+
+            // Validated and written by the manager through the write queue, off the JavaFX thread
+            async.addBorrow(member, document, borrowDate, expectedReturnDate)
+                    .whenComplete((added, error) -> Platform.runLater(() -> {
+                if (error != null) {
+                    Throwable cause = unwrap(error);
+                    if (cause instanceof BorrowException) {
+                        showAlert(Alert.AlertType.ERROR, "Borrow Error", cause.getMessage());
+                    } else {
+                        showAlert(Alert.AlertType.ERROR, "Error", "Failed to create borrow: " + cause.getMessage());
+                        cause.printStackTrace();
+                    }
+                    return;
+                }
 
-            // 3️⃣ Create Borrow object with proper dates and IDs
-            Borrow borrow = new Borrow(persistedDocument, persistedMember, borrowDateField.getValue());
-            borrow.setExpectedReturnDate(expectedReturnDateField.getValue());
-            borrow.setReturnDate(null);
-
-            // 4️⃣ Persist borrow via DAO
-            boolean success = manager.getBorrowDAO().addBorrow(borrow);
-
-            if (success) {
-                // Update document availability
-                persistedDocument.setAvailability(false);
-                manager.getDocumentDAO().updateDocument(persistedDocument);
-                
-                // Update member's borrow count
-                // Update member's borrow count
-                persistedMember.setNbBorrows(persistedMember.getNbBorrows() + 1);
-                manager.getMemberDAO().updateMember(
-                    persistedMember,
-                    persistedMember.getName(),
-                    persistedMember.getSurname(),
-                    persistedMember.getPenaltyStatus()
-                );
-                
                 showAlert(Alert.AlertType.INFORMATION, "Success",
                         "Document borrowed successfully!\n\n" +
-                                "Member: " + persistedMember.getName() + " " + persistedMember.getSurname() + "\n" +
-                                "Document: " + persistedDocument.getTitle() + "\n" +
-                                "Borrow Date: " + borrow.getBorrowDate() + "\n" +
-                                "Expected Return: " + borrow.getExpectedReturnDate());
+                                "Member: " + member.getName() + " " + member.getSurname() + "\n" +
+                                "Document: " + document.getTitle() + "\n" +
+                                "Borrow Date: " + borrowDate + "\n" +
+                                "Expected Return: " + expectedReturnDate);
 
                 clearFields();
                 refreshBorrows();
                 updateStatistics();
-            } else {
-                showAlert(Alert.AlertType.ERROR, "Database Error", "Failed to save borrow to database!");
-            }
+            }));
 
         } catch (BorrowException e) {
             showAlert(Alert.AlertType.ERROR, "Borrow Error", e.getMessage());
@@ -376,9 +395,20 @@ public class BorrowsController {
     }
 
     private void updateStatistics() {
+        CompletableFuture<List<Borrow>> current = async.getCurrentBorrows();
+        CompletableFuture<List<Borrow>> late = async.getLateBorrows();
+        CompletableFuture<Integer> returnedToday = async.getReturnedTodayCount();
+        pendingStatistics = load(pendingStatistics,
+                CompletableFuture.allOf(current, late, returnedToday),
+                done -> renderStatistics(current.join(), late.join(), returnedToday.join()),
+                error -> {
+                    error.printStackTrace();
+                    if (totalPenaltiesLabel != null) totalPenaltiesLabel.setText("$0.00");
+                });
+    }
+
+    private void renderStatistics(List<Borrow> currentBorrows, List<Borrow> lateBorrows, int returnedToday) {
         try {
-            List<Borrow> currentBorrows = manager.getCurrentBorrows();
-            List<Borrow> lateBorrows = manager.getLateBorrows();
 
             int activeCount = 0;
             if (currentBorrows != null) {
@@ -390,7 +420,7 @@ public class BorrowsController {
 
             if (overdueBorrowsLabel != null) overdueBorrowsLabel.setText(String.valueOf(lateBorrows == null ? 0 : lateBorrows.size()));
 
-            if (returnedTodayLabel != null) returnedTodayLabel.setText(String.valueOf(manager.getReturnedTodayCount()));
+            if (returnedTodayLabel != null) returnedTodayLabel.setText(String.valueOf(returnedToday));
 
             if (totalPenaltiesLabel != null) {
                 double totalPenalties = 0;
@@ -433,8 +463,14 @@ public class BorrowsController {
 
 @FXML
 private void refreshBorrows() {
+    pendingRefresh = load(pendingRefresh, async.getAllBorrows(), this::renderBorrows, error -> {
+        error.printStackTrace();
+        showAlert(Alert.AlertType.ERROR, "Error", "Failed to refresh borrows: " + error.getMessage());
+    });
+}
+
+private void renderBorrows(List<Borrow> allBorrows) {
     try {
-        List<Borrow> allBorrows = manager.getAllBorrows();
 
         // --- Active Borrows ---
         if (borrowsListView != null) {
@@ -652,9 +688,14 @@ private void returnBook(Borrow borrow) {
 
     confirm.showAndWait().ifPresent(response -> {
         if (response == ButtonType.OK) {
-            try {
-                // Use removeBorrow which sets returnDate
-                manager.removeBorrow(borrow);
+            // Use removeBorrow which sets returnDate; queued and committed off the JavaFX thread
+            async.removeBorrow(borrow).whenComplete((done, error) -> Platform.runLater(() -> {
+                if (error != null) {
+                    Throwable cause = unwrap(error);
+                    showAlert(Alert.AlertType.ERROR, "Error", "Failed to return document: " + cause.getMessage());
+                    cause.printStackTrace();
+                    return;
+                }
 
                 String successMsg = "Document returned successfully!";
                 if (daysLate > 0) {
@@ -665,11 +706,7 @@ private void returnBook(Borrow borrow) {
                 showAlert(Alert.AlertType.INFORMATION, "Success", successMsg);
                 refreshBorrows();
                 updateStatistics();
-
-            } catch (Exception e) {
-                showAlert(Alert.AlertType.ERROR, "Error", "Failed to return document: " + e.getMessage());
-                e.printStackTrace();
-            }
+            }));
         }
     });
 }
@@ -693,27 +730,53 @@ private void deleteBorrow(Borrow borrow) {
 
     confirm.showAndWait().ifPresent(response -> {
         if (response == deleteButton) {
-            try {
-                // Cast to BorrowDAOImpl to access deleteBorrow method
-                if (manager.getBorrowDAO() instanceof BorrowDAOImpl borrowDAOImpl) {
-                    borrowDAOImpl.deleteBorrow(borrow);
-                    showAlert(Alert.AlertType.INFORMATION, "Success", 
-                            "Borrow record deleted successfully!");
-                    refreshBorrows();
-                    updateStatistics();
-                } else {
-                    showAlert(Alert.AlertType.ERROR, "Error", 
-                            "Unable to access delete functionality.");
+            // Cast to BorrowDAOImpl to access deleteBorrow method
+            if (!(manager.getBorrowDAO() instanceof BorrowDAOImpl borrowDAOImpl)) {
+                showAlert(Alert.AlertType.ERROR, "Error",
+                        "Unable to access delete functionality.");
+                return;
+            }
+
+            async.run(() -> borrowDAOImpl.deleteBorrow(borrow)).whenComplete((done, error) -> Platform.runLater(() -> {
+                if (error != null) {
+                    Throwable cause = unwrap(error);
+                    showAlert(Alert.AlertType.ERROR, "Error",
+                            "Failed to delete borrow: " + cause.getMessage());
+                    cause.printStackTrace();
+                    return;
                 }
 
-            } catch (Exception e) {
-                showAlert(Alert.AlertType.ERROR, "Error", 
-                        "Failed to delete borrow: " + e.getMessage());
-                e.printStackTrace();
-            }
+                showAlert(Alert.AlertType.INFORMATION, "Success",
+                        "Borrow record deleted successfully!");
+                refreshBorrows();
+                updateStatistics();
+            }));
         }
     });
 }
 
     
-}
\ No newline at end of file
+
+/**
+ * Shows the result of a background load on the JavaFX thread and returns the new
+ * pending future. The previous load of the same kind is cancelled first, so a slow
+ * old result never replaces a newer one.
+ */
+private <T> CompletableFuture<T> load(CompletableFuture<?> previous, CompletableFuture<T> future,
+                                      Consumer<T> onLoaded, Consumer<Throwable> onError) {
+    if (previous != null) previous.cancel(true);
+    future.whenComplete((result, error) -> Platform.runLater(() -> {
+        if (future.isCancelled()) return;
+        if (error != null) {
+            onError.accept(unwrap(error));
+        } else {
+            onLoaded.accept(result);
+        }
+    }));
+    return future;
+}
+
+private static Throwable unwrap(Throwable error) {
+    return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+}
+}
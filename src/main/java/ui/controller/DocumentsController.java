@@ -1,5 +1,6 @@
 package ui.controller;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
@@ -12,8 +13,12 @@ import javafx.fxml.FXMLLoader;
 import com.libman.dao.*;
 import com.libman.model.*;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 public class DocumentsController {
 
@@ -25,8 +30,21 @@ public class DocumentsController {
     @FXML private Label availableDocsLabel;
     @FXML private Label borrowedDocsLabel;
     @FXML private Label genresCountLabel;
+    @FXML private ComboBox<String> sortField;
+    @FXML private Button previousPageButton;
+    @FXML private Button nextPageButton;
+
+    private static final int PAGE_SIZE = 50;
 
     private LibraryManagerDAO manager;
+    private AsyncLibraryManager async;
+    private CompletableFuture<?> pendingLoad;
+    private CompletableFuture<?> pendingStatistics;
+
+    // Keyset paging: start keys of the pages before the current one (null = first page)
+    private final List<Page.Key> previousStarts = new ArrayList<>();
+    private Page.Key currentStart;
+    private Page<Document> currentPage;
 
     public DocumentsController() {
         MemberDAO memberDAO = new MemberDAOImpl();
@@ -36,6 +54,7 @@ public class DocumentsController {
         BorrowDAO borrowDAO = new BorrowDAOImpl();
 
         manager = new LibraryManagerDAO(memberDAO, documentDAO, bookDAO, magazineDAO, borrowDAO);
+        async = new AsyncLibraryManager(manager);
     }
 
     @FXML
@@ -44,36 +63,26 @@ public class DocumentsController {
             searchTypeField.getItems().addAll("All", "Title", "Author", "Genre", "ISBN");
             searchTypeField.setValue("All");
         }
-
-        // Fetch all documents
-        List<Document> allDocs = manager.getAllDocuments();
-
-        // Update availability for each document based on borrow status
-        for (Document doc : allDocs) {
-            boolean isBorrowed = manager.isDocumentBorrowed(doc.getIdDoc());
-            doc.setAvailability(!isBorrowed);
-            addDocumentCard(doc);
+        if (sortField != null) {
+            sortField.getItems().addAll("Title", "Author", "Genre", "ID");
+            sortField.setValue("Title");
+            sortField.valueProperty().addListener((obs, oldSort, newSort) -> showAllDocuments());
         }
 
-        // Update labels
-        docCountLabel.setText("Showing " + allDocs.size() + " documents");
-        updateStatistics(allDocs);
+        showAllDocuments();
     }
 
     @FXML
     private void searchDocument() {
         String query = searchField.getText().trim();
         String type = searchTypeField.getValue();
-        documentsListView.getChildren().clear();
-
         if (query.isEmpty()) {
             showAllDocuments();
             return;
         }
 
-        List<Document> results;
-        try {
-            results = manager.searchDocuments(type, query);
+        load(async.searchDocuments(type, query), results -> {
+            documentsListView.getChildren().clear();
             if (results.isEmpty()) {
                 showAlert(Alert.AlertType.INFORMATION, "Not Found", "No document found matching: " + query);
                 docCountLabel.setText("Found: 0 documents");
@@ -81,35 +90,74 @@ public class DocumentsController {
             }
             results.forEach(this::addDocumentCard);
             docCountLabel.setText("Found: " + results.size() + " documents");
-        } catch (Exception e) {
-            showAlert(Alert.AlertType.ERROR, "Error", "Search failed: " + e.getMessage());
-        }
+            setPagingEnabled(false, false);
+        }, error -> showAlert(Alert.AlertType.ERROR, "Error", "Search failed: " + error.getMessage()));
     }
 
     @FXML
     private void showAllDocuments() {
+        previousStarts.clear();
+        currentStart = null;
+        refreshCurrentPage();
+    }
+
+    @FXML
+    private void nextPage() {
+        if (currentPage == null || !currentPage.hasMore()) return;
+        previousStarts.add(currentStart);
+        currentStart = currentPage.getNextKey();
+        loadCurrentPage();
+    }
+
+    @FXML
+    private void previousPage() {
+        if (previousStarts.isEmpty()) return;
+        currentStart = previousStarts.remove(previousStarts.size() - 1);
+        loadCurrentPage();
+    }
+
+    /** Reloads the page on screen and the statistics, e.g. after an add, edit or delete. */
+    private void refreshCurrentPage() {
+        loadCurrentPage();
+        updateStatistics();
+    }
+
+    private void loadCurrentPage() {
+        // Only PAGE_SIZE rows are read; availability comes with each row
+        load(async.getDocumentsPage(currentSort(), currentStart, PAGE_SIZE), this::renderPage,
+             error -> showAlert(Alert.AlertType.ERROR, "Error", "Failed to load documents: " + error.getMessage()));
+    }
+
+    private void renderPage(Page<Document> page) {
+        currentPage = page;
         documentsListView.getChildren().clear();
-        List<Document> allDocs = manager.getAllDocuments();
+        List<Document> docs = page.getItems();
 
-        if (allDocs.isEmpty()) {
+        if (docs.isEmpty() && previousStarts.isEmpty()) {
             Label placeholder = new Label("No documents available.\nAdd books or magazines to populate the catalog.");
             placeholder.setStyle("-fx-text-fill: #718096; -fx-font-size: 14px; -fx-padding: 20; -fx-text-alignment: center;");
             placeholder.setWrapText(true);
             documentsListView.getChildren().add(placeholder);
             docCountLabel.setText("Showing 0 documents");
-            updateStatistics(allDocs);  // pass empty list
+            setPagingEnabled(false, false);
             return;
         }
 
-        // Update availability for each document based on borrow status
-        for (Document doc : allDocs) {
-            boolean isBorrowed = manager.isDocumentBorrowed(doc.getIdDoc());
-            doc.setAvailability(!isBorrowed);
-            addDocumentCard(doc);
-        }
+        docs.forEach(this::addDocumentCard);
+
+        int first = previousStarts.size() * PAGE_SIZE + 1;
+        docCountLabel.setText("Showing " + first + "-" + (first + docs.size() - 1) + (page.hasMore() ? "" : " of " + (first + docs.size() - 1)));
+        setPagingEnabled(!previousStarts.isEmpty(), page.hasMore());
+    }
+
+    private DocumentSort currentSort() {
+        String sort = sortField == null ? null : sortField.getValue();
+        return sort == null ? DocumentSort.TITLE : DocumentSort.valueOf(sort.toUpperCase());
+    }
 
-        docCountLabel.setText("Showing " + allDocs.size() + " documents");
-        updateStatistics(allDocs);
+    private void setPagingEnabled(boolean previous, boolean next) {
+        if (previousPageButton != null) previousPageButton.setDisable(!previous);
+        if (nextPageButton != null) nextPageButton.setDisable(!next);
     }
 
     @FXML
@@ -219,8 +267,7 @@ public class DocumentsController {
 
                     int pages = Integer.parseInt(pagesStr);
                     Book book = new Book(title, author, genre, isbn, pages);
-                    manager.addBook(book);
-                    showAlert(Alert.AlertType.INFORMATION, "Success", "Book added successfully!");
+                    afterWrite(async.addBook(book), "Book added successfully!", "Failed to add document: ");
                 } else {
                     String numberStr = numberField.getText().trim();
                     String periodicity = periodicityCombo.getValue();
@@ -233,11 +280,8 @@ public class DocumentsController {
                     int number = Integer.parseInt(numberStr);
                     Magazine magazine = new Magazine(title, author, genre, number, 
                                                     Magazine.Periodicity.valueOf(periodicity));
-                    manager.addMagazine(magazine);
-                    showAlert(Alert.AlertType.INFORMATION, "Success", "Magazine added successfully!");
+                    afterWrite(async.addMagazine(magazine), "Magazine added successfully!", "Failed to add document: ");
                 }
-
-                showAllDocuments();
             } catch (NumberFormatException e) {
                 showAlert(Alert.AlertType.ERROR, "Validation Error", "Pages must be a valid number!");
             } catch (Exception e) {
@@ -402,8 +446,7 @@ public class DocumentsController {
                     book.setGenre(newGenre);
                     book.setIsbn(newIsbn);
                     book.setPageNumber(newPages);
-                    manager.updateBook(book);
-                    showAlert(Alert.AlertType.INFORMATION, "Success", "Book updated successfully!");
+                    afterWrite(async.updateBook(book), "Book updated successfully!", "Failed to update document: ");
                 } else if (doc instanceof Magazine) {
                     int newNumber = Integer.parseInt(numberField.getText().trim());
                     String newPeriodicity = periodicityCombo.getValue();
@@ -418,11 +461,8 @@ public class DocumentsController {
                     magazine.setGenre(newGenre);
                     magazine.setNumber(newNumber);
                     magazine.setPeriodicity(Magazine.Periodicity.valueOf(newPeriodicity));
-                    manager.updateMagazine(magazine);
-                    showAlert(Alert.AlertType.INFORMATION, "Success", "Magazine updated successfully!");
+                    afterWrite(async.updateMagazine(magazine), "Magazine updated successfully!", "Failed to update document: ");
                 }
-
-                showAllDocuments();
             } catch (NumberFormatException e) {
                 showAlert(Alert.AlertType.ERROR, "Validation Error", "Numeric fields must be valid numbers!");
             } catch (Exception e) {
@@ -439,29 +479,29 @@ public class DocumentsController {
 
         Optional<ButtonType> result = confirmAlert.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            try {
-                if (doc instanceof Book) {
-                    manager.deleteBook(((Book) doc).getIsbn());
-                    showAlert(Alert.AlertType.INFORMATION, "Success", "Book deleted successfully!");
-                } else if (doc instanceof Magazine) {
-                    manager.deleteMagazine(((Magazine) doc).getNumber());
-                    showAlert(Alert.AlertType.INFORMATION, "Success", "Magazine deleted successfully!");
-                }
-                showAllDocuments();
-            } catch (Exception e) {
-                showAlert(Alert.AlertType.ERROR, "Error", "Failed to delete document: " + e.getMessage());
+            if (doc instanceof Book) {
+                afterWrite(async.deleteBook(((Book) doc).getIsbn()), "Book deleted successfully!", "Failed to delete document: ");
+            } else if (doc instanceof Magazine) {
+                afterWrite(async.deleteMagazine(((Magazine) doc).getNumber()), "Magazine deleted successfully!", "Failed to delete document: ");
             }
         }
     }
 
-    private void updateStatistics(List<Document> allDocs) {
-        totalDocsLabel.setText(String.valueOf(allDocs.size()));
-        long availableCount = allDocs.stream().filter(Document::isAvailable).count();
-        long borrowedCount = allDocs.size() - availableCount;
-        
-        availableDocsLabel.setText(String.valueOf(availableCount));
-        borrowedDocsLabel.setText(String.valueOf(borrowedCount));
-        genresCountLabel.setText(String.valueOf(allDocs.stream().map(Document::getGenre).distinct().count()));
+    private void updateStatistics() {
+        if (pendingStatistics != null) pendingStatistics.cancel(true);
+        CompletableFuture<CatalogStats> stats = async.getCatalogStats();
+        pendingStatistics = stats;
+        stats.whenComplete((result, error) -> Platform.runLater(() -> {
+            if (stats.isCancelled()) return;
+            if (error != null) {
+                System.err.println("Failed to load catalog statistics: " + error.getMessage());
+                return;
+            }
+            totalDocsLabel.setText(String.valueOf(result.total()));
+            availableDocsLabel.setText(String.valueOf(result.available()));
+            borrowedDocsLabel.setText(String.valueOf(result.borrowed()));
+            genresCountLabel.setText(String.valueOf(result.genres()));
+        }));
     }
 
     @FXML
@@ -471,6 +511,36 @@ public class DocumentsController {
         stage.setScene(new Scene(loader.load()));
     }
 
+    /**
+     * Shows the result of a background load on the JavaFX thread. Starting a new
+     * load cancels the previous one, so a slow old result never replaces a newer list.
+     */
+    private <T> void load(CompletableFuture<T> future, Consumer<T> onLoaded, Consumer<Throwable> onError) {
+        if (pendingLoad != null) pendingLoad.cancel(true);
+        pendingLoad = future;
+        future.whenComplete((result, error) -> Platform.runLater(() -> {
+            if (future.isCancelled()) return;
+            if (error != null) {
+                onError.accept(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            } else {
+                onLoaded.accept(result);
+            }
+        }));
+    }
+
+    /** Reports a background write on the JavaFX thread and reloads the page once it has committed. */
+    private void afterWrite(CompletableFuture<Void> write, String success, String failure) {
+        write.whenComplete((done, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                showAlert(Alert.AlertType.ERROR, "Error", failure + cause.getMessage());
+                return;
+            }
+            showAlert(Alert.AlertType.INFORMATION, "Success", success);
+            refreshCurrentPage();
+        }));
+    }
+
     private void showAlert(Alert.AlertType type, String title, String content) {
         Alert alert = new Alert(type);
         alert.setTitle(title);
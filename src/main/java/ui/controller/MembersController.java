@@ -12,7 +12,12 @@ import com.libman.dao.*;
 import com.libman.model.*;
 import com.libman.exception.*;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 public class MembersController {
     @FXML private TextField memberNameField;
@@ -22,6 +27,11 @@ public class MembersController {
     @FXML private Label memberCountLabel;
 
     private LibraryManagerDAO manager;
+    private AsyncLibraryManager async;
+    private CompletableFuture<?> pendingLoad;
+
+    /** A member with the figures shown on its card, loaded off the JavaFX thread. */
+    private record MemberRow(Member member, int activeBorrows, double totalPenalty) {}
 
     public MembersController() {
         MemberDAO memberDAO = new MemberDAOImpl();
@@ -30,10 +40,19 @@ public class MembersController {
         BorrowDAO borrowDAO = new BorrowDAOImpl();
         MagazineDAO magazineDAO = new MagazineDAOImpl();
         manager = new LibraryManagerDAO(memberDAO, documentDAO, bookDAO, magazineDAO, borrowDAO);
+        async = new AsyncLibraryManager(manager);
     }
 
     @FXML
     public void initialize() {
+        SuggestionMenu.attach(searchField,
+                prefix -> prefix.chars().allMatch(Character::isDigit)
+                        ? null : async.completeMembers(prefix, SuggestionMenu.LIMIT),
+                member -> member.getName() + " " + member.getSurname() + " (ID " + member.getIdMember() + ")",
+                member -> {
+                    searchField.setText(String.valueOf(member.getIdMember()));
+                    searchMember();
+                });
         showAllMembers();
     }
 
@@ -48,16 +67,21 @@ public class MembersController {
                 return;
             }
 
-            int generatedId = manager.generateNextMemberId();
-            Member m = new Member(generatedId, name, surname, PenaltyStatus.NONE);
-            manager.addMember(m);
-
-            showAlert(Alert.AlertType.INFORMATION,
-                    "Member Added",
-                    "Member added successfully!\nAssigned ID: " + generatedId);
-
-            clearFields();
-            showAllMembers();
+            async.generateNextMemberId()
+                 .thenCompose(generatedId -> async.addMember(new Member(generatedId, name, surname, PenaltyStatus.NONE))
+                                                  .thenApply(done -> generatedId))
+                 .whenComplete((generatedId, error) -> Platform.runLater(() -> {
+                     if (error != null) {
+                         showAlert(Alert.AlertType.ERROR, "Error", "Failed to add member: " + rootMessage(error));
+                         return;
+                     }
+                     showAlert(Alert.AlertType.INFORMATION,
+                             "Member Added",
+                             "Member added successfully!\nAssigned ID: " + generatedId);
+
+                     clearFields();
+                     showAllMembers();
+                 }));
 
         } catch (Exception e) {
             showAlert(Alert.AlertType.ERROR, "Error", "Failed to add member: " + e.getMessage());
@@ -78,44 +102,47 @@ public class MembersController {
             return;
         }
 
-        membersListView.getChildren().clear();
-
+        // Try ID search, otherwise Name + Surname search
+        CompletableFuture<Member> search;
         try {
-            // Try ID search
-            try {
-                int id = Integer.parseInt(searchText);
-                Member member = manager.searchMemberById(id);
-                addMemberCard(member);
-                memberCountLabel.setText("Found: 1 member");
-                return;
-            } catch (NumberFormatException ignored) {}
-
-            // Try Name + Surname search
+            int id = Integer.parseInt(searchText);
+            search = async.searchMemberById(id);
+        } catch (NumberFormatException e) {
             String[] parts = searchText.split(" ");
             if (parts.length != 2) {
                 showAlert(Alert.AlertType.INFORMATION, "Search",
                         "Please enter both name AND surname (e.g., 'John Doe').");
                 return;
             }
+            search = async.searchMemberByName(parts[0], parts[1]);
+        }
 
-            Member member = manager.searchMemberByName(parts[0], parts[1]);
-            addMemberCard(member);
+        load(search.thenApply(member -> toRows(List.of(member))), rows -> {
+            membersListView.getChildren().clear();
+            rows.forEach(this::addMemberCard);
             memberCountLabel.setText("Found: 1 member");
-
-        } catch (MemberNotFoundException e) {
-            showAlert(Alert.AlertType.INFORMATION, "Not Found",
-                    "No member found matching: " + searchText);
-            memberCountLabel.setText("Found: 0 members");
-        } catch (Exception e) {
-            showAlert(Alert.AlertType.ERROR, "Error", "Search failed: " + e.getMessage());
-        }
+        }, error -> {
+            membersListView.getChildren().clear();
+            if (error instanceof MemberNotFoundException
+                    || error.getCause() instanceof MemberNotFoundException) {
+                showAlert(Alert.AlertType.INFORMATION, "Not Found",
+                        "No member found matching: " + searchText);
+                memberCountLabel.setText("Found: 0 members");
+            } else {
+                showAlert(Alert.AlertType.ERROR, "Error", "Search failed: " + error.getMessage());
+            }
+        });
     }
 
     @FXML
     private void showAllMembers() {
+        load(async.supply(() -> toRows(manager.getAllMembers())), this::renderMembers,
+             error -> showAlert(Alert.AlertType.ERROR, "Error", "Failed to load members: " + error.getMessage()));
+    }
+
+    private void renderMembers(List<MemberRow> members) {
         membersListView.getChildren().clear();
 
-        List<Member> members = manager.getAllMembers();
         if (members.isEmpty()) {
             Label placeholder = new Label("No members found.");
             placeholder.setStyle("-fx-font-size: 14px; -fx-text-fill: #888;");
@@ -124,13 +151,14 @@ public class MembersController {
             return;
         }
 
-        for (Member m : members) {
-            addMemberCard(m);
+        for (MemberRow row : members) {
+            addMemberCard(row);
         }
         memberCountLabel.setText("Total: " + members.size() + " members");
     }
 
-    private void addMemberCard(Member member) {
+    private void addMemberCard(MemberRow row) {
+        Member member = row.member();
         HBox card = new HBox(10);
         card.setAlignment(Pos.CENTER_LEFT);
         card.setStyle("-fx-background-color: white; -fx-padding: 15; -fx-background-radius: 8; " +
@@ -153,21 +181,11 @@ public class MembersController {
         statusLabel.setStyle("-fx-font-size: 12px; -fx-text-fill: " + getStatusColor(member.getPenaltyStatus()) +
                              "; -fx-font-weight: bold;");
 
-        // Safely compute borrows & penalty
-        int activeBorrows = 0;
-        double totalPenalty = 0;
-        try {
-            activeBorrows = manager.getActiveBorrowsCount(member.getIdMember());
-            totalPenalty = manager.getTotalPenaltyForMember(member.getIdMember());
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-
-        Label borrowsLabel = new Label(String.valueOf(activeBorrows));
+        Label borrowsLabel = new Label(String.valueOf(row.activeBorrows()));
         borrowsLabel.setPrefWidth(80);
         borrowsLabel.setStyle("-fx-font-size: 14px; -fx-text-fill: #2d3748;");
 
-        Label penaltyLabel = new Label("$" + String.format("%.2f", totalPenalty));
+        Label penaltyLabel = new Label("$" + String.format("%.2f", row.totalPenalty()));
         penaltyLabel.setPrefWidth(80);
         penaltyLabel.setStyle("-fx-font-size: 14px; -fx-text-fill: #ed8936; -fx-font-weight: bold;");
 
@@ -209,25 +227,27 @@ public class MembersController {
     }
 
     private void viewMemberDetails(Member member) {
-        try {
-            List<Borrow> history = manager.getMemberHistory(member);
-            int activeBorrows = manager.getActiveBorrowsCount(member.getIdMember());
-            double totalPenalty = manager.getTotalPenaltyForMember(member.getIdMember());
+        CompletableFuture<List<Borrow>> history = async.getMemberHistory(member);
+        CompletableFuture<Integer> activeBorrows = async.getActiveBorrowsCount(member.getIdMember());
+        CompletableFuture<Double> totalPenalty = async.getTotalPenaltyForMember(member.getIdMember());
+
+        CompletableFuture.allOf(history, activeBorrows, totalPenalty).whenComplete((done, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                showAlert(Alert.AlertType.ERROR, "Error", "Failed to fetch member details: " + rootMessage(error));
+                return;
+            }
 
             StringBuilder details = new StringBuilder();
             details.append("Member Details\n\n")
                    .append("ID: ").append(member.getIdMember()).append("\n")
                    .append("Name: ").append(member.getName()).append(" ").append(member.getSurname()).append("\n")
                    .append("Status: ").append(member.getPenaltyStatus().name()).append("\n")
-                   .append("Active Borrows: ").append(activeBorrows).append("\n")
-                   .append("Penalty: $").append(String.format("%.2f", totalPenalty)).append("\n\n")
-                   .append("Borrow History: ").append(history.size()).append(" items");
+                   .append("Active Borrows: ").append(activeBorrows.join()).append("\n")
+                   .append("Penalty: $").append(String.format("%.2f", totalPenalty.join())).append("\n\n")
+                   .append("Borrow History: ").append(history.join().size()).append(" items");
 
             showAlert(Alert.AlertType.INFORMATION, "Member Details", details.toString());
-
-        } catch (Exception e) {
-            showAlert(Alert.AlertType.ERROR, "Error", "Failed to fetch member details: " + e.getMessage());
-        }
+        }));
     }
 
     private void showEditMemberDialog(Member member) {
@@ -257,9 +277,15 @@ public class MembersController {
 
         dialog.showAndWait().ifPresent(result -> {
             if (result == ButtonType.OK) {
-                manager.updateMember(member, nameField.getText().trim(), surnameField.getText().trim(), statusBox.getValue());
-                showAlert(Alert.AlertType.INFORMATION, "Success", "Member modified successfully!");
-                Platform.runLater(this::showAllMembers);
+                async.updateMember(member, nameField.getText().trim(), surnameField.getText().trim(), statusBox.getValue())
+                     .whenComplete((done, error) -> Platform.runLater(() -> {
+                         if (error != null) {
+                             showAlert(Alert.AlertType.ERROR, "Error", "Failed to modify member: " + rootMessage(error));
+                             return;
+                         }
+                         showAlert(Alert.AlertType.INFORMATION, "Success", "Member modified successfully!");
+                         showAllMembers();
+                     }));
             }
         });
     }
@@ -273,15 +299,16 @@ public class MembersController {
 
         confirm.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
-                try {
-                    manager.deleteMember(member);
+                async.deleteMember(member).whenComplete((done, error) -> Platform.runLater(() -> {
+                    if (error != null) {
+                        showAlert(Alert.AlertType.ERROR, "Error", "Failed to delete member: " + rootMessage(error));
+                        return;
+                    }
                     showAlert(Alert.AlertType.INFORMATION,
                             "Deleted",
                             "Member '" + member.getName() + " " + member.getSurname() + "' was deleted.");
                     showAllMembers();
-                } catch (Exception e) {
-                    showAlert(Alert.AlertType.ERROR, "Error", "Failed to delete member: " + e.getMessage());
-                }
+                }));
             }
         });
     }
@@ -293,6 +320,41 @@ public class MembersController {
         stage.setScene(new Scene(loader.load()));
     }
 
+    // ---- Helper Methods ----
+
+    /** Computes each member's card figures from one grouped query; runs on the async executor. */
+    private List<MemberRow> toRows(List<Member> members) {
+        Map<Integer, MemberLoanStats> loans = manager.getMemberLoanStats();
+        List<MemberRow> rows = new ArrayList<>(members.size());
+        for (Member member : members) {
+            MemberLoanStats stats = loans.getOrDefault(member.getIdMember(), MemberLoanStats.NONE);
+            rows.add(new MemberRow(member, stats.activeBorrows(), stats.totalPenalty()));
+        }
+        return rows;
+    }
+
+    /**
+     * Shows the result of a background load on the JavaFX thread. Starting a new
+     * load cancels the previous one, so a slow old result never replaces a newer list.
+     */
+    private <T> void load(CompletableFuture<T> future, Consumer<T> onLoaded, Consumer<Throwable> onError) {
+        if (pendingLoad != null) pendingLoad.cancel(true);
+        pendingLoad = future;
+        future.whenComplete((result, error) -> Platform.runLater(() -> {
+            if (future.isCancelled()) return;
+            if (error != null) {
+                onError.accept(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            } else {
+                onLoaded.accept(result);
+            }
+        }));
+    }
+
+    private static String rootMessage(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause.getMessage();
+    }
+
     private void showAlert(Alert.AlertType type, String title, String content) {
         Alert alert = new Alert(type);
         alert.setTitle(title);
@@ -0,0 +1,97 @@
+package ui.controller;
+
+import javafx.application.Platform;
+import javafx.geometry.Side;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.TextField;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Drop-down of suggestions under a text field, refreshed while the user types.
+ *
+ * Suggestions come from the in-memory autocomplete index through
+ * {@link com.libman.dao.AsyncLibraryManager}; a keystroke cancels the previous
+ * lookup and answers for text that has changed since are dropped.
+ */
+final class SuggestionMenu<T> {
+
+    static final int LIMIT = 8;
+
+    private final TextField field;
+    private final Function<String, CompletableFuture<List<T>>> source;
+    private final Function<T, String> label;
+    private final Consumer<T> onSelect;
+    private final ContextMenu menu = new ContextMenu();
+    private CompletableFuture<List<T>> pending;
+    private boolean selecting;
+
+    private SuggestionMenu(TextField field, Function<String, CompletableFuture<List<T>>> source,
+                           Function<T, String> label, Consumer<T> onSelect) {
+        this.field = field;
+        this.source = source;
+        this.label = label;
+        this.onSelect = onSelect;
+    }
+
+    /**
+     * Shows suggestions for the field's text.
+     *
+     * @param source   lookup for the trimmed text; return null to show nothing for that text
+     * @param label    menu text of a suggestion
+     * @param onSelect called on the JavaFX thread when a suggestion is picked
+     */
+    static <T> void attach(TextField field, Function<String, CompletableFuture<List<T>>> source,
+                           Function<T, String> label, Consumer<T> onSelect) {
+        if (field == null) return;
+        SuggestionMenu<T> suggestions = new SuggestionMenu<>(field, source, label, onSelect);
+        field.textProperty().addListener((obs, oldText, newText) -> suggestions.refresh(newText));
+        field.focusedProperty().addListener((obs, wasFocused, focused) -> {
+            if (!focused) suggestions.menu.hide();
+        });
+    }
+
+    private void refresh(String text) {
+        if (selecting) return;
+        if (pending != null) pending.cancel(true);
+        pending = null;
+
+        String prefix = text == null ? "" : text.trim();
+        CompletableFuture<List<T>> lookup = prefix.isEmpty() ? null : source.apply(prefix);
+        if (lookup == null) {
+            menu.hide();
+            return;
+        }
+        pending = lookup;
+        lookup.thenAccept(items -> Platform.runLater(() -> {
+            if (pending == lookup && text.equals(field.getText())) show(items);
+        }));
+    }
+
+    private void show(List<T> items) {
+        menu.getItems().clear();
+        for (T item : items) {
+            MenuItem entry = new MenuItem(label.apply(item));
+            entry.setOnAction(e -> {
+                selecting = true;
+                try {
+                    onSelect.accept(item);
+                } finally {
+                    selecting = false;
+                }
+                menu.hide();
+            });
+            menu.getItems().add(entry);
+        }
+
+        if (items.isEmpty() || !field.isFocused()) {
+            menu.hide();
+        } else if (!menu.isShowing()) {
+            menu.show(field, Side.BOTTOM, 0, 0);
+        }
+    }
+}
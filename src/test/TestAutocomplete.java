@@ -0,0 +1,209 @@
+import com.libman.model.Book;
+import com.libman.model.Document;
+import com.libman.model.Magazine;
+import com.libman.model.Member;
+import com.libman.model.PenaltyStatus;
+import com.libman.search.Autocomplete;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Autocomplete: title, author and member suggestions must equal a brute-force
+ * scan (keys stripped and lower-cased, ordered by key then id, distinct, cut
+ * at the limit), after a rebuild and after incremental puts and removes,
+ * including records the caller edited before re-indexing them.
+ */
+public class TestAutocomplete {
+
+    // Leading/trailing spaces exercise strip(); mixed case exercises lower-casing
+    private static final String ALPHABET = "abcAB é";
+    private static final Random RANDOM = new Random(20261017L);
+
+    /** A (normalized key, id) pair, ordered like PrefixIndex. */
+    private record Key(String key, int id) {
+    }
+
+    private static final Comparator<Key> KEY_ORDER = Comparator.comparing(Key::key).thenComparingInt(Key::id);
+
+    public static void main(String[] args) {
+        Map<Integer, Document> documents = new TreeMap<>();
+        Map<Integer, Member> members = new TreeMap<>();
+        for (int id = 1; id <= 300; id++) {
+            documents.put(id, randomDocument(id));
+            members.put(id, randomMember(id));
+        }
+
+        Autocomplete autocomplete = new Autocomplete();
+        autocomplete.rebuild(documents.values(), members.values());
+        compareAll(autocomplete, documents, members, 2000);
+        System.out.println("✔ rebuild matches brute force");
+
+        int nextId = 301;
+        for (int round = 0; round < 400; round++) {
+            List<Integer> documentIds = new ArrayList<>(documents.keySet());
+            List<Integer> memberIds = new ArrayList<>(members.keySet());
+            switch (RANDOM.nextInt(6)) {
+                case 0 -> {
+                    int id = documentIds.get(RANDOM.nextInt(documentIds.size()));
+                    documents.remove(id);
+                    autocomplete.removeDocument(id);
+                }
+                case 1 -> {
+                    // Edit the indexed object in place: the old title must still be removed
+                    Document document = documents.get(documentIds.get(RANDOM.nextInt(documentIds.size())));
+                    document.setTitle(randomText());
+                    document.setAuthor(randomText());
+                    autocomplete.putDocument(document);
+                }
+                case 2 -> {
+                    Document added = randomDocument(nextId++);
+                    documents.put(added.getIdDoc(), added);
+                    autocomplete.putDocument(added);
+                }
+                case 3 -> {
+                    int id = memberIds.get(RANDOM.nextInt(memberIds.size()));
+                    members.remove(id);
+                    autocomplete.removeMember(id);
+                }
+                case 4 -> {
+                    Member member = members.get(memberIds.get(RANDOM.nextInt(memberIds.size())));
+                    member.setName(randomText());
+                    member.setSurname(randomText());
+                    autocomplete.putMember(member);
+                }
+                default -> {
+                    Member added = randomMember(nextId++);
+                    members.put(added.getIdMember(), added);
+                    autocomplete.putMember(added);
+                }
+            }
+        }
+        autocomplete.removeDocument(99999);
+        autocomplete.removeMember(99999);
+        compareAll(autocomplete, documents, members, 2000);
+        System.out.println("✔ incremental updates match brute force");
+
+        check(autocomplete.completeTitles("", 10).isEmpty(), "empty prefix suggests nothing");
+        check(autocomplete.completeTitles("   ", 10).isEmpty(), "blank prefix suggests nothing");
+        System.out.println("✔ TestAutocomplete passed");
+    }
+
+    private static void compareAll(Autocomplete autocomplete, Map<Integer, Document> documents,
+                                   Map<Integer, Member> members, int queries) {
+        for (int i = 0; i < queries; i++) {
+            String prefix = randomPrefix();
+            int limit = RANDOM.nextInt(4) == 0 ? 1000 : 1 + RANDOM.nextInt(8);
+
+            List<String> titles = autocomplete.completeTitles(prefix, limit);
+            List<String> expectedTitles = bruteForceTerms(documents, prefix, limit, true);
+            check(titles.equals(expectedTitles),
+                  "titles('" + prefix + "', " + limit + "): expected " + expectedTitles + " got " + titles);
+
+            List<String> authors = autocomplete.completeAuthors(prefix, limit);
+            List<String> expectedAuthors = bruteForceTerms(documents, prefix, limit, false);
+            check(authors.equals(expectedAuthors),
+                  "authors('" + prefix + "', " + limit + "): expected " + expectedAuthors + " got " + authors);
+
+            List<Integer> found = new ArrayList<>();
+            for (Member member : autocomplete.completeMembers(prefix, limit)) {
+                found.add(member.getIdMember());
+                Member current = members.get(member.getIdMember());
+                check(current != null && Objects.equals(member.getName(), current.getName())
+                              && Objects.equals(member.getSurname(), current.getSurname()),
+                      "suggested member shows the indexed name");
+            }
+            List<Integer> expectedMembers = bruteForceMembers(members, prefix, limit);
+            check(found.equals(expectedMembers),
+                  "members('" + prefix + "', " + limit + "): expected " + expectedMembers + " got " + found);
+        }
+    }
+
+    private static List<String> bruteForceTerms(Map<Integer, Document> documents, String prefix, int limit, boolean title) {
+        String needle = normalize(prefix);
+        Set<String> result = new LinkedHashSet<>();
+        if (needle.isEmpty()) return new ArrayList<>(result);
+        TreeSet<Key> keys = new TreeSet<>(KEY_ORDER);
+        for (Document document : documents.values()) {
+            String term = title ? document.getTitle() : document.getAuthor();
+            if (term != null && !term.isBlank()) keys.add(new Key(normalize(term), document.getIdDoc()));
+        }
+        for (Key key : keys) {
+            if (!key.key().startsWith(needle)) continue;
+            Document document = documents.get(key.id());
+            result.add((title ? document.getTitle() : document.getAuthor()).strip());
+            if (result.size() >= limit) break;
+        }
+        return new ArrayList<>(result);
+    }
+
+    /** Members matched by "name surname" or "surname name". */
+    private static List<Integer> bruteForceMembers(Map<Integer, Member> members, String prefix, int limit) {
+        String needle = normalize(prefix);
+        Set<Integer> result = new LinkedHashSet<>();
+        if (needle.isEmpty()) return new ArrayList<>(result);
+        TreeSet<Key> keys = new TreeSet<>(KEY_ORDER);
+        for (Member member : members.values()) {
+            String[] names = {fullName(member.getName(), member.getSurname()), fullName(member.getSurname(), member.getName())};
+            for (String name : names) {
+                if (!name.isBlank()) keys.add(new Key(normalize(name), member.getIdMember()));
+            }
+        }
+        for (Key key : keys) {
+            if (!key.key().startsWith(needle)) continue;
+            result.add(key.id());
+            if (result.size() >= limit) break;
+        }
+        return new ArrayList<>(result);
+    }
+
+    // ------------------ Helper Methods ------------------
+
+    private static Document randomDocument(int id) {
+        Document document = RANDOM.nextBoolean()
+                ? new Book(randomText(), randomText(), "Genre", "isbn-" + id, 100)
+                : new Magazine(randomText(), randomText(), "Genre", id, Magazine.Periodicity.WEEKLY);
+        document.setIdDoc(id);
+        return document;
+    }
+
+    private static Member randomMember(int id) {
+        return new Member(id, randomText(), randomText(), PenaltyStatus.NONE);
+    }
+
+    private static String randomText() {
+        if (RANDOM.nextInt(25) == 0) return null;
+        StringBuilder sb = new StringBuilder();
+        int length = RANDOM.nextInt(7);
+        for (int i = 0; i < length; i++) sb.append(ALPHABET.charAt(RANDOM.nextInt(ALPHABET.length())));
+        return sb.toString();
+    }
+
+    private static String randomPrefix() {
+        StringBuilder sb = new StringBuilder();
+        int length = RANDOM.nextInt(5);
+        for (int i = 0; i < length; i++) sb.append(ALPHABET.charAt(RANDOM.nextInt(ALPHABET.length())));
+        return sb.toString();
+    }
+
+    private static String fullName(String first, String second) {
+        return (first == null ? "" : first.strip()) + " " + (second == null ? "" : second.strip());
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.strip().toLowerCase(Locale.ROOT);
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) throw new AssertionError(message);
+    }
+}
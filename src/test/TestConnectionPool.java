@@ -0,0 +1,131 @@
+import com.libman.dao.ConnectionPool;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ConnectionPool: exhaustion, borrow timeout, reuse after release and
+ * same-thread re-entry. Runs against private in-memory databases.
+ */
+public class TestConnectionPool {
+
+    private static final long TIMEOUT_MS = 300;
+
+    public static void main(String[] args) throws Exception {
+        try (ConnectionPool pool = new ConnectionPool("test", () -> DriverManager.getConnection("jdbc:sqlite::memory:"),
+                                                      0, 2, TIMEOUT_MS, 0, 8)) {
+            exhaustionTimesOut(pool);
+            releaseUnblocksWaiter(pool);
+            nestedBorrowReusesConnection(pool);
+        }
+        System.out.println("✔ TestConnectionPool passed");
+    }
+
+    // Both connections held by other threads: a third borrow fails after the timeout, not before
+    private static void exhaustionTimesOut(ConnectionPool pool) throws Exception {
+        CountDownLatch held = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService holders = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 2; i++) {
+                holders.submit(() -> {
+                    Connection conn = pool.getConnection();
+                    try {
+                        held.countDown();
+                        release.await();
+                    } finally {
+                        conn.close();
+                    }
+                    return null;
+                });
+            }
+            check(held.await(5, TimeUnit.SECONDS), "holders got their connections");
+            check(pool.getActiveCount() == 2, "two connections active, got " + pool.getActiveCount());
+
+            long start = System.nanoTime();
+            try {
+                pool.getConnection().close();
+                throw new AssertionError("borrow from an exhausted pool succeeded");
+            } catch (SQLTimeoutException e) {
+                long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                check(waited >= TIMEOUT_MS - 20, "waited the borrow timeout, only " + waited + " ms");
+                check(waited < TIMEOUT_MS + 2000, "gave up soon after the timeout, waited " + waited + " ms");
+            }
+            System.out.println("✔ exhausted pool times out");
+        } finally {
+            release.countDown();
+            holders.shutdown();
+            holders.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        check(pool.getActiveCount() == 0, "connections returned, " + pool.getActiveCount() + " still active");
+        check(pool.getIdleCount() == 2, "returned connections are idle, got " + pool.getIdleCount());
+    }
+
+    // A waiter blocked on a full pool gets the connection as soon as one is closed
+    private static void releaseUnblocksWaiter(ConnectionPool pool) throws Exception {
+        Connection first = pool.getConnection();
+        ExecutorService others = Executors.newFixedThreadPool(2);
+        try {
+            CountDownLatch secondHeld = new CountDownLatch(1);
+            CountDownLatch releaseSecond = new CountDownLatch(1);
+            others.submit(() -> {
+                Connection conn = pool.getConnection();
+                try {
+                    secondHeld.countDown();
+                    releaseSecond.await();
+                } finally {
+                    conn.close();
+                }
+                return null;
+            });
+            check(secondHeld.await(5, TimeUnit.SECONDS), "second connection borrowed");
+
+            Future<Boolean> waiter = others.submit(() -> {
+                try (Connection conn = pool.getConnection()) {
+                    return conn.isValid(1);
+                }
+            });
+            Thread.sleep(TIMEOUT_MS / 3);
+            check(!waiter.isDone(), "waiter blocks while the pool is full");
+            first.close();
+            check(waiter.get(5, TimeUnit.SECONDS), "waiter got a valid connection after the release");
+            releaseSecond.countDown();
+            System.out.println("✔ release hands the connection to a waiter");
+        } finally {
+            others.shutdown();
+            others.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    // Nested borrows on one thread share the physical connection and take no extra permit
+    private static void nestedBorrowReusesConnection(ConnectionPool pool) throws SQLException {
+        try (Connection outer = pool.getConnection();
+             Connection inner = pool.getConnection()) {
+            check(pool.getActiveCount() == 1, "nested borrow takes no second connection");
+            outer.createStatement().execute("CREATE TEMP TABLE nested(x)");
+            // A temp table is visible only on the connection that created it
+            inner.createStatement().execute("INSERT INTO nested VALUES (1)");
+        }
+        check(pool.getActiveCount() == 0, "nested handles release the connection once");
+        try {
+            Connection closed = pool.getConnection();
+            closed.close();
+            closed.createStatement();
+            throw new AssertionError("a closed handle was still usable");
+        } catch (SQLException expected) {
+            // Handles are single-use
+        }
+        System.out.println("✔ nested borrows share one connection");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) throw new AssertionError(message);
+    }
+}
@@ -0,0 +1,121 @@
+import com.libman.dao.DatabaseManager;
+import com.libman.dao.IdAllocator;
+import com.libman.dao.MemberDAOImpl;
+import com.libman.dao.UnitOfWork;
+import com.libman.model.Member;
+import com.libman.model.PenaltyStatus;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * IdAllocator: ids stay unique across blocks, threads and restarts (a new
+ * allocator on the same sequence), skip rows inserted with explicit ids, and
+ * are not handed out twice after a reservation made in a rolled-back unit.
+ */
+public class TestIdAllocator {
+
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 250;
+
+    public static void main(String[] args) throws Exception {
+        File db = File.createTempFile("libman-ids", ".db");
+        db.deleteOnExit();
+        new File(db.getPath() + "-wal").deleteOnExit();
+        new File(db.getPath() + "-shm").deleteOnExit();
+        System.setProperty("libman.db.url", "jdbc:sqlite:" + db.getAbsolutePath());
+
+        try (Connection conn = DatabaseManager.getWriteConnection();
+             Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE widget (id INTEGER PRIMARY KEY)");
+        }
+
+        uniqueAcrossThreadsAndRestarts();
+        skipsExplicitIds();
+        rolledBackReservationIsKept();
+        System.out.println("✔ TestIdAllocator passed");
+    }
+
+    private static void uniqueAcrossThreadsAndRestarts() throws Exception {
+        IdAllocator allocator = new IdAllocator("widget", "widget", "id", 3);
+        Set<Long> ids = new HashSet<>();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<List<Long>>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                results.add(pool.submit(() -> {
+                    List<Long> mine = new ArrayList<>();
+                    for (int i = 0; i < IDS_PER_THREAD; i++) mine.add(allocator.next());
+                    return mine;
+                }));
+            }
+            for (Future<List<Long>> result : results) {
+                for (long id : result.get()) {
+                    check(id > 0, "ids are positive, got " + id);
+                    check(ids.add(id), "id " + id + " handed out twice");
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        check(ids.size() == THREADS * IDS_PER_THREAD, "every call got an id");
+        System.out.println("✔ " + ids.size() + " unique ids from " + THREADS + " threads, block size 3");
+
+        // A restart loses the unused rest of the block but never reuses an id
+        long highest = ids.stream().mapToLong(Long::longValue).max().orElse(0);
+        IdAllocator restarted = new IdAllocator("widget", "widget", "id", 3);
+        for (int i = 0; i < 10; i++) {
+            long id = restarted.next();
+            check(id > highest, "restarted allocator starts above " + highest + ", got " + id);
+            check(ids.add(id), "id " + id + " handed out twice after restart");
+        }
+        System.out.println("✔ restarted allocator only hands out higher ids");
+    }
+
+    private static void skipsExplicitIds() {
+        MemberDAOImpl memberDAO = new MemberDAOImpl();
+        IdAllocator allocator = new IdAllocator("member-test", "Member", "idMember", 5);
+        List<Integer> used = new ArrayList<>();
+        for (int i = 0; i < 5; i++) used.add(allocator.nextInt()); // uses up the first block
+        memberDAO.addMember(new Member(10_000, "Explicit", "Id", PenaltyStatus.NONE));
+
+        int id = allocator.nextInt();
+        check(id == 10_001, "next block starts past the explicit id, got " + id);
+        memberDAO.addMember(new Member(id, "Allocated", "Id", PenaltyStatus.NONE));
+        check(!used.contains(id), "no reuse of earlier ids");
+        System.out.println("✔ explicit ids are skipped");
+    }
+
+    private static void rolledBackReservationIsKept() throws Exception {
+        IdAllocator allocator = new IdAllocator("rollback", "widget", "id", 10);
+        List<Long> ids = new ArrayList<>();
+        try {
+            UnitOfWork.run(() -> {
+                ids.add(allocator.next()); // reserves a block inside the unit
+                throw new IllegalStateException("abort");
+            });
+        } catch (IllegalStateException expected) {
+            // The reservation is rolled back with the unit, then written again
+        }
+        for (int i = 0; i < 9; i++) ids.add(allocator.next()); // rest of the block, from memory
+
+        IdAllocator restarted = new IdAllocator("rollback", "widget", "id", 10);
+        for (int i = 0; i < 10; i++) ids.add(restarted.next());
+
+        Set<Long> unique = new HashSet<>(ids);
+        check(unique.size() == ids.size(), "no id handed out twice after the rollback: " + ids);
+        System.out.println("✔ reservation survives a rolled-back unit");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) throw new AssertionError(message);
+    }
+}
@@ -0,0 +1,180 @@
+import com.libman.dao.SchemaMigrator;
+
+import org.sqlite.SQLiteConfig;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+/**
+ * Migration V10: a database left at V9 with 'BRnnn' text Borrow ids is
+ * migrated to the latest version. Rows, numbers, loan counters and change
+ * stamps must survive, and the recreated triggers must keep working.
+ */
+public class TestMigrationV10 {
+
+    /** V9 loans; each borrowDate is unique, so it finds the row again after the migration. */
+    private static final String[][] BORROWS = {
+        // id,      borrowDate,   returnDate,   document
+        {"BR001",  "2024-01-01", null,         "1"},
+        {"BR010",  "2024-01-02", "2024-01-09", "1"},
+        {"BR7",    "2024-01-03", null,         "2"},
+        {"BR007",  "2024-01-04", null,         "2"}, // same number as BR7, inserted later
+        {"LEGACY-1", "2024-01-05", null,       "3"},
+        {null,     "2024-01-06", "2024-01-10", "3"},
+        {"BR",     "2024-01-07", null,         "1"},
+        {"BR0",    "2024-01-08", null,         "2"},
+        {"BR12x",  "2024-01-09", null,         "3"},
+    };
+
+    public static void main(String[] args) throws Exception {
+        File db = File.createTempFile("libman-v10", ".db");
+        db.deleteOnExit();
+        SQLiteConfig config = new SQLiteConfig();
+        config.enforceForeignKeys(true);
+
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + db.getAbsolutePath(), config.toProperties())) {
+            check(SchemaMigrator.migrate(conn, 9) == 9, "V1-V9 applied");
+            check(SchemaMigrator.currentVersion(conn) == 9, "database stopped at V9");
+            check(userVersion(conn) == 9, "user_version mirrors V9");
+            check(!SchemaMigrator.isUpToDate(conn), "V9 database is not up to date");
+
+            seedV9(conn);
+            Map<String, Long> changeSeqBefore = changeSeqByDate(conn);
+
+            int applied = SchemaMigrator.migrate(conn);
+            check(applied == SchemaMigrator.latestVersion() - 9, "remaining migrations applied, got " + applied);
+            check(SchemaMigrator.currentVersion(conn) == SchemaMigrator.latestVersion(), "schema at the latest version");
+            check(userVersion(conn) == SchemaMigrator.latestVersion(), "user_version mirrors the latest version");
+            check(SchemaMigrator.isUpToDate(conn), "migrated database is up to date");
+
+            Map<String, Long> ids = idsByDate(conn);
+            check(ids.size() == BORROWS.length, "every Borrow row kept, got " + ids.size());
+            check(ids.get("2024-01-01") == 1, "BR001 keeps number 1");
+            check(ids.get("2024-01-02") == 10, "BR010 keeps number 10");
+            check(ids.get("2024-01-03") == 7, "BR7, the first row with number 7, keeps it");
+
+            // Rows without a usable number follow every kept number, in their old order
+            String[] renumbered = {"2024-01-04", "2024-01-05", "2024-01-06", "2024-01-07", "2024-01-08", "2024-01-09"};
+            long previous = 10;
+            for (String date : renumbered) {
+                long id = ids.get(date);
+                check(id > previous, "row of " + date + " renumbered above " + previous + ", got " + id);
+                previous = id;
+            }
+            check(new HashSet<>(ids.values()).size() == ids.size(), "new ids are unique");
+            check(count(conn, "SELECT COUNT(*) FROM Borrow WHERE typeof(id) <> 'integer'") == 0, "all ids are integers");
+            check(changeSeqByDate(conn).equals(changeSeqBefore), "changeSeq stamps kept");
+
+            checkActiveLoans(conn);
+            check(foreignKeyProblems(conn) == 0, "foreign_key_check is clean");
+            System.out.println("✔ V9 'BRnnn' ids migrated");
+
+            triggersStillWork(conn, previous);
+        }
+        System.out.println("✔ TestMigrationV10 passed");
+    }
+
+    private static void seedV9(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute("INSERT INTO Document (id_doc, title, author, genre) VALUES "
+                    + "(1, 'Dune', 'Herbert', 'SF'), (2, 'Emma', 'Austen', 'Novel'), (3, 'Ulysses', 'Joyce', 'Novel')");
+            st.execute("INSERT INTO Member (idMember, name, surname, PenaltyStatus) VALUES (1, 'Ada', 'Byron', 0)");
+        }
+        // The V4 and V8 triggers maintain activeLoans and changeSeq as the old application did
+        String sql = "INSERT INTO Borrow (id, id_doc, idMember, borrowDate, expectedReturnDate, returnDate) "
+                + "VALUES (?, ?, 1, ?, '2024-02-01', ?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (String[] borrow : BORROWS) {
+                ps.setString(1, borrow[0]);
+                ps.setInt(2, Integer.parseInt(borrow[3]));
+                ps.setString(3, borrow[1]);
+                ps.setString(4, borrow[2]);
+                ps.executeUpdate();
+            }
+        }
+        check(count(conn, "SELECT COUNT(*) FROM Borrow") == BORROWS.length, "V9 rows inserted");
+        check(count(conn, "SELECT COUNT(*) FROM Borrow WHERE id IS NULL") == 1, "V9 table accepts a NULL text id");
+    }
+
+    private static void triggersStillWork(Connection conn, long highestId) throws SQLException {
+        long seqBefore = count(conn, "SELECT MAX(changeSeq) FROM Borrow");
+        long loansBefore = count(conn, "SELECT activeLoans FROM Document WHERE id_doc = 1");
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("INSERT INTO Borrow (id_doc, idMember, borrowDate, expectedReturnDate) "
+                    + "VALUES (1, 1, '2024-03-01', '2024-03-15')");
+        }
+        long id = count(conn, "SELECT id FROM Borrow WHERE borrowDate = '2024-03-01'");
+        check(id == highestId + 1, "new loan gets the next integer id, got " + id);
+        long seq = count(conn, "SELECT changeSeq FROM Borrow WHERE id = " + id);
+        check(seq == seqBefore + 1, "insert stamped with the next changeSeq, got " + seq);
+        check(count(conn, "SELECT activeLoans FROM Document WHERE id_doc = 1") == loansBefore + 1, "insert trigger counts the loan");
+
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("UPDATE Borrow SET returnDate = '2024-03-05' WHERE id = " + id);
+        }
+        check(count(conn, "SELECT changeSeq FROM Borrow WHERE id = " + id) == seq + 1, "update restamps changeSeq");
+        check(count(conn, "SELECT activeLoans FROM Document WHERE id_doc = 1") == loansBefore, "update trigger counts the return");
+        checkActiveLoans(conn);
+
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("DELETE FROM Borrow WHERE id = 1"); // BR001, still open
+        }
+        check(count(conn, "SELECT activeLoans FROM Document WHERE id_doc = 1") == loansBefore - 1, "delete trigger drops the loan");
+        checkActiveLoans(conn);
+        System.out.println("✔ recreated Borrow triggers work");
+    }
+
+    // ------------------ Helper Methods ------------------
+
+    private static void checkActiveLoans(Connection conn) throws SQLException {
+        long drift = count(conn, "SELECT COUNT(*) FROM Document d WHERE d.activeLoans <> "
+                + "(SELECT COUNT(*) FROM Borrow b WHERE b.id_doc = d.id_doc AND b.returnDate IS NULL)");
+        check(drift == 0, drift + " document(s) with a wrong activeLoans counter");
+    }
+
+    private static Map<String, Long> idsByDate(Connection conn) throws SQLException {
+        return longsByDate(conn, "SELECT borrowDate, id FROM Borrow");
+    }
+
+    private static Map<String, Long> changeSeqByDate(Connection conn) throws SQLException {
+        return longsByDate(conn, "SELECT borrowDate, changeSeq FROM Borrow");
+    }
+
+    private static Map<String, Long> longsByDate(Connection conn, String sql) throws SQLException {
+        Map<String, Long> values = new HashMap<>();
+        try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+            while (rs.next()) values.put(rs.getString(1), rs.getLong(2));
+        }
+        return values;
+    }
+
+    private static int foreignKeyProblems(Connection conn) throws SQLException {
+        int problems = 0;
+        try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery("PRAGMA foreign_key_check")) {
+            while (rs.next()) problems++;
+        }
+        return problems;
+    }
+
+    private static int userVersion(Connection conn) throws SQLException {
+        return (int) count(conn, "PRAGMA user_version");
+    }
+
+    private static long count(Connection conn, String sql) throws SQLException {
+        try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+            return rs.next() ? rs.getLong(1) : -1;
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) throw new AssertionError(message);
+    }
+}
@@ -0,0 +1,143 @@
+import com.libman.dao.CacheStats;
+import com.libman.dao.StatementCache;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * StatementCache: hit/miss/eviction counters, reuse of a parked statement,
+ * concurrent use of the same SQL and eviction of a statement still in use.
+ */
+public class TestStatementCache {
+
+    private static final String SELECT = "SELECT v FROM t WHERE k = ?";
+    private static final String COUNT = "SELECT COUNT(*) FROM t";
+    private static final String MAX = "SELECT MAX(k) FROM t";
+
+    public static void main(String[] args) throws Exception {
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite::memory:")) {
+            try (Statement st = conn.createStatement()) {
+                st.execute("CREATE TABLE t(k INTEGER PRIMARY KEY, v TEXT)");
+                st.execute("INSERT INTO t VALUES (1, 'one'), (2, 'two'), (3, 'three')");
+            }
+            hitAfterClose(conn);
+            sameSqlTwiceAtOnce(conn);
+            evictionOfLeastRecentlyUsed(conn);
+            disabledCache(conn);
+        }
+        System.out.println("✔ TestStatementCache passed");
+    }
+
+    // Closing a cached statement parks it; the next prepare is a hit and rebinds cleanly
+    private static void hitAfterClose(Connection conn) throws SQLException {
+        StatementCache cache = new StatementCache(conn, 4);
+        CacheStats globalBefore = StatementCache.getGlobalStats();
+
+        PreparedStatement first = cache.prepare(SELECT, Statement.NO_GENERATED_KEYS);
+        first.setInt(1, 1);
+        ResultSet left = first.executeQuery();
+        check(left.next() && left.getString(1).equals("one"), "first lookup reads row 1");
+        first.close(); // result set deliberately left open
+        check(left.isClosed(), "closing the statement closes its result sets");
+        check(first.isClosed(), "parked statement reports closed to its caller");
+        try {
+            first.executeQuery();
+            throw new AssertionError("a parked statement was still usable through the old handle");
+        } catch (SQLException expected) {
+            // Closed for the caller that released it
+        }
+
+        try (PreparedStatement again = cache.prepare(SELECT, Statement.NO_GENERATED_KEYS)) {
+            again.setInt(1, 2);
+            try (ResultSet rs = again.executeQuery()) {
+                check(rs.next() && rs.getString(1).equals("two"), "reused statement reads row 2");
+            }
+        }
+
+        CacheStats stats = cache.getStats();
+        check(stats.getMisses() == 1, "one miss, got " + stats);
+        check(stats.getHits() == 1, "one hit, got " + stats);
+        check(cache.size() == 1, "one cached statement, got " + cache.size());
+
+        CacheStats globalAfter = StatementCache.getGlobalStats();
+        check(globalAfter.getHits() - globalBefore.getHits() == 1, "global hits include this cache");
+        check(globalAfter.getMisses() - globalBefore.getMisses() == 1, "global misses include this cache");
+        cache.closeAll();
+        System.out.println("✔ hit after close, rebinding works");
+    }
+
+    // A nested prepare of SQL that is already open gets its own uncached statement
+    private static void sameSqlTwiceAtOnce(Connection conn) throws SQLException {
+        StatementCache cache = new StatementCache(conn, 4);
+        try (PreparedStatement outer = cache.prepare(SELECT, Statement.NO_GENERATED_KEYS)) {
+            outer.setInt(1, 1);
+            try (ResultSet rs = outer.executeQuery()) {
+                check(rs.next(), "outer row read");
+                try (PreparedStatement inner = cache.prepare(SELECT, Statement.NO_GENERATED_KEYS)) {
+                    check(inner != outer, "nested prepare does not share the open statement");
+                    inner.setInt(1, 3);
+                    try (ResultSet innerRs = inner.executeQuery()) {
+                        check(innerRs.next() && innerRs.getString(1).equals("three"), "inner statement reads row 3");
+                    }
+                }
+                check(rs.getString(1).equals("one"), "outer result set untouched by the inner statement");
+            }
+        }
+        CacheStats stats = cache.getStats();
+        check(stats.getMisses() == 1 && stats.getHits() == 0, "the uncached statement is not counted, got " + stats);
+        check(cache.size() == 1, "only the first statement is cached");
+        cache.closeAll();
+        System.out.println("✔ same SQL twice at once");
+    }
+
+    // Capacity 2: a third SQL evicts the least recently used; an in-use victim keeps working until closed
+    private static void evictionOfLeastRecentlyUsed(Connection conn) throws SQLException {
+        StatementCache cache = new StatementCache(conn, 2);
+        PreparedStatement held = cache.prepare(SELECT, Statement.NO_GENERATED_KEYS);
+        cache.prepare(COUNT, Statement.NO_GENERATED_KEYS).close();
+        cache.prepare(MAX, Statement.NO_GENERATED_KEYS).close(); // evicts SELECT, the eldest
+
+        check(cache.getStats().getEvictions() == 1, "one eviction, got " + cache.getStats());
+        check(cache.size() == 2, "cache stays at capacity");
+        held.setInt(1, 2);
+        try (ResultSet rs = held.executeQuery()) {
+            check(rs.next() && rs.getString(1).equals("two"), "evicted statement still usable by its holder");
+        }
+        held.close();
+
+        try (PreparedStatement st = cache.prepare(SELECT, Statement.NO_GENERATED_KEYS)) {
+            st.setInt(1, 1);
+            try (ResultSet rs = st.executeQuery()) {
+                check(rs.next() && rs.getString(1).equals("one"), "re-prepared statement works");
+            }
+        }
+        CacheStats stats = cache.getStats();
+        check(stats.getMisses() == 4 && stats.getHits() == 0, "evicted SQL is a miss again, got " + stats);
+        check(stats.getEvictions() == 2, "re-preparing evicts the next eldest, got " + stats);
+        cache.closeAll();
+        check(cache.size() == 0, "closeAll empties the cache");
+        System.out.println("✔ LRU eviction");
+    }
+
+    // Capacity 0 turns caching off: plain statements, no counters
+    private static void disabledCache(Connection conn) throws SQLException {
+        StatementCache cache = new StatementCache(conn, 0);
+        for (int i = 0; i < 3; i++) {
+            try (PreparedStatement st = cache.prepare(COUNT, Statement.NO_GENERATED_KEYS);
+                 ResultSet rs = st.executeQuery()) {
+                check(rs.next() && rs.getInt(1) == 3, "count through an uncached statement");
+            }
+        }
+        CacheStats stats = cache.getStats();
+        check(stats.getHits() == 0 && stats.getMisses() == 0 && cache.size() == 0, "disabled cache records nothing");
+        System.out.println("✔ disabled cache");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) throw new AssertionError(message);
+    }
+}
@@ -0,0 +1,268 @@
+import com.libman.dao.BookDAOImpl;
+import com.libman.dao.BorrowDAOImpl;
+import com.libman.dao.DocumentDAOImpl;
+import com.libman.dao.LibraryManagerDAO;
+import com.libman.dao.MagazineDAOImpl;
+import com.libman.dao.MemberDAOImpl;
+import com.libman.dao.UnitOfWork;
+import com.libman.model.Book;
+import com.libman.model.Document;
+import com.libman.model.Magazine;
+import com.libman.search.TrigramIndex;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TrigramIndex: every search must return exactly what a brute-force
+ * "lower-case contains" scan returns, in the same order, after a rebuild and
+ * after incremental puts and removes. Also checks that the manager's index
+ * only picks up committed documents, including one committed while it rebuilds.
+ */
+public class TestTrigramIndex {
+
+    private static final String[] TYPES = {"All", "Title", "Author", "Genre", "ISBN", null, "Publisher"};
+    // Small alphabet so that random needles actually hit; mixed case and a non-ASCII letter
+    private static final String ALPHABET = "abcdeABCDE é-";
+    private static final Random RANDOM = new Random(20261017L);
+
+    public static void main(String[] args) throws Exception {
+        Map<Integer, Document> documents = new TreeMap<>();
+        for (int id = 1; id <= 400; id++) {
+            documents.put(id, randomDocument(id));
+        }
+
+        TrigramIndex index = new TrigramIndex();
+        index.rebuild(documents.values());
+        check(index.size() == documents.size(), "index holds every document");
+        compareAll(index, documents, 3000);
+        System.out.println("✔ rebuild matches brute force");
+
+        // Incremental changes: remove some, replace some, add new ones
+        int nextId = 401;
+        for (int round = 0; round < 300; round++) {
+            int action = RANDOM.nextInt(3);
+            List<Integer> ids = new ArrayList<>(documents.keySet());
+            if (action == 0 && !ids.isEmpty()) {
+                int id = ids.get(RANDOM.nextInt(ids.size()));
+                documents.remove(id);
+                index.remove(id);
+            } else if (action == 1 && !ids.isEmpty()) {
+                int id = ids.get(RANDOM.nextInt(ids.size()));
+                Document replacement = randomDocument(id);
+                documents.put(id, replacement);
+                index.put(replacement);
+            } else {
+                Document added = randomDocument(nextId++);
+                documents.put(added.getIdDoc(), added);
+                index.put(added);
+            }
+        }
+        index.remove(99999); // unknown id is a no-op
+        check(index.size() == documents.size(), "index size follows puts and removes");
+        compareAll(index, documents, 3000);
+        System.out.println("✔ incremental updates match brute force");
+
+        TrigramIndex rebuilt = new TrigramIndex();
+        rebuilt.rebuild(documents.values());
+        compareAll(rebuilt, documents, 500);
+        check(index.search("All", null).isEmpty(), "null query finds nothing");
+        System.out.println("✔ rebuild after updates matches brute force");
+
+        managerIndexSkipsRolledBackDocuments();
+        System.out.println("✔ TestTrigramIndex passed");
+    }
+
+    private static void compareAll(TrigramIndex index, Map<Integer, Document> documents, int queries) {
+        List<Document> all = new ArrayList<>(documents.values());
+        for (int i = 0; i < queries; i++) {
+            String query = randomQuery(all);
+            for (String type : TYPES) {
+                List<Integer> expected = bruteForce(documents, type, query);
+                List<Integer> actual = ids(index.search(type, query));
+                check(actual.equals(expected),
+                      "search(" + type + ", '" + query + "'): expected " + expected + " got " + actual);
+            }
+        }
+    }
+
+    /** Hits per field in forType order, ids ascending within a field, each document once. */
+    private static List<Integer> bruteForce(Map<Integer, Document> documents, String type, String query) {
+        String needle = query.toLowerCase(Locale.ROOT);
+        Set<Integer> hits = new LinkedHashSet<>();
+        for (TrigramIndex.Field field : TrigramIndex.Field.forType(type)) {
+            for (Document document : documents.values()) { // TreeMap: ascending ids
+                if (lower(value(document, field)).contains(needle)) hits.add(document.getIdDoc());
+            }
+        }
+        return new ArrayList<>(hits);
+    }
+
+    private static String value(Document document, TrigramIndex.Field field) {
+        switch (field) {
+            case TITLE: return document.getTitle();
+            case AUTHOR: return document.getAuthor();
+            case GENRE: return document.getGenre();
+            default: return document instanceof Book ? ((Book) document).getIsbn() : null;
+        }
+    }
+
+    private static void managerIndexSkipsRolledBackDocuments() throws Exception {
+        File db = File.createTempFile("libman-trigram", ".db");
+        db.deleteOnExit();
+        new File(db.getPath() + "-wal").deleteOnExit();
+        new File(db.getPath() + "-shm").deleteOnExit();
+        System.setProperty("libman.db.url", "jdbc:sqlite:" + db.getAbsolutePath());
+        System.setProperty("libman.search.inMemory", "true");
+
+        LibraryManagerDAO manager = new LibraryManagerDAO(new MemberDAOImpl(), new DocumentDAOImpl(),
+                new BookDAOImpl(), new MagazineDAOImpl(), new BorrowDAOImpl());
+        TrigramIndex index = manager.getSearchIndex();
+        check(index != null, "in-memory search enabled");
+        int before = index.size();
+
+        manager.addBook(new Book("Committed Quokka", "Author", "Genre", "978-0000000001", 100));
+        check(titles(manager.searchDocuments("Title", "quokka")).equals(List.of("Committed Quokka")),
+              "committed book is searchable");
+
+        try {
+            UnitOfWork.run(() -> {
+                manager.addBook(new Book("Rolled Back Quokka", "Author", "Genre", "978-0000000002", 100));
+                manager.addMagazine(new Magazine("Rolled Back Quokka Monthly", "Editor", "Genre", 7, Magazine.Periodicity.MONTHLY));
+                throw new IllegalStateException("abort");
+            });
+            throw new AssertionError("rollback was swallowed");
+        } catch (IllegalStateException expected) {
+            // Both inserts are rolled back
+        }
+        check(titles(manager.searchDocuments("Title", "quokka")).equals(List.of("Committed Quokka")),
+              "rolled-back documents are not in the index, got " + titles(manager.searchDocuments("Title", "quokka")));
+        check(index.size() == before + 1, "index size counts only the committed book");
+
+        UnitOfWork.run(() -> {
+            manager.addMagazine(new Magazine("Quokka Weekly", "Editor", "Genre", 8, Magazine.Periodicity.WEEKLY));
+            check(titles(manager.searchDocuments("Title", "quokka")).equals(List.of("Committed Quokka")),
+                  "uncommitted magazine is not visible yet");
+        });
+        check(titles(manager.searchDocuments("Title", "quokka")).equals(List.of("Committed Quokka", "Quokka Weekly")),
+              "magazine visible after commit");
+        System.out.println("✔ manager index only shows committed documents");
+
+        commitDuringRebuildIsKept(manager);
+    }
+
+    // The rebuild's snapshot is read before the book commits; the commit must still reach the index
+    private static void commitDuringRebuildIsKept(LibraryManagerDAO manager) throws Exception {
+        CountDownLatch snapshotRead = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        LibraryManagerDAO rebuilding = new LibraryManagerDAO(new MemberDAOImpl(), new DocumentDAOImpl(),
+                new BookDAOImpl(), new MagazineDAOImpl(), new BorrowDAOImpl()) {
+            @Override
+            public List<Document> getAllDocuments() {
+                List<Document> snapshot = super.getAllDocuments();
+                snapshotRead.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return snapshot;
+            }
+        };
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> rebuild = executor.submit(rebuilding::rebuildSearchIndex);
+            check(snapshotRead.await(5, TimeUnit.SECONDS), "rebuild read its snapshot");
+            manager.addBook(new Book("Quokka During Rebuild", "Author", "Genre", "978-0000000003", 100));
+            release.countDown();
+            rebuild.get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+        List<String> found = titles(manager.searchDocuments("Title", "during rebuild"));
+        check(found.equals(List.of("Quokka During Rebuild")), "book committed during the rebuild is found, got " + found);
+        System.out.println("✔ document committed during a rebuild is found");
+    }
+
+    // ------------------ Helper Methods ------------------
+
+    private static Document randomDocument(int id) {
+        Document document;
+        if (RANDOM.nextBoolean()) {
+            String isbn = RANDOM.nextInt(10) == 0 ? null : randomDigits(RANDOM.nextInt(14));
+            document = new Book(randomText(), randomText(), randomText(), isbn, 100);
+        } else {
+            document = new Magazine(randomText(), randomText(), randomText(), id, Magazine.Periodicity.MONTHLY);
+        }
+        document.setIdDoc(id);
+        return document;
+    }
+
+    private static String randomText() {
+        if (RANDOM.nextInt(20) == 0) return null;
+        StringBuilder sb = new StringBuilder();
+        int length = RANDOM.nextInt(12);
+        for (int i = 0; i < length; i++) sb.append(ALPHABET.charAt(RANDOM.nextInt(ALPHABET.length())));
+        return sb.toString();
+    }
+
+    private static String randomDigits(int length) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) sb.append((char) ('0' + RANDOM.nextInt(4)));
+        return sb.toString();
+    }
+
+    /** Half the time a substring of an indexed value (so there are hits), otherwise random, 0-5 chars. */
+    private static String randomQuery(List<Document> documents) {
+        if (!documents.isEmpty() && RANDOM.nextBoolean()) {
+            Document document = documents.get(RANDOM.nextInt(documents.size()));
+            TrigramIndex.Field field = TrigramIndex.Field.values()[RANDOM.nextInt(4)];
+            String value = value(document, field);
+            if (value != null && !value.isEmpty()) {
+                int start = RANDOM.nextInt(value.length());
+                int end = Math.min(value.length(), start + 1 + RANDOM.nextInt(5));
+                String query = value.substring(start, end);
+                return RANDOM.nextBoolean() ? query.toUpperCase(Locale.ROOT) : query;
+            }
+        }
+        String source = RANDOM.nextBoolean() ? ALPHABET : "0123";
+        StringBuilder sb = new StringBuilder();
+        int length = RANDOM.nextInt(6);
+        for (int i = 0; i < length; i++) sb.append(source.charAt(RANDOM.nextInt(source.length())));
+        return sb.toString();
+    }
+
+    private static List<Integer> ids(List<Document> documents) {
+        List<Integer> ids = new ArrayList<>();
+        for (Document document : documents) ids.add(document.getIdDoc());
+        return ids;
+    }
+
+    private static List<String> titles(List<Document> documents) {
+        List<String> titles = new ArrayList<>();
+        for (Document document : documents) titles.add(document.getTitle());
+        return titles;
+    }
+
+    private static String lower(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) throw new AssertionError(message);
+    }
+}
@@ -0,0 +1,133 @@
+import com.libman.dao.DatabaseManager;
+import com.libman.dao.UnitOfWork;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * UnitOfWork: nested units run in savepoints, so a failing inner unit rolls
+ * back only its own rows while a failing outer unit rolls back everything.
+ * Uses a scratch table in a temporary database.
+ */
+public class TestUnitOfWork {
+
+    public static void main(String[] args) throws Exception {
+        File db = File.createTempFile("libman-uow", ".db");
+        db.deleteOnExit();
+        new File(db.getPath() + "-wal").deleteOnExit();
+        new File(db.getPath() + "-shm").deleteOnExit();
+        System.setProperty("libman.db.url", "jdbc:sqlite:" + db.getAbsolutePath());
+
+        UnitOfWork.run(() -> {
+            try (Connection conn = DatabaseManager.getWriteConnection();
+                 Statement st = conn.createStatement()) {
+                st.execute("CREATE TABLE scratch (id INTEGER PRIMARY KEY, label TEXT NOT NULL)");
+            }
+        });
+
+        innerFailureRollsBackOnlyInner();
+        outerFailureRollsBackEverything();
+        failureInMiddleOfThreeLevels();
+        check(!UnitOfWork.isActive(), "no unit left open");
+        System.out.println("✔ TestUnitOfWork passed");
+    }
+
+    private static void innerFailureRollsBackOnlyInner() throws SQLException {
+        clear();
+        UnitOfWork.run(() -> {
+            insert("outer-a");
+            try {
+                UnitOfWork.run(() -> {
+                    insert("inner-failed");
+                    check(labels().contains("inner-failed"), "inner row visible inside its savepoint");
+                    throw new IllegalStateException("inner failure");
+                });
+                throw new AssertionError("inner failure was swallowed");
+            } catch (IllegalStateException expected) {
+                // The outer unit decides to carry on
+            }
+            check(UnitOfWork.isActive(), "outer unit still active after the inner rollback");
+            UnitOfWork.run(() -> insert("inner-ok"));
+            insert("outer-b");
+        });
+        check(labels().equals(List.of("outer-a", "inner-ok", "outer-b")),
+              "only the failed inner unit was rolled back, got " + labels());
+        System.out.println("✔ inner failure rolls back only the inner unit");
+    }
+
+    private static void outerFailureRollsBackEverything() throws SQLException {
+        clear();
+        try {
+            UnitOfWork.run(() -> {
+                insert("outer");
+                UnitOfWork.run(() -> insert("inner"));
+                throw new SQLException("outer failure");
+            });
+            throw new AssertionError("outer failure was swallowed");
+        } catch (SQLException e) {
+            check(e.getMessage().equals("outer failure"), "original exception rethrown, got " + e);
+        }
+        check(labels().isEmpty(), "outer rollback discards released savepoints too, got " + labels());
+        System.out.println("✔ outer failure rolls back everything");
+    }
+
+    // A failing middle unit takes its already-released inner unit with it; the outermost still commits
+    private static void failureInMiddleOfThreeLevels() throws SQLException {
+        clear();
+        UnitOfWork.run(() -> {
+            insert("level-1");
+            try {
+                UnitOfWork.run(() -> {
+                    insert("level-2");
+                    UnitOfWork.run(() -> insert("level-3"));
+                    throw new IllegalStateException("middle failure");
+                });
+            } catch (IllegalStateException expected) {
+                // Carry on in the outermost unit
+            }
+        });
+        check(labels().equals(List.of("level-1")), "only the outermost row remains, got " + labels());
+        System.out.println("✔ middle failure rolls back its nested unit");
+    }
+
+    // ------------------ Helper Methods ------------------
+
+    private static void insert(String label) throws SQLException {
+        try (Connection conn = DatabaseManager.getWriteConnection();
+             PreparedStatement ps = conn.prepareStatement("INSERT INTO scratch (label) VALUES (?)")) {
+            ps.setString(1, label);
+            ps.executeUpdate();
+        }
+    }
+
+    private static void clear() throws SQLException {
+        UnitOfWork.run(() -> {
+            try (Connection conn = DatabaseManager.getWriteConnection();
+                 Statement st = conn.createStatement()) {
+                st.executeUpdate("DELETE FROM scratch");
+            }
+        });
+    }
+
+    // Inside a unit this reads through the writer, so it sees uncommitted rows
+    private static List<String> labels() throws SQLException {
+        List<String> labels = new ArrayList<>();
+        try (Connection conn = UnitOfWork.isActive() ? DatabaseManager.getWriteConnection()
+                                                     : DatabaseManager.getReadConnection();
+             Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT label FROM scratch ORDER BY id")) {
+            while (rs.next()) labels.add(rs.getString(1));
+        }
+        return labels;
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) throw new AssertionError(message);
+    }
+}
@@ -0,0 +1,252 @@
+import com.libman.dao.BookDAOImpl;
+import com.libman.dao.BorrowDAOImpl;
+import com.libman.dao.DatabaseManager;
+import com.libman.dao.DocumentDAOImpl;
+import com.libman.dao.LibraryManagerDAO;
+import com.libman.dao.MagazineDAOImpl;
+import com.libman.dao.MemberDAOImpl;
+import com.libman.dao.QueuedLibraryManager;
+import com.libman.dao.WriteQueue;
+import com.libman.model.Member;
+import com.libman.model.PenaltyStatus;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WriteQueue: commands queued while the writer is busy commit as one batch,
+ * a failing command is rolled back in its own savepoint while the rest of the
+ * batch commits (also when the failure is a constraint violation inside a DAO),
+ * a full queue rejects, and close() still writes what is queued.
+ */
+public class TestWriteQueue {
+
+    private static final int COMMANDS = 10;
+    private static final int FAILING = 4;
+
+    public static void main(String[] args) throws Exception {
+        File db = File.createTempFile("libman-wq", ".db");
+        db.deleteOnExit();
+        new File(db.getPath() + "-wal").deleteOnExit();
+        new File(db.getPath() + "-shm").deleteOnExit();
+        System.setProperty("libman.db.url", "jdbc:sqlite:" + db.getAbsolutePath());
+
+        try (Connection conn = DatabaseManager.getWriteConnection();
+             Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE scratch (id INTEGER PRIMARY KEY, label TEXT NOT NULL)");
+        }
+
+        failingCommandRollsBackAlone();
+        duplicateMemberFailsOnlyItsCommand();
+        fullQueueRejects();
+        closeWritesQueuedCommands();
+        System.out.println("✔ TestWriteQueue passed");
+    }
+
+    private static void failingCommandRollsBackAlone() throws Exception {
+        clear();
+        WriteQueue queue = new WriteQueue("test", 64, 64, 1000);
+        try {
+            CountDownLatch writerBusy = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            CompletableFuture<Void> blocker = queue.submit(() -> {
+                writerBusy.countDown();
+                await(release);
+                return null;
+            });
+            check(writerBusy.await(5, TimeUnit.SECONDS), "writer picked up the blocking command");
+
+            // Queued behind the blocker, so the writer drains them as one batch
+            List<CompletableFuture<Long>> futures = new ArrayList<>();
+            for (int i = 0; i < COMMANDS; i++) {
+                String label = "cmd-" + i;
+                boolean fail = i == FAILING;
+                futures.add(queue.submit(() -> {
+                    long id = insert(label);
+                    if (fail) throw new IllegalStateException("command " + label + " failed");
+                    return id;
+                }));
+            }
+            check(queue.getPendingCount() == COMMANDS, "commands wait behind the blocker");
+            release.countDown();
+            blocker.get(5, TimeUnit.SECONDS);
+
+            for (int i = 0; i < COMMANDS; i++) {
+                CompletableFuture<Long> future = futures.get(i);
+                if (i == FAILING) {
+                    try {
+                        future.get(5, TimeUnit.SECONDS);
+                        throw new AssertionError("failing command completed normally");
+                    } catch (ExecutionException e) {
+                        check(e.getCause() instanceof IllegalStateException, "command's own exception reported, got " + e.getCause());
+                    }
+                } else {
+                    check(future.get(5, TimeUnit.SECONDS) > 0, "command " + i + " returned its row id");
+                }
+            }
+
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < COMMANDS; i++) {
+                if (i != FAILING) expected.add("cmd-" + i);
+            }
+            check(labels().equals(expected), "all but the failing command committed, got " + labels());
+            check(queue.getLargestBatch() >= COMMANDS, "queued commands shared a batch, largest " + queue.getLargestBatch());
+            check(queue.getBatchCount() < COMMANDS, "fewer commits than commands, got " + queue.getBatchCount());
+            System.out.println("✔ failing command rolled back alone, batch of " + queue.getLargestBatch() + " committed");
+        } finally {
+            queue.close();
+        }
+    }
+
+    // A DAO write that violates a constraint must fail its own future, not commit silently
+    private static void duplicateMemberFailsOnlyItsCommand() throws Exception {
+        WriteQueue queue = new WriteQueue("members", 64, 64, 1000);
+        QueuedLibraryManager writes = new QueuedLibraryManager(new LibraryManagerDAO(new MemberDAOImpl(),
+                new DocumentDAOImpl(), new BookDAOImpl(), new MagazineDAOImpl(), new BorrowDAOImpl()), queue);
+        try {
+            writes.addMember(new Member(500, "Existing", "Member", PenaltyStatus.NONE)).get(5, TimeUnit.SECONDS);
+
+            CountDownLatch writerBusy = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            queue.submit(() -> {
+                writerBusy.countDown();
+                await(release);
+                return null;
+            });
+            check(writerBusy.await(5, TimeUnit.SECONDS), "writer picked up the blocking command");
+
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < COMMANDS; i++) {
+                int id = i == FAILING ? 500 : 501 + i; // one duplicate idMember
+                futures.add(writes.addMember(new Member(id, "Queued", "Member " + i, PenaltyStatus.NONE)));
+            }
+            release.countDown();
+
+            for (int i = 0; i < COMMANDS; i++) {
+                try {
+                    futures.get(i).get(5, TimeUnit.SECONDS);
+                    check(i != FAILING, "duplicate idMember completed normally");
+                } catch (ExecutionException e) {
+                    check(i == FAILING, "member " + i + " failed: " + e.getCause());
+                }
+            }
+            check(memberCount("surname LIKE 'Member %'") == COMMANDS - 1, "every other member committed");
+            check(memberCount("idMember = 500 AND name = 'Existing'") == 1, "existing member left untouched");
+            check(queue.getLargestBatch() >= COMMANDS, "members shared a batch, largest " + queue.getLargestBatch());
+            System.out.println("✔ duplicate member fails only its own future");
+        } finally {
+            queue.close();
+        }
+    }
+
+    private static void fullQueueRejects() throws Exception {
+        WriteQueue queue = new WriteQueue("full", 2, 8, 50);
+        CountDownLatch writerBusy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            queue.submit(() -> {
+                writerBusy.countDown();
+                await(release);
+                return null;
+            });
+            check(writerBusy.await(5, TimeUnit.SECONDS), "writer picked up the blocking command");
+            CompletableFuture<Void> first = queue.submit(() -> null);
+            CompletableFuture<Void> second = queue.submit(() -> null);
+            CompletableFuture<Void> rejected = queue.submit(() -> null);
+            try {
+                rejected.get(5, TimeUnit.SECONDS);
+                throw new AssertionError("offer to a full queue succeeded");
+            } catch (ExecutionException e) {
+                check(e.getCause() instanceof RejectedExecutionException, "rejected when full, got " + e.getCause());
+            }
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+            System.out.println("✔ full queue rejects after the offer timeout");
+        } finally {
+            release.countDown();
+            queue.close();
+        }
+    }
+
+    private static void closeWritesQueuedCommands() throws Exception {
+        clear();
+        WriteQueue queue = new WriteQueue("closing", 64, 4, 1000);
+        List<CompletableFuture<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < COMMANDS; i++) {
+            String label = "late-" + i;
+            futures.add(queue.submit(() -> insert(label)));
+        }
+        queue.close();
+        for (CompletableFuture<Long> future : futures) {
+            check(future.isDone() && !future.isCompletedExceptionally(), "queued command written before close returned");
+        }
+        check(labels().size() == COMMANDS, "every queued row written, got " + labels().size());
+        CompletableFuture<Long> afterClose = queue.submit(() -> insert("too-late"));
+        check(afterClose.isCompletedExceptionally(), "submit after close is rejected");
+        System.out.println("✔ close writes what is already queued");
+    }
+
+    // ------------------ Helper Methods ------------------
+
+    private static long insert(String label) throws SQLException {
+        try (Connection conn = DatabaseManager.getWriteConnection();
+             PreparedStatement ps = conn.prepareStatement("INSERT INTO scratch (label) VALUES (?)",
+                                                          Statement.RETURN_GENERATED_KEYS)) {
+            ps.setString(1, label);
+            ps.executeUpdate();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                return keys.next() ? keys.getLong(1) : -1;
+            }
+        }
+    }
+
+    private static void clear() throws SQLException {
+        try (Connection conn = DatabaseManager.getWriteConnection();
+             Statement st = conn.createStatement()) {
+            st.executeUpdate("DELETE FROM scratch");
+        }
+    }
+
+    private static List<String> labels() throws SQLException {
+        List<String> labels = new ArrayList<>();
+        try (Connection conn = DatabaseManager.getReadConnection();
+             Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT label FROM scratch ORDER BY id")) {
+            while (rs.next()) labels.add(rs.getString(1));
+        }
+        return labels;
+    }
+
+    private static long memberCount(String where) throws SQLException {
+        try (Connection conn = DatabaseManager.getReadConnection();
+             Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM Member WHERE " + where)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(10, TimeUnit.SECONDS)) throw new IllegalStateException("latch never released");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) throw new AssertionError(message);
+    }
+}